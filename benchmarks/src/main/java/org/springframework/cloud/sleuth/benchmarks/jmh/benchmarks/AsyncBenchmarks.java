@@ -30,6 +30,8 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 import org.springframework.boot.SpringApplication;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.benchmarks.app.SleuthBenchmarkingSpringApp;
 import org.springframework.context.ConfigurableApplicationContext;
 
@@ -49,6 +51,11 @@ public class AsyncBenchmarks {
 		volatile ConfigurableApplicationContext withoutSleuth;
 		volatile SleuthBenchmarkingSpringApp tracedAsyncMethodHavingBean;
 		volatile SleuthBenchmarkingSpringApp untracedAsyncMethodHavingBean;
+		volatile Tracer tracer;
+		final Runnable task = new Runnable() {
+			@Override public void run() {
+			}
+		};
 
 		@Setup public void setup() {
 			this.withSleuth = new SpringApplication(
@@ -65,6 +72,7 @@ public class AsyncBenchmarks {
 					SleuthBenchmarkingSpringApp.class);
 			this.untracedAsyncMethodHavingBean = this.withoutSleuth.getBean(
 					SleuthBenchmarkingSpringApp.class);
+			this.tracer = this.withSleuth.getBean(Tracer.class);
 		}
 
 		@TearDown public void clean() {
@@ -86,4 +94,25 @@ public class AsyncBenchmarks {
 			throws Exception {
 		then(context.tracedAsyncMethodHavingBean.async().get()).isEqualTo("async");
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Wraps and runs a task the way a traced executor does for every submitted task.
+	 * Run with {@code -prof gc} and check {@code gc.alloc.rate.norm} for the bytes
+	 * allocated per task.
+	 */
+	@Benchmark
+	public void wrapTaskWithSpanInScope(BenchmarkContext context) {
+		Span span = context.tracer.createSpan("submit");
+		try {
+			context.tracer.wrap(context.task).run();
+		}
+		finally {
+			context.tracer.close(span);
+		}
+	}
+
+	@Benchmark
+	public void wrapTaskWithoutSpanInScope(BenchmarkContext context) {
+		context.tracer.wrap(context.task).run();
+	}
+}
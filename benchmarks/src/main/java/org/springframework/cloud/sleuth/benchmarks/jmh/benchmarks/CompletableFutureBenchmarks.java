@@ -0,0 +1,102 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.instrument.async.TraceableCompletableFutures;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+
+/**
+ * We're checking the cost of passing the span through a chain of five async
+ * {@link CompletableFuture} stages. Run with {@code -prof gc} to see the bytes allocated
+ * per chain.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CompletableFutureBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		ExecutorService executor;
+		Tracer tracer;
+		TraceableCompletableFutures futures;
+
+		@Setup public void setup() {
+			this.executor = Executors.newFixedThreadPool(2);
+			this.tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+					new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(),
+					new TraceKeys());
+			this.futures = new TraceableCompletableFutures(this.tracer, this.executor);
+		}
+
+		@TearDown public void clean() {
+			this.executor.shutdown();
+		}
+	}
+
+	@Benchmark
+	public Integer fiveStagesWithoutSleuth(BenchmarkContext context) throws Exception {
+		return CompletableFuture.supplyAsync(() -> 1, context.executor)
+				.thenApplyAsync(i -> i + 1, context.executor)
+				.thenApplyAsync(i -> i + 1, context.executor)
+				.thenApplyAsync(i -> i + 1, context.executor)
+				.thenApplyAsync(i -> i + 1, context.executor)
+				.get();
+	}
+
+	@Benchmark
+	public Integer fiveStagesWithSleuth(BenchmarkContext context) throws Exception {
+		Span span = context.tracer.createSpan("chain");
+		try {
+			TraceableCompletableFutures futures = context.futures;
+			return futures.supplyAsync(() -> 1)
+					.thenApplyAsync(futures.function(i -> i + 1), context.executor)
+					.thenApplyAsync(futures.function(i -> i + 1), context.executor)
+					.thenApplyAsync(futures.function(i -> i + 1), context.executor)
+					.thenApplyAsync(futures.function(i -> i + 1), context.executor)
+					.get();
+		}
+		finally {
+			context.tracer.close(span);
+		}
+	}
+}
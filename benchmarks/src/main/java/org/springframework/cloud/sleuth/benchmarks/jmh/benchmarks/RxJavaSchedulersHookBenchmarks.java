@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.instrument.rxjava.RxJavaAutoConfiguration;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import rx.functions.Action0;
+import rx.plugins.RxJavaPlugins;
+import rx.plugins.RxJavaSchedulersHook;
+
+/**
+ * We're checking the cost of wrapping an RxJava action on schedule and calling it, when
+ * the thread that calls it is traced and when its name matches one of the threads to
+ * ignore.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RxJavaSchedulersHookBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		@Param({ "traced", "ignored" })
+		String thread;
+
+		ConfigurableApplicationContext context;
+		RxJavaSchedulersHook hook;
+		Action0 action = new Action0() {
+			@Override public void call() {
+			}
+		};
+
+		@Setup public void setup() {
+			// the threads JMH runs the benchmark in are named "<benchmark>-jmh-worker-<n>"
+			String ignoredThreads = "HystrixMetricPoller,^RxComputation.*$"
+					+ ("ignored".equals(this.thread) ? ",^.*jmh-worker.*$" : "");
+			this.context = new SpringApplicationBuilder(RxJavaConfig.class)
+					.web(false)
+					.properties("spring.sleuth.rxjava.schedulers.ignoredthreads=" + ignoredThreads)
+					.run();
+			this.hook = RxJavaPlugins.getInstance().getSchedulersHook();
+		}
+
+		@TearDown public void clean() {
+			this.context.close();
+			RxJavaPlugins.getInstance().reset();
+		}
+	}
+
+	@Benchmark
+	public void scheduleAndCallWithoutSleuth(BenchmarkContext context) {
+		RxJavaSchedulersHook.getDefaultInstance().onSchedule(context.action).call();
+	}
+
+	@Benchmark
+	public void scheduleAndCallWithSleuth(BenchmarkContext context) {
+		context.hook.onSchedule(context.action).call();
+	}
+
+	@Configuration
+	@ImportAutoConfiguration(RxJavaAutoConfiguration.class)
+	static class RxJavaConfig {
+		@Bean TraceKeys traceKeys() {
+			return new TraceKeys();
+		}
+
+		@Bean Tracer tracer(TraceKeys traceKeys) {
+			return new DefaultTracer(new AlwaysSampler(), new Random(),
+					new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(),
+					traceKeys);
+		}
+	}
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.actuate.metrics.buffer.BufferCounterService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
+import org.springframework.boot.actuate.metrics.writer.Delta;
+import org.springframework.cloud.sleuth.metric.CounterServiceBasedSpanMetricReporter;
+
+/**
+ * We're checking the cost of counting the accepted spans of a poll of a batch of
+ * spans, when the counter is incremented once per span, when the count is written as a
+ * single delta and when it's only published once per interval.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpanMetricReporterBenchmarks {
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		@Param({ "1", "100", "1000" })
+		int spansPerPoll;
+
+		CounterServiceBasedSpanMetricReporter perSpan;
+		CounterServiceBasedSpanMetricReporter delta;
+		CounterServiceBasedSpanMetricReporter periodic;
+
+		@Setup public void setup() {
+			CounterBuffers buffers = new CounterBuffers();
+			BufferCounterService counterService = new BufferCounterService(buffers);
+			CounterWriter counterWriter = new CounterWriter() {
+				@Override public void increment(Delta<?> delta) {
+					buffers.increment(delta.getName(), delta.getValue().longValue());
+				}
+
+				@Override public void reset(String metricName) {
+					buffers.reset(metricName);
+				}
+			};
+			this.perSpan = new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+					"counter.span.dropped", counterService);
+			this.delta = new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+					"counter.span.dropped", counterService, null, null, counterWriter, 0);
+			this.periodic = new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+					"counter.span.dropped", counterService, null, null, counterWriter, 1000);
+		}
+	}
+
+	@Benchmark
+	public void incrementPerSpan(BenchmarkContext context) {
+		context.perSpan.incrementAcceptedSpans(context.spansPerPoll);
+	}
+
+	@Benchmark
+	public void singleDelta(BenchmarkContext context) {
+		context.delta.incrementAcceptedSpans(context.spansPerPoll);
+	}
+
+	@Benchmark
+	public void publishedPeriodically(BenchmarkContext context) {
+		context.periodic.incrementAcceptedSpans(context.spansPerPoll);
+	}
+}
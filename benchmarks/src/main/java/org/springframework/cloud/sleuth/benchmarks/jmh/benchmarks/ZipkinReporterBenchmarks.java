@@ -0,0 +1,119 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.benchmarks.jmh.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.sleuth.metric.NoOpSpanMetricReporter;
+import org.springframework.cloud.sleuth.zipkin.HttpZipkinSpanReporter;
+import org.springframework.cloud.sleuth.zipkin.ZipkinProperties;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.web.client.RestTemplate;
+
+import zipkin.Annotation;
+import zipkin.BinaryAnnotation;
+import zipkin.Constants;
+import zipkin.Endpoint;
+import zipkin.Span;
+
+/**
+ * We're checking how the sizing of the queue of {@link HttpZipkinSpanReporter}
+ * influences the cost of reporting and flushing spans. The transport doesn't
+ * do any IO so only the queueing and the encoding of messages are measured.
+ */
+@Measurement(iterations = 5)
+@Warmup(iterations = 10)
+@Fork(3)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(Threads.MAX)
+public class ZipkinReporterBenchmarks {
+
+	static final Endpoint ENDPOINT = Endpoint.create("benchmark", 127 << 24 | 1, 8080);
+
+	@State(Scope.Benchmark)
+	public static class BenchmarkContext {
+		@Param({ "65536", "524288", "5242880" })
+		int messageMaxBytes;
+
+		@Param({ "1048576", "5242880" })
+		int queuedMaxBytes;
+
+		@Param({ "1", "2" })
+		int flushThreads;
+
+		volatile HttpZipkinSpanReporter reporter;
+		final AtomicLong ids = new AtomicLong();
+
+		@Setup public void setup() {
+			RestTemplate restTemplate = new RestTemplate((uri, httpMethod) -> {
+				MockClientHttpRequest request = new MockClientHttpRequest(httpMethod, uri);
+				request.setResponse(new MockClientHttpResponse(new byte[0], HttpStatus.ACCEPTED));
+				return request;
+			});
+			ZipkinProperties zipkin = new ZipkinProperties();
+			zipkin.setMessageMaxBytes(this.messageMaxBytes);
+			zipkin.setQueuedMaxBytes(this.queuedMaxBytes);
+			zipkin.setFlushThreads(this.flushThreads);
+			this.reporter = new HttpZipkinSpanReporter(restTemplate, zipkin,
+					new NoOpSpanMetricReporter());
+		}
+
+		@TearDown public void clean() {
+			this.reporter.close();
+		}
+	}
+
+	@Benchmark
+	public void reportSpan(BenchmarkContext context) {
+		context.reporter.report(span(context.ids.incrementAndGet()));
+	}
+
+	@Benchmark
+	@Threads(1)
+	public void reportAndFlushBurstOfSpans(BenchmarkContext context) {
+		for (int i = 0; i < 1000; i++) {
+			context.reporter.report(span(context.ids.incrementAndGet()));
+		}
+		context.reporter.flush();
+	}
+
+	static Span span(long id) {
+		long timestamp = System.currentTimeMillis() * 1000;
+		return Span.builder().traceId(id).id(id).name("get /foo")
+				.timestamp(timestamp).duration(150L)
+				.addAnnotation(Annotation.create(timestamp, Constants.SERVER_RECV, ENDPOINT))
+				.addAnnotation(Annotation.create(timestamp + 150L, Constants.SERVER_SEND, ENDPOINT))
+				.addBinaryAnnotation(BinaryAnnotation.create("http.path", "/foo", ENDPOINT))
+				.build();
+	}
+}
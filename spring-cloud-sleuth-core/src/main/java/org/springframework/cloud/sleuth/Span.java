@@ -225,7 +225,8 @@ public class Span implements SpanContext {
 		}
 		if (builder.end > 0) {
 			this.end = builder.end;
-			this.durationMicros = (this.end - this.begin) * 1000;
+			this.durationMicros = builder.durationMicros != null ? builder.durationMicros
+					: (this.end - this.begin) * 1000;
 		}
 		this.name = builder.name != null ? builder.name : "";
 		this.traceIdHigh = builder.traceIdHigh;
@@ -629,6 +630,7 @@ public class Span implements SpanContext {
 	public static class SpanBuilder {
 		private long begin;
 		private long end;
+		private Long durationMicros;
 		private String name;
 		private long traceIdHigh;
 		private long traceId;
@@ -662,6 +664,17 @@ public class Span implements SpanContext {
 			return this;
 		}
 
+		/**
+		 * Call this to keep the precise duration of a stopped Span you didn't start, e.g.
+		 * when it was received from another process. Ignored unless the end is set.
+		 *
+		 * @since 1.2.0
+		 */
+		public Span.SpanBuilder durationMicros(long durationMicros) {
+			this.durationMicros = durationMicros;
+			return this;
+		}
+
 		public Span.SpanBuilder name(String name) {
 			this.name = name;
 			return this;
@@ -355,6 +355,12 @@ public class TraceKeys {
 		 */
 		private String threadPoolKey = "threadPoolKey";
 
+		/**
+		 * Time in microseconds that a thread isolated command waited for a thread of
+		 * its thread pool.
+		 */
+		private String queueWaitKey = "queueWait";
+
 		public String getPrefix() {
 			return this.prefix;
 		}
@@ -371,6 +377,10 @@ public class TraceKeys {
 			return this.threadPoolKey;
 		}
 
+		public String getQueueWaitKey() {
+			return this.queueWaitKey;
+		}
+
 		public void setPrefix(String prefix) {
 			this.prefix = prefix;
 		}
@@ -386,6 +396,10 @@ public class TraceKeys {
 		public void setThreadPoolKey(String threadPoolKey) {
 			this.threadPoolKey = threadPoolKey;
 		}
+
+		public void setQueueWaitKey(String queueWaitKey) {
+			this.queueWaitKey = queueWaitKey;
+		}
 	}
 
 	/**
@@ -420,6 +434,13 @@ public class TraceKeys {
 		 */
 		private String methodNameKey = "method";
 
+		/**
+		 * Time in microseconds that a task submitted to a traced executor waited for a
+		 * thread of the executor. Added to the span the task runs in, when it's a span
+		 * of its own.
+		 */
+		private String queueWaitKey = "queue.wait";
+
 		public String getPrefix() {
 			return this.prefix;
 		}
@@ -436,6 +457,10 @@ public class TraceKeys {
 			return this.methodNameKey;
 		}
 
+		public String getQueueWaitKey() {
+			return this.queueWaitKey;
+		}
+
 		public void setPrefix(String prefix) {
 			this.prefix = prefix;
 		}
@@ -451,6 +476,10 @@ public class TraceKeys {
 		public void setMethodNameKey(String methodNameKey) {
 			this.methodNameKey = methodNameKey;
 		}
+
+		public void setQueueWaitKey(String queueWaitKey) {
+			this.queueWaitKey = queueWaitKey;
+		}
 	}
 
 	/**
@@ -30,8 +30,12 @@ import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.log.SpanLogger;
+import org.springframework.cloud.sleuth.metric.MetricRecordingSpanReporter;
+import org.springframework.cloud.sleuth.metric.SpanMetricsRecorder;
 import org.springframework.cloud.sleuth.sampler.NeverSampler;
+import org.springframework.cloud.sleuth.trace.CurrentTraceContext;
 import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.ThreadLocalCurrentTraceContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -50,6 +54,9 @@ public class TraceAutoConfiguration {
 	@Autowired
 	SleuthProperties properties;
 
+	@Autowired(required = false)
+	SpanMetricsRecorder spanMetricsRecorder;
+
 	@Bean
 	@ConditionalOnMissingBean
 	public Random randomForSpanIds() {
@@ -66,9 +73,18 @@ public class TraceAutoConfiguration {
 	@ConditionalOnMissingBean(Tracer.class)
 	public DefaultTracer sleuthTracer(Sampler sampler, Random random,
 			SpanNamer spanNamer, SpanLogger spanLogger,
-			SpanReporter spanReporter, TraceKeys traceKeys) {
+			SpanReporter spanReporter, TraceKeys traceKeys,
+			CurrentTraceContext currentTraceContext) {
+		SpanReporter reporter = this.spanMetricsRecorder == null ? spanReporter :
+				new MetricRecordingSpanReporter(spanReporter, this.spanMetricsRecorder);
 		return new DefaultTracer(sampler, random, spanNamer, spanLogger,
-				spanReporter, this.properties.isTraceId128(), traceKeys);
+				reporter, this.properties.isTraceId128(), traceKeys, currentTraceContext);
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public CurrentTraceContext currentTraceContext() {
+		return new ThreadLocalCurrentTraceContext();
 	}
 
 	@Bean
@@ -22,8 +22,10 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.context.annotation.Bean;
@@ -43,12 +45,14 @@ import org.springframework.scheduling.annotation.EnableAsync;
  *
  * @see LazyTraceExecutor
  * @see TraceAsyncAspect
+ * @see ExecutorBeanPostProcessor
  */
 @EnableAsync
 @Configuration
 @ConditionalOnProperty(value = "spring.sleuth.async.enabled", matchIfMissing = true)
 @ConditionalOnBean(Tracer.class)
 @AutoConfigureAfter(AsyncCustomAutoConfiguration.class)
+@EnableConfigurationProperties(SleuthAsyncProperties.class)
 public class AsyncDefaultAutoConfiguration {
 
 	@Autowired private BeanFactory beanFactory;
@@ -71,4 +75,20 @@ public class AsyncDefaultAutoConfiguration {
 		return new TraceAsyncAspect(tracer, traceKeys, this.beanFactory);
 	}
 
+	@Configuration
+	@ConditionalOnClass(name = "java.util.concurrent.CompletableFuture")
+	static class TraceableCompletableFuturesConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public TraceableCompletableFutures traceableCompletableFutures(Tracer tracer) {
+			return new TraceableCompletableFutures(tracer);
+		}
+	}
+
+	@Bean
+	public static ExecutorBeanPostProcessor executorBeanPostProcessor(BeanFactory beanFactory) {
+		return new ExecutorBeanPostProcessor(beanFactory);
+	}
+
 }
\ No newline at end of file
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.aop.framework.AopConfigException;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Bean post processor that proxies every {@link Executor} bean so that the tasks
+ * passed to it get wrapped in their trace representation. The trace executor is
+ * created once per bean and the method it handles a call with is resolved once per
+ * method, so that a submitted task costs only its trace wrapper.
+ *
+ * Only the methods that accept tasks are delegated to the trace executor, all the
+ * others are invoked on the bean itself.
+ *
+ * @since 1.2.0
+ */
+class ExecutorBeanPostProcessor implements BeanPostProcessor {
+
+	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
+
+	private final BeanFactory beanFactory;
+
+	ExecutorBeanPostProcessor(BeanFactory beanFactory) {
+		this.beanFactory = beanFactory;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(Object bean, String beanName)
+			throws BeansException {
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(Object bean, String beanName)
+			throws BeansException {
+		if (bean instanceof LazyTraceExecutor || bean instanceof LazyTraceThreadPoolTaskExecutor
+				|| bean instanceof TraceableExecutorService || bean instanceof TraceableForkJoinPool) {
+			return bean;
+		}
+		if (bean instanceof ForkJoinPool) {
+			return proxy(bean, beanName, new LazyTraceForkJoinPool(this.beanFactory,
+					(ForkJoinPool) bean));
+		}
+		if (bean instanceof ThreadPoolTaskExecutor) {
+			return proxy(bean, beanName, new LazyTraceThreadPoolTaskExecutor(this.beanFactory,
+					(ThreadPoolTaskExecutor) bean, beanName));
+		}
+		if (bean instanceof Executor) {
+			return proxy(bean, beanName, new LazyTraceExecutor(this.beanFactory, (Executor) bean,
+					beanName));
+		}
+		return bean;
+	}
+
+	private Object proxy(Object bean, String beanName, Executor traceExecutor) {
+		ProxyFactory factory = new ProxyFactory(bean);
+		factory.setProxyTargetClass(true);
+		factory.addAdvice(new TraceExecutorMethodInterceptor(traceExecutor));
+		try {
+			return factory.getProxy();
+		}
+		catch (AopConfigException e) {
+			if (log.isDebugEnabled()) {
+				log.debug("Can't create a class based proxy of bean [" + beanName
+						+ "] will proxy its interfaces instead", e);
+			}
+		}
+		factory.setProxyTargetClass(false);
+		return factory.getProxy();
+	}
+
+	/**
+	 * Passes the calls of the task accepting methods on to the trace executor.
+	 */
+	private static final class TraceExecutorMethodInterceptor implements MethodInterceptor {
+
+		private final Executor traceExecutor;
+		// the invoked method itself is cached when the trace executor doesn't handle it
+		private final ConcurrentMap<Method, Method> methods = new ConcurrentHashMap<>();
+
+		TraceExecutorMethodInterceptor(Executor traceExecutor) {
+			this.traceExecutor = traceExecutor;
+		}
+
+		@Override
+		public Object invoke(MethodInvocation invocation) throws Throwable {
+			Method method = invocation.getMethod();
+			Method traceMethod = this.methods.get(method);
+			if (traceMethod == null) {
+				traceMethod = traceMethod(method);
+				this.methods.put(method, traceMethod);
+			}
+			if (traceMethod == method) {
+				return invocation.proceed();
+			}
+			return ReflectionUtils.invokeMethod(traceMethod, this.traceExecutor,
+					invocation.getArguments());
+		}
+
+		private Method traceMethod(Method method) {
+			String name = method.getName();
+			if (!"execute".equals(name) && !"submit".equals(name)
+					&& !"submitListenable".equals(name) && !"invoke".equals(name)) {
+				return method;
+			}
+			Method traceMethod = ReflectionUtils.findMethod(this.traceExecutor.getClass(),
+					name, method.getParameterTypes());
+			if (traceMethod == null
+					|| traceMethod.getDeclaringClass() != this.traceExecutor.getClass()) {
+				return method;
+			}
+			ReflectionUtils.makeAccessible(traceMethod);
+			return traceMethod;
+		}
+	}
+}
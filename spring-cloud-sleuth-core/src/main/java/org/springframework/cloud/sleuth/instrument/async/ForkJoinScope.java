@@ -0,0 +1,142 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Span that the subtasks of a fork join computation run in, together with the number
+ * of subtasks that ran and the time threads spent running the computation. Set for the
+ * thread that runs a task of the computation so that the subtasks it creates can pick
+ * it up.
+ *
+ * A task is timed unless it runs inline in another task of the computation on the same
+ * thread, e.g. when it gets joined by the thread that forked it, as its time is part of
+ * that task's already.
+ *
+ * @since 1.2.0
+ */
+final class ForkJoinScope {
+
+	private static final ThreadLocal<ForkJoinScope> CURRENT = new ThreadLocal<>();
+
+	final Span span;
+	private final AtomicLong tasks = new AtomicLong();
+	private final AtomicLong busyNanos = new AtomicLong();
+
+	ForkJoinScope(Span span) {
+		this.span = span;
+	}
+
+	static ForkJoinScope current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Sets the scope of the current thread, {@code null} removes it
+	 */
+	static void set(ForkJoinScope scope) {
+		if (scope != null) {
+			CURRENT.set(scope);
+		}
+		else {
+			CURRENT.remove();
+		}
+	}
+
+	long tasks() {
+		return this.tasks.get();
+	}
+
+	/**
+	 * @return the time (microseconds) threads spent running tasks of the computation
+	 */
+	long busyMicros() {
+		return TimeUnit.NANOSECONDS.toMicros(this.busyNanos.get());
+	}
+
+	/**
+	 * @param previous the scope that was set before the task runs
+	 * @return when the task started or {@link TaskTiming#UNTIMED} if it isn't timed
+	 */
+	static long started(ForkJoinScope scope, ForkJoinScope previous) {
+		return scope != null && scope != previous ? System.nanoTime() : TaskTiming.UNTIMED;
+	}
+
+	static void finished(ForkJoinScope scope, long startedNanos) {
+		if (startedNanos != TaskTiming.UNTIMED) {
+			scope.busyNanos.addAndGet(System.nanoTime() - startedNanos);
+		}
+	}
+
+	/**
+	 * Sets the scope of the task that is about to run and continues the parent span.
+	 * Nothing gets continued when the span is already in scope, e.g. because the task
+	 * got joined by the thread that forked it, or when the task runs as the root of the
+	 * scope that is already set.
+	 *
+	 * @param previousSpan the span of the thread before the task runs
+	 * @return the continued span or {@code null} if none got continued
+	 */
+	static Span enter(Tracer tracer, ForkJoinScope scope, Span parent, Span previousSpan) {
+		if (scope != null) {
+			scope.tasks.incrementAndGet();
+			set(scope);
+		}
+		else if (current() != null) {
+			return null;
+		}
+		return continueSpan(tracer, parent, previousSpan);
+	}
+
+	/**
+	 * Restores the scope that was set before the task ran, detaches its span and puts
+	 * back the span of the thread
+	 */
+	static void exit(Tracer tracer, Span span, Span previousSpan, ForkJoinScope previous) {
+		detach(tracer, span, previousSpan);
+		set(previous);
+	}
+
+	/**
+	 * @return the continued span or {@code null} if the parent is already in scope
+	 */
+	static Span continueSpan(Tracer tracer, Span parent, Span previousSpan) {
+		if (parent == null || parent.equals(previousSpan)) {
+			return null;
+		}
+		return tracer.continueSpan(parent);
+	}
+
+	/**
+	 * Detaches the continued span and puts back the span the thread had before, so that
+	 * a task that runs inline, e.g. in a nested invoke or while a worker helps with
+	 * another task, doesn't leave the thread without its span
+	 */
+	static void detach(Tracer tracer, Span span, Span previousSpan) {
+		if (span == null) {
+			return;
+		}
+		tracer.detach(span);
+		if (previousSpan != null) {
+			tracer.continueSpan(previousSpan);
+		}
+	}
+}
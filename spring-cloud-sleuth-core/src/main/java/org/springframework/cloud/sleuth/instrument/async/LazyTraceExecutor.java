@@ -27,6 +27,7 @@ import org.springframework.cloud.sleuth.DefaultSpanNamer;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 
 /**
  * {@link Executor} that wraps {@link Runnable} in a
@@ -45,10 +46,25 @@ public class LazyTraceExecutor implements Executor {
 	private final Executor delegate;
 	private TraceKeys traceKeys;
 	private SpanNamer spanNamer;
+	private final String beanName;
+	private Boolean rootSpans;
+	private ExecutorMetrics executorMetrics;
+	private boolean executorMetricsResolved;
 
 	public LazyTraceExecutor(BeanFactory beanFactory, Executor delegate) {
+		this(beanFactory, delegate, null);
+	}
+
+	/**
+	 * @param beanName name of the executor bean, decides together with the
+	 * {@link SleuthAsyncProperties#getUntracedTasks() untraced tasks policy} whether a task
+	 * submitted without a span in scope gets a new root span
+	 * @since 1.2.0
+	 */
+	public LazyTraceExecutor(BeanFactory beanFactory, Executor delegate, String beanName) {
 		this.beanFactory = beanFactory;
 		this.delegate = delegate;
+		this.beanName = beanName;
 	}
 
 	@Override
@@ -62,7 +78,12 @@ public class LazyTraceExecutor implements Executor {
 				return;
 			}
 		}
-		this.delegate.execute(new SpanContinuingTraceRunnable(this.tracer, traceKeys(), spanNamer(), command));
+		if (!this.tracer.isTracing() && !rootSpans()) {
+			this.delegate.execute(command);
+			return;
+		}
+		this.delegate.execute(new SpanContinuingTraceRunnable(this.tracer, traceKeys(), spanNamer(),
+				command, null, executorMetrics(), 0, 0));
 	}
 
 	// due to some race conditions trace keys might not be ready yet
@@ -93,4 +114,20 @@ public class LazyTraceExecutor implements Executor {
 		return this.spanNamer;
 	}
 
+	private ExecutorMetrics executorMetrics() {
+		if (!this.executorMetricsResolved) {
+			this.executorMetrics = TaskTiming.executorMetrics(this.beanFactory, this.beanName);
+			this.executorMetricsResolved = true;
+		}
+		return this.executorMetrics;
+	}
+
+	private boolean rootSpans() {
+		if (this.rootSpans == null) {
+			this.rootSpans = SleuthAsyncProperties.resolve(this.beanFactory)
+					.startsRootSpan(this.beanName);
+		}
+		return this.rootSpans;
+	}
+
 }
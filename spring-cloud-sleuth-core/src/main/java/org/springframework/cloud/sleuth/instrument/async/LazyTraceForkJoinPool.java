@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Submits tasks to a {@link ForkJoinPool} bean in their trace representation, the way
+ * {@link TraceableForkJoinPool} does. {@link ExecutorBeanPostProcessor} delegates the
+ * task accepting methods of the bean to it.
+ *
+ * @since 1.2.0
+ */
+class LazyTraceForkJoinPool implements Executor {
+
+	private final BeanFactory beanFactory;
+	private final ForkJoinPool delegate;
+	private Tracer tracer;
+	private TraceKeys traceKeys;
+	private SpanNamer spanNamer;
+	private Boolean aggregateSubtasks;
+
+	LazyTraceForkJoinPool(BeanFactory beanFactory, ForkJoinPool delegate) {
+		this.beanFactory = beanFactory;
+		this.delegate = delegate;
+	}
+
+	public <T> T invoke(ForkJoinTask<T> task) {
+		return this.delegate.invoke(trace(task));
+	}
+
+	public void execute(ForkJoinTask<?> task) {
+		this.delegate.execute(trace(task));
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		this.delegate.execute(new SpanContinuingTraceRunnable(tracer(), traceKeys(),
+				spanNamer(), task));
+	}
+
+	public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+		return this.delegate.submit(trace(task));
+	}
+
+	public <T> ForkJoinTask<T> submit(Callable<T> task) {
+		return this.delegate.submit(trace(ForkJoinTask.adapt(task)));
+	}
+
+	public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+		return this.delegate.submit(trace(ForkJoinTask.adapt(task, result)));
+	}
+
+	public ForkJoinTask<?> submit(Runnable task) {
+		return this.delegate.submit(trace(ForkJoinTask.adapt(task)));
+	}
+
+	private <T> ForkJoinTask<T> trace(ForkJoinTask<T> task) {
+		if (task instanceof SpanContinuingForkJoinTask) {
+			return task;
+		}
+		return new SpanContinuingForkJoinTask<>(tracer(), traceKeys(), spanNamer(), task,
+				aggregateSubtasks());
+	}
+
+	private Tracer tracer() {
+		if (this.tracer == null) {
+			this.tracer = this.beanFactory.getBean(Tracer.class);
+		}
+		return this.tracer;
+	}
+
+	private TraceKeys traceKeys() {
+		if (this.traceKeys == null) {
+			this.traceKeys = this.beanFactory.getBean(TraceKeys.class);
+		}
+		return this.traceKeys;
+	}
+
+	private SpanNamer spanNamer() {
+		if (this.spanNamer == null) {
+			this.spanNamer = this.beanFactory.getBean(SpanNamer.class);
+		}
+		return this.spanNamer;
+	}
+
+	private boolean aggregateSubtasks() {
+		if (this.aggregateSubtasks == null) {
+			this.aggregateSubtasks = SleuthAsyncProperties.resolve(this.beanFactory)
+					.getForkJoin().isAggregateSubtasks();
+		}
+		return this.aggregateSubtasks;
+	}
+}
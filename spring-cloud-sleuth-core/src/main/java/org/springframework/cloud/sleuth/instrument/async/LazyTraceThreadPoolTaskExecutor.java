@@ -29,6 +29,7 @@ import org.springframework.cloud.sleuth.DefaultSpanNamer;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.util.concurrent.ListenableFuture;
 
@@ -48,41 +49,57 @@ public class LazyTraceThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
 	private final ThreadPoolTaskExecutor delegate;
 	private TraceKeys traceKeys;
 	private SpanNamer spanNamer;
+	private final String beanName;
+	private Boolean rootSpans;
+	private ExecutorMetrics executorMetrics;
+	private boolean executorMetricsResolved;
 
 	public LazyTraceThreadPoolTaskExecutor(BeanFactory beanFactory,
 			ThreadPoolTaskExecutor delegate) {
+		this(beanFactory, delegate, null);
+	}
+
+	/**
+	 * @param beanName name of the executor bean, decides together with the
+	 * {@link SleuthAsyncProperties#getUntracedTasks() untraced tasks policy} whether a task
+	 * submitted without a span in scope gets a new root span
+	 * @since 1.2.0
+	 */
+	public LazyTraceThreadPoolTaskExecutor(BeanFactory beanFactory,
+			ThreadPoolTaskExecutor delegate, String beanName) {
 		this.beanFactory = beanFactory;
 		this.delegate = delegate;
+		this.beanName = beanName;
 	}
 
 	@Override
 	public void execute(Runnable task) {
-		this.delegate.execute(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		this.delegate.execute(trace(task));
 	}
 
 	@Override
 	public void execute(Runnable task, long startTimeout) {
-		this.delegate.execute(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task), startTimeout);
+		this.delegate.execute(trace(task), startTimeout);
 	}
 
 	@Override
 	public Future<?> submit(Runnable task) {
-		return this.delegate.submit(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submit(trace(task));
 	}
 
 	@Override
 	public <T> Future<T> submit(Callable<T> task) {
-		return this.delegate.submit(new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submit(trace(task));
 	}
 
 	@Override
 	public ListenableFuture<?> submitListenable(Runnable task) {
-		return this.delegate.submitListenable(new SpanContinuingTraceRunnable(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submitListenable(trace(task));
 	}
 
 	@Override
 	public <T> ListenableFuture<T> submitListenable(Callable<T> task) {
-		return this.delegate.submitListenable(new SpanContinuingTraceCallable<>(tracer(), traceKeys(), spanNamer(), task));
+		return this.delegate.submitListenable(trace(task));
 	}
 
 	@Override
@@ -101,6 +118,40 @@ public class LazyTraceThreadPoolTaskExecutor extends ThreadPoolTaskExecutor {
 		super.afterPropertiesSet();
 	}
 
+	private Runnable trace(Runnable task) {
+		Tracer tracer = tracer();
+		if (!tracer.isTracing() && !rootSpans()) {
+			return task;
+		}
+		return new SpanContinuingTraceRunnable(tracer, traceKeys(), spanNamer(), task, null,
+				executorMetrics(), 0, 0);
+	}
+
+	private <T> Callable<T> trace(Callable<T> task) {
+		Tracer tracer = tracer();
+		if (!tracer.isTracing() && !rootSpans()) {
+			return task;
+		}
+		return new SpanContinuingTraceCallable<>(tracer, traceKeys(), spanNamer(), null, task,
+				executorMetrics(), 0);
+	}
+
+	private ExecutorMetrics executorMetrics() {
+		if (!this.executorMetricsResolved) {
+			this.executorMetrics = TaskTiming.executorMetrics(this.beanFactory, this.beanName);
+			this.executorMetricsResolved = true;
+		}
+		return this.executorMetrics;
+	}
+
+	private boolean rootSpans() {
+		if (this.rootSpans == null) {
+			this.rootSpans = SleuthAsyncProperties.resolve(this.beanFactory)
+					.startsRootSpan(this.beanName);
+		}
+		return this.rootSpans;
+	}
+
 	private Tracer tracer() {
 		if (this.tracer == null) {
 			this.tracer = this.beanFactory.getBean(Tracer.class);
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Starts the local component span of a task that was submitted without a span
+ * in scope. Shared by the async wrappers so that a wrapper doesn't need to allocate
+ * another wrapper just to be able to start such a span.
+ *
+ * @since 1.2.0
+ */
+final class LocalComponentSpans {
+
+	static final String ASYNC_COMPONENT = "async";
+
+	private LocalComponentSpans() {
+	}
+
+	static Span start(Tracer tracer, TraceKeys traceKeys, String name, Span parent) {
+		return tag(tracer, traceKeys, tracer.createSpan(name, parent));
+	}
+
+	/**
+	 * Also tags the span with the time the task waited in the queue of its executor
+	 */
+	static Span start(Tracer tracer, TraceKeys traceKeys, String name, Span parent,
+			long queueWaitNanos) {
+		Span span = start(tracer, traceKeys, name, parent);
+		tagQueueWait(tracer, traceKeys, queueWaitNanos);
+		return span;
+	}
+
+	/**
+	 * Starts a root span sampled by the given sampler and tags it with the time the task
+	 * waited in the queue of its executor
+	 */
+	static Span startRoot(Tracer tracer, TraceKeys traceKeys, String name,
+			Sampler sampler, long queueWaitNanos) {
+		Span span = tag(tracer, traceKeys, tracer.createSpan(name, sampler));
+		tagQueueWait(tracer, traceKeys, queueWaitNanos);
+		return span;
+	}
+
+	private static Span tag(Tracer tracer, TraceKeys traceKeys, Span span) {
+		tracer.addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, ASYNC_COMPONENT);
+		tracer.addTag(traceKeys.getAsync().getPrefix() +
+				traceKeys.getAsync().getThreadNameKey(), Thread.currentThread().getName());
+		return span;
+	}
+
+	private static void tagQueueWait(Tracer tracer, TraceKeys traceKeys,
+			long queueWaitNanos) {
+		tracer.addTag(traceKeys.getAsync().getPrefix() + traceKeys.getAsync().getQueueWaitKey(),
+				String.valueOf(TimeUnit.NANOSECONDS.toMicros(queueWaitNanos)));
+	}
+}
@@ -32,7 +32,7 @@ import org.springframework.cloud.sleuth.TraceKeys;
  */
 public class LocalComponentTraceCallable<V> extends TraceCallable<V> {
 
-	protected static final String ASYNC_COMPONENT = "async";
+	protected static final String ASYNC_COMPONENT = LocalComponentSpans.ASYNC_COMPONENT;
 
 	private final TraceKeys traceKeys;
 
@@ -61,10 +61,6 @@ public class LocalComponentTraceCallable<V> extends TraceCallable<V> {
 
 	@Override
 	protected Span startSpan() {
-		Span span = getTracer().createSpan(getSpanName(), getParent());
-		getTracer().addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, ASYNC_COMPONENT);
-		getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
-				this.traceKeys.getAsync().getThreadNameKey(), Thread.currentThread().getName());
-		return span;
+		return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(), getParent());
 	}
 }
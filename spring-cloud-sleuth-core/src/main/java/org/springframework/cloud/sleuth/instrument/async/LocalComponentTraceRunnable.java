@@ -21,34 +21,70 @@ import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceRunnable;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 
 /**
  * Runnable that starts a span that is a local component span.
  *
+ * When created by a traced executor the task is timed: the time it waited in the queue
+ * is tagged on the span, and together with the time it ran recorded in the
+ * {@link ExecutorMetrics} of the executor if there are any.
+ *
  * @author Marcin Grzejszczak
  * @since 1.0.0
  */
 public class LocalComponentTraceRunnable extends TraceRunnable {
 
-	protected static final String ASYNC_COMPONENT = "async";
+	protected static final String ASYNC_COMPONENT = LocalComponentSpans.ASYNC_COMPONENT;
 
 	private final TraceKeys traceKeys;
+	private final ExecutorMetrics executorMetrics;
+	private final long readyNanos;
 
 	public LocalComponentTraceRunnable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Runnable delegate) {
-		super(tracer, spanNamer, delegate);
-		this.traceKeys = traceKeys;
+		this(tracer, traceKeys, spanNamer, delegate, null);
 	}
 
 	public LocalComponentTraceRunnable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Runnable delegate, String name) {
 		super(tracer, spanNamer, delegate, name);
 		this.traceKeys = traceKeys;
+		this.executorMetrics = null;
+		this.readyNanos = TaskTiming.UNTIMED;
+	}
+
+	/**
+	 * Timed task of a traced executor
+	 */
+	LocalComponentTraceRunnable(Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			Runnable delegate, String name, ExecutorMetrics executorMetrics) {
+		super(tracer, spanNamer, delegate, name);
+		this.traceKeys = traceKeys;
+		this.executorMetrics = executorMetrics;
+		this.readyNanos = TaskTiming.ready(0);
 	}
 
 	@Override
 	public void run() {
-		Span span = startSpan();
+		if (this.readyNanos == TaskTiming.UNTIMED) {
+			run(startSpan());
+			return;
+		}
+		long started = System.nanoTime();
+		long queueWait = TaskTiming.queueWait(this.readyNanos, started);
+		try {
+			run(LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(),
+					getParent(), queueWait));
+		}
+		finally {
+			if (this.executorMetrics != null) {
+				this.executorMetrics.recordTask(queueWait, System.nanoTime() - started);
+			}
+		}
+	}
+
+	private void run(Span span) {
 		try {
 			this.getDelegate().run();
 		}
@@ -59,10 +95,6 @@ public class LocalComponentTraceRunnable extends TraceRunnable {
 
 	@Override
 	protected Span startSpan() {
-		Span span = getTracer().createSpan(getSpanName(), getParent());
-		getTracer().addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, ASYNC_COMPONENT);
-		getTracer().addTag(this.traceKeys.getAsync().getPrefix() +
-				this.traceKeys.getAsync().getThreadNameKey(), Thread.currentThread().getName());
-		return span;
+		return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(), getParent());
 	}
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the async instrumentation
+ *
+ * @since 1.2.0
+ */
+@ConfigurationProperties("spring.sleuth.async")
+public class SleuthAsyncProperties {
+
+	/**
+	 * What to do with tasks that are submitted to a traced executor while there's
+	 * no span in scope
+	 */
+	public enum UntracedTasks {
+		/** Run the task in a new root span, subject to sampling */
+		ROOT_SPAN,
+		/** Pass the task to the executor as it is */
+		PASS_THROUGH,
+		/** Start a root span only for the executors listed in root span executors */
+		NAMED_EXECUTORS
+	}
+
+	/**
+	 * Policy for tasks that are submitted without a span in scope. Pools running lots
+	 * of small background tasks might want to pass them through untraced.
+	 */
+	private UntracedTasks untracedTasks = UntracedTasks.ROOT_SPAN;
+
+	/**
+	 * Names of the executor beans whose untraced tasks get a root span when the
+	 * policy is {@code named-executors}.
+	 */
+	private List<String> rootSpanExecutors = new ArrayList<>();
+
+	private ForkJoin forkJoin = new ForkJoin();
+
+	public UntracedTasks getUntracedTasks() {
+		return this.untracedTasks;
+	}
+
+	public void setUntracedTasks(UntracedTasks untracedTasks) {
+		this.untracedTasks = untracedTasks;
+	}
+
+	public List<String> getRootSpanExecutors() {
+		return this.rootSpanExecutors;
+	}
+
+	public void setRootSpanExecutors(List<String> rootSpanExecutors) {
+		this.rootSpanExecutors = rootSpanExecutors;
+	}
+
+	public ForkJoin getForkJoin() {
+		return this.forkJoin;
+	}
+
+	public void setForkJoin(ForkJoin forkJoin) {
+		this.forkJoin = forkJoin;
+	}
+
+	/**
+	 * @param executorName name of the executor bean, may be {@code null}
+	 * @return {@code true} if a task submitted to the executor without a span in scope
+	 * should be run in a new root span
+	 */
+	public boolean startsRootSpan(String executorName) {
+		if (this.untracedTasks == UntracedTasks.NAMED_EXECUTORS) {
+			return executorName != null && this.rootSpanExecutors.contains(executorName);
+		}
+		return this.untracedTasks == UntracedTasks.ROOT_SPAN;
+	}
+
+	/**
+	 * @return the properties bean of the factory or the defaults if there's none
+	 */
+	static SleuthAsyncProperties resolve(BeanFactory beanFactory) {
+		try {
+			return beanFactory.getBean(SleuthAsyncProperties.class);
+		}
+		catch (NoSuchBeanDefinitionException e) {
+			return new SleuthAsyncProperties();
+		}
+	}
+
+	public static class ForkJoin {
+
+		/**
+		 * When true, a task submitted to a fork join pool bean runs in a span of its own,
+		 * that all of its subtasks run in and get counted on, instead of continuing the
+		 * span of the submitter.
+		 */
+		private boolean aggregateSubtasks = false;
+
+		public boolean isAggregateSubtasks() {
+			return this.aggregateSubtasks;
+		}
+
+		public void setAggregateSubtasks(boolean aggregateSubtasks) {
+			this.aggregateSubtasks = aggregateSubtasks;
+		}
+	}
+}
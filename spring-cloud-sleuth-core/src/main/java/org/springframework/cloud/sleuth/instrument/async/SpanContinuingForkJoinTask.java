@@ -0,0 +1,106 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.ForkJoinTask;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Runs a task submitted to a fork join pool in the span that was in scope when it got
+ * submitted. Like {@link SpanContinuingTraceRunnable} it continues that span, or starts a
+ * local component span when there was none. When subtasks get aggregated, a local
+ * component span is always started for the whole computation and tagged with the
+ * number of {@link TraceRecursiveTask subtasks} that ran in it.
+ * Afterwards the span the running thread had is put back, as a task may run inline in
+ * another one, e.g. in a nested invoke.
+ *
+ * @since 1.2.0
+ */
+@SuppressWarnings("serial")
+final class SpanContinuingForkJoinTask<V> extends ForkJoinTask<V> {
+
+	static final String DEFAULT_SPAN_NAME = "fork-join";
+	static final String TASKS_TAG_NAME = "fork-join.tasks";
+	static final String BUSY_TIME_TAG_NAME = "fork-join.busy-time";
+
+	private final transient Tracer tracer;
+	private final transient TraceKeys traceKeys;
+	private final transient SpanNamer spanNamer;
+	private final ForkJoinTask<V> delegate;
+	private final boolean aggregate;
+	private final transient Span parent;
+	private V result;
+
+	SpanContinuingForkJoinTask(Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			ForkJoinTask<V> delegate, boolean aggregate) {
+		this.tracer = tracer;
+		this.traceKeys = traceKeys;
+		this.spanNamer = spanNamer;
+		this.delegate = delegate;
+		this.aggregate = aggregate;
+		this.parent = tracer.getCurrentSpan();
+	}
+
+	@Override
+	public V getRawResult() {
+		return this.result;
+	}
+
+	@Override
+	protected void setRawResult(V value) {
+		this.result = value;
+	}
+
+	@Override
+	protected boolean exec() {
+		if (this.parent != null && !this.aggregate) {
+			Span previous = this.tracer.getCurrentSpan();
+			Span span = ForkJoinScope.continueSpan(this.tracer, this.parent, previous);
+			try {
+				this.result = this.delegate.invoke();
+			}
+			finally {
+				ForkJoinScope.detach(this.tracer, span, previous);
+			}
+			return true;
+		}
+		Span span = LocalComponentSpans.start(this.tracer, this.traceKeys,
+				this.spanNamer.name(this.delegate, DEFAULT_SPAN_NAME), this.parent);
+		ForkJoinScope previous = ForkJoinScope.current();
+		ForkJoinScope scope = this.aggregate ? new ForkJoinScope(span) : null;
+		ForkJoinScope.set(scope);
+		long started = ForkJoinScope.started(scope, previous);
+		try {
+			this.result = this.delegate.invoke();
+		}
+		finally {
+			ForkJoinScope.set(previous);
+			if (scope != null) {
+				ForkJoinScope.finished(scope, started);
+				String prefix = this.traceKeys.getAsync().getPrefix();
+				this.tracer.addTag(prefix + TASKS_TAG_NAME, String.valueOf(scope.tasks()));
+				this.tracer.addTag(prefix + BUSY_TIME_TAG_NAME,
+						String.valueOf(scope.busyMicros()));
+			}
+			this.tracer.close(span);
+		}
+		return true;
+	}
+}
@@ -23,33 +23,73 @@ import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceCallable;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 
 /**
  * Runnable that continues a span if there is one and creates new that is a
  * local component span if there was no tracing present.
+ * The local component span is created only once the task runs, so wrapping a task
+ * is a single allocation.
+ *
+ * When created by a traced executor the task is timed: the time it waited in the queue
+ * is tagged on the local component span, and together with the time it ran recorded
+ * in the {@link ExecutorMetrics} of the executor if there are any.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.10
  */
 public class SpanContinuingTraceCallable<V> extends TraceCallable<V> {
 
-	private final LocalComponentTraceCallable<V> traceCallable;
+	private final TraceKeys traceKeys;
+	private final ExecutorMetrics executorMetrics;
+	private final long readyNanos;
 
 	public SpanContinuingTraceCallable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Callable<V> delegate) {
-		super(tracer, spanNamer, delegate);
-		this.traceCallable = new LocalComponentTraceCallable<>(tracer, traceKeys, spanNamer, delegate);
+		this(tracer, traceKeys, spanNamer, null, delegate);
 	}
 
 	public SpanContinuingTraceCallable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, String name, Callable<V> delegate) {
 		super(tracer, spanNamer, delegate, name);
-		this.traceCallable = new LocalComponentTraceCallable<>(tracer, traceKeys, spanNamer, name, delegate);
+		this.traceKeys = traceKeys;
+		this.executorMetrics = null;
+		this.readyNanos = TaskTiming.UNTIMED;
+	}
+
+	/**
+	 * Timed task of a traced executor, the timing is skipped when nothing would use it
+	 *
+	 * @param delayNanos delay of a scheduled task
+	 */
+	SpanContinuingTraceCallable(Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			String name, Callable<V> delegate, ExecutorMetrics executorMetrics,
+			long delayNanos) {
+		super(tracer, spanNamer, delegate, name);
+		this.traceKeys = traceKeys;
+		this.executorMetrics = executorMetrics;
+		this.readyNanos = executorMetrics != null || getParent() == null ?
+				TaskTiming.ready(delayNanos) : TaskTiming.UNTIMED;
 	}
 
 	@Override
 	public V call() throws Exception {
-		Span span = startSpan();
+		if (this.readyNanos == TaskTiming.UNTIMED) {
+			return call(startSpan());
+		}
+		long started = System.nanoTime();
+		long queueWait = TaskTiming.queueWait(this.readyNanos, started);
+		try {
+			return call(startSpan(queueWait));
+		}
+		finally {
+			if (this.executorMetrics != null) {
+				this.executorMetrics.recordTask(queueWait, System.nanoTime() - started);
+			}
+		}
+	}
+
+	private V call(Span span) throws Exception {
 		try {
 			return this.getDelegate().call();
 		}
@@ -62,7 +102,16 @@ public class SpanContinuingTraceCallable<V> extends TraceCallable<V> {
 	protected Span startSpan() {
 		Span span = this.getParent();
 		if (span == null) {
-			return this.traceCallable.startSpan();
+			return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(), null);
+		}
+		return continueSpan(span);
+	}
+
+	private Span startSpan(long queueWaitNanos) {
+		Span span = this.getParent();
+		if (span == null) {
+			return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(),
+					null, queueWaitNanos);
 		}
 		return continueSpan(span);
 	}
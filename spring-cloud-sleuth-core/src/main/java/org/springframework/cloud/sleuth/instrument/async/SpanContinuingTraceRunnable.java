@@ -16,38 +16,110 @@
 
 package org.springframework.cloud.sleuth.instrument.async;
 
+import org.springframework.cloud.sleuth.Sampler;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.TraceRunnable;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.sampler.NeverSampler;
 
 /**
  * Runnable that continues a span if there is one and creates new that is a
  * local component span if there was no tracing present.
+ * The local component span is created only once the task runs, so wrapping a task
+ * is a single allocation.
+ *
+ * When created by a traced executor the task is timed: the time it waited in the queue
+ * is tagged on the local component span, and together with the time it ran recorded
+ * in the {@link ExecutorMetrics} of the executor if there are any. A periodic task that
+ * starts a root span on each run may sample only one in a given number of its runs.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.10
  */
 public class SpanContinuingTraceRunnable extends TraceRunnable {
 
-	private final LocalComponentTraceRunnable traceRunnable;
+	private static final Sampler ALWAYS_SAMPLER = new AlwaysSampler();
+
+	private final TraceKeys traceKeys;
+	private final ExecutorMetrics executorMetrics;
+	private final long periodNanos;
+	private final int sampleEvery;
+	private long readyNanos;
+	// runs of a periodic task don't overlap
+	private long runs;
 
 	public SpanContinuingTraceRunnable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Runnable delegate) {
-		super(tracer, spanNamer, delegate);
-		this.traceRunnable = new LocalComponentTraceRunnable(tracer, traceKeys, spanNamer, delegate);
+		this(tracer, traceKeys, spanNamer, delegate, null);
 	}
 
 	public SpanContinuingTraceRunnable(Tracer tracer, TraceKeys traceKeys,
 			SpanNamer spanNamer, Runnable delegate, String name) {
 		super(tracer, spanNamer, delegate, name);
-		this.traceRunnable = new LocalComponentTraceRunnable(tracer, traceKeys, spanNamer, delegate, name);
+		this.traceKeys = traceKeys;
+		this.executorMetrics = null;
+		this.periodNanos = 0;
+		this.sampleEvery = 1;
+		this.readyNanos = TaskTiming.UNTIMED;
+	}
+
+	/**
+	 * Timed task of a traced executor, the timing is skipped when nothing would use it
+	 *
+	 * @param delayNanos delay of a scheduled task
+	 * @param periodNanos period of a periodic task, negative for a fixed delay
+	 */
+	SpanContinuingTraceRunnable(Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			Runnable delegate, String name, ExecutorMetrics executorMetrics,
+			long delayNanos, long periodNanos) {
+		this(tracer, traceKeys, spanNamer, delegate, name, executorMetrics, delayNanos,
+				periodNanos, 1);
+	}
+
+	/**
+	 * @param sampleEvery one in this many root spans of a periodic task is sampled, 1 to
+	 * sample them by the default sampler
+	 */
+	SpanContinuingTraceRunnable(Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			Runnable delegate, String name, ExecutorMetrics executorMetrics,
+			long delayNanos, long periodNanos, int sampleEvery) {
+		super(tracer, spanNamer, delegate, name);
+		this.traceKeys = traceKeys;
+		this.executorMetrics = executorMetrics;
+		this.periodNanos = periodNanos;
+		this.sampleEvery = periodNanos != 0 ? Math.max(sampleEvery, 1) : 1;
+		this.readyNanos = executorMetrics != null || getParent() == null ?
+				TaskTiming.ready(delayNanos) : TaskTiming.UNTIMED;
 	}
 
 	@Override
 	public void run() {
-		Span span = startSpan();
+		if (this.readyNanos == TaskTiming.UNTIMED) {
+			run(startSpan());
+			return;
+		}
+		long started = System.nanoTime();
+		long queueWait = TaskTiming.queueWait(this.readyNanos, started);
+		try {
+			run(startSpan(queueWait));
+		}
+		finally {
+			long finished = System.nanoTime();
+			if (this.executorMetrics != null) {
+				this.executorMetrics.recordTask(queueWait, finished - started);
+			}
+			if (this.periodNanos != 0) {
+				this.readyNanos = TaskTiming.nextReady(this.readyNanos, this.periodNanos,
+						finished);
+			}
+		}
+	}
+
+	private void run(Span span) {
 		try {
 			this.getDelegate().run();
 		}
@@ -60,7 +132,22 @@ public class SpanContinuingTraceRunnable extends TraceRunnable {
 	protected Span startSpan() {
 		Span span = this.getParent();
 		if (span == null) {
-			return this.traceRunnable.startSpan();
+			return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(), null);
+		}
+		return continueSpan(span);
+	}
+
+	private Span startSpan(long queueWaitNanos) {
+		Span span = this.getParent();
+		if (span == null && this.sampleEvery > 1) {
+			Sampler sampler = this.runs++ % this.sampleEvery == 0 ?
+					ALWAYS_SAMPLER : NeverSampler.INSTANCE;
+			return LocalComponentSpans.startRoot(getTracer(), this.traceKeys, getSpanName(),
+					sampler, queueWaitNanos);
+		}
+		if (span == null) {
+			return LocalComponentSpans.start(getTracer(), this.traceKeys, getSpanName(),
+					null, queueWaitNanos);
 		}
 		return continueSpan(span);
 	}
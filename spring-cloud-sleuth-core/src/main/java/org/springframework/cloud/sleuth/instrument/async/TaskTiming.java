@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
+import org.springframework.cloud.sleuth.metric.ExecutorMetricsRecorder;
+
+/**
+ * Times the tasks of traced executors. A wrapper keeps the time its task got ready to
+ * run, which is when it was submitted plus its delay, so that timing a task doesn't
+ * cost another allocation. The queue wait of a task is the time between being ready
+ * and starting to run.
+ *
+ * @since 1.2.0
+ */
+final class TaskTiming {
+
+	/**
+	 * Ready time of a task that isn't timed
+	 */
+	static final long UNTIMED = Long.MIN_VALUE;
+
+	private TaskTiming() {
+	}
+
+	/**
+	 * @return when a task submitted now with the given delay gets ready to run
+	 */
+	static long ready(long delayNanos) {
+		return System.nanoTime() + delayNanos;
+	}
+
+	static long queueWait(long readyNanos, long startedNanos) {
+		return Math.max(startedNanos - readyNanos, 0);
+	}
+
+	/**
+	 * Next ready time of a periodic task. Like in
+	 * {@link java.util.concurrent.ScheduledThreadPoolExecutor} a positive period is
+	 * a fixed rate and a negative one a fixed delay.
+	 */
+	static long nextReady(long readyNanos, long periodNanos, long finishedNanos) {
+		return periodNanos > 0 ? readyNanos + periodNanos : finishedNanos - periodNanos;
+	}
+
+	/**
+	 * @return metrics of the executor or {@code null} if executor metrics aren't recorded
+	 * or the executor has no name
+	 */
+	static ExecutorMetrics executorMetrics(BeanFactory beanFactory, String executorName) {
+		if (executorName == null) {
+			return null;
+		}
+		try {
+			ExecutorMetricsRecorder recorder = beanFactory.getBean(ExecutorMetricsRecorder.class);
+			return recorder != null ? recorder.executor(executorName) : null;
+		}
+		catch (NoSuchBeanDefinitionException e) {
+			return null;
+		}
+	}
+}
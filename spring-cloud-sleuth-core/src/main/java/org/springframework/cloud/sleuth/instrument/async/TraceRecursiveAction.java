@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Counterpart of {@link RecursiveAction} that passes the span to its subtasks, like
+ * {@link TraceRecursiveTask} does.
+ *
+ * @since 1.2.0
+ */
+@SuppressWarnings("serial")
+public abstract class TraceRecursiveAction extends ForkJoinTask<Void> {
+
+	private final transient Tracer tracer;
+	private final transient ForkJoinScope scope;
+	private final transient Span parent;
+
+	protected TraceRecursiveAction(Tracer tracer) {
+		this.tracer = tracer;
+		this.scope = ForkJoinScope.current();
+		this.parent = this.scope != null ? this.scope.span : tracer.getCurrentSpan();
+	}
+
+	/**
+	 * The main computation performed by this task
+	 */
+	protected abstract void compute();
+
+	@Override
+	public final Void getRawResult() {
+		return null;
+	}
+
+	@Override
+	protected final void setRawResult(Void value) {
+	}
+
+	@Override
+	protected final boolean exec() {
+		ForkJoinScope previous = ForkJoinScope.current();
+		long started = ForkJoinScope.started(this.scope, previous);
+		Span previousSpan = this.tracer.getCurrentSpan();
+		Span span = ForkJoinScope.enter(this.tracer, this.scope, this.parent, previousSpan);
+		try {
+			compute();
+		}
+		finally {
+			ForkJoinScope.exit(this.tracer, span, previousSpan, previous);
+			ForkJoinScope.finished(this.scope, started);
+		}
+		return true;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Counterpart of {@link RecursiveTask} that passes the span to its subtasks. The span
+ * in scope when the task is created is continued while the task is computed, on
+ * whichever worker thread it runs. Subtasks created in {@link #compute()} therefore
+ * get the same span, without creating a span per subtask.
+ *
+ * When the task is a part of a computation submitted to a {@link TraceableForkJoinPool}
+ * that aggregates subtasks, the subtasks run in the span of the whole computation and
+ * get counted on it.
+ *
+ * @param <V> the type of the result of the task
+ * @since 1.2.0
+ */
+@SuppressWarnings("serial")
+public abstract class TraceRecursiveTask<V> extends ForkJoinTask<V> {
+
+	private final transient Tracer tracer;
+	private final transient ForkJoinScope scope;
+	private final transient Span parent;
+	private V result;
+
+	protected TraceRecursiveTask(Tracer tracer) {
+		this.tracer = tracer;
+		this.scope = ForkJoinScope.current();
+		this.parent = this.scope != null ? this.scope.span : tracer.getCurrentSpan();
+	}
+
+	/**
+	 * The main computation performed by this task
+	 */
+	protected abstract V compute();
+
+	@Override
+	public final V getRawResult() {
+		return this.result;
+	}
+
+	@Override
+	protected final void setRawResult(V value) {
+		this.result = value;
+	}
+
+	@Override
+	protected final boolean exec() {
+		ForkJoinScope previous = ForkJoinScope.current();
+		long started = ForkJoinScope.started(this.scope, previous);
+		Span previousSpan = this.tracer.getCurrentSpan();
+		Span span = ForkJoinScope.enter(this.tracer, this.scope, this.parent, previousSpan);
+		try {
+			this.result = compute();
+		}
+		finally {
+			ForkJoinScope.exit(this.tracer, span, previousSpan, previous);
+			ForkJoinScope.finished(this.scope, started);
+		}
+		return true;
+	}
+}
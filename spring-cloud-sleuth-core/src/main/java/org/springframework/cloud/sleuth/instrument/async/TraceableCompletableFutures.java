@@ -0,0 +1,294 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * Passes the current span through the stages of a {@link CompletableFuture}.
+ *
+ * A stage may run on any thread, including the one that completed the previous stage
+ * or one of the common pool, so the span is captured when the stage gets created and
+ * not when its task gets submitted. Every wrapped stage is a single object holding the
+ * delegate and the span, that continues the span while the delegate runs and then
+ * puts back the span of the running thread. A stage that runs inline, in the span it was
+ * created in, leaves the span as it is. When there's no span in scope the stage is
+ * returned as it is.
+ *
+ * <pre>{@code
+ * futures.supplyAsync(() -> loadOrder(id))
+ *     .thenApplyAsync(futures.function(order -> price(order)), executor)
+ *     .thenAccept(futures.consumer(price -> log.info("Price " + price)));
+ * }</pre>
+ *
+ * @since 1.2.0
+ */
+public class TraceableCompletableFutures {
+
+	private final Tracer tracer;
+	private final Executor executor;
+
+	/**
+	 * Runs the async factory methods on the {@link ForkJoinPool#commonPool() common pool}
+	 */
+	public TraceableCompletableFutures(Tracer tracer) {
+		this(tracer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param executor executor the async factory methods run on
+	 */
+	public TraceableCompletableFutures(Tracer tracer, Executor executor) {
+		this.tracer = tracer;
+		this.executor = executor;
+	}
+
+	public <U> CompletableFuture<U> supplyAsync(Supplier<U> supplier) {
+		return CompletableFuture.supplyAsync(supplier(supplier), this.executor);
+	}
+
+	public CompletableFuture<Void> runAsync(Runnable runnable) {
+		return CompletableFuture.runAsync(runnable(runnable), this.executor);
+	}
+
+	public <U> Supplier<U> supplier(Supplier<U> supplier) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return supplier;
+		}
+		return new SupplierStage<>(this.tracer, parent, supplier);
+	}
+
+	public Runnable runnable(Runnable runnable) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return runnable;
+		}
+		return new RunnableStage(this.tracer, parent, runnable);
+	}
+
+	/**
+	 * Wraps the function of a {@code thenApply} or a {@code thenCompose} stage
+	 */
+	public <T, U> Function<T, U> function(Function<T, U> function) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return function;
+		}
+		return new FunctionStage<>(this.tracer, parent, function);
+	}
+
+	/**
+	 * Wraps the function of a {@code thenCombine} or a {@code handle} stage
+	 */
+	public <T, U, R> BiFunction<T, U, R> biFunction(BiFunction<T, U, R> function) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return function;
+		}
+		return new BiFunctionStage<>(this.tracer, parent, function);
+	}
+
+	public <T> Consumer<T> consumer(Consumer<T> consumer) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return consumer;
+		}
+		return new ConsumerStage<>(this.tracer, parent, consumer);
+	}
+
+	/**
+	 * Wraps the action of a {@code thenAcceptBoth} or a {@code whenComplete} stage
+	 */
+	public <T, U> BiConsumer<T, U> biConsumer(BiConsumer<T, U> consumer) {
+		Span parent = this.tracer.getCurrentSpan();
+		if (parent == null) {
+			return consumer;
+		}
+		return new BiConsumerStage<>(this.tracer, parent, consumer);
+	}
+
+	private abstract static class TraceStage {
+		private final Tracer tracer;
+		private final Span parent;
+
+		TraceStage(Tracer tracer, Span parent) {
+			this.tracer = tracer;
+			this.parent = parent;
+		}
+
+		Span currentSpan() {
+			return this.tracer.getCurrentSpan();
+		}
+
+		/**
+		 * @return the continued span or {@code null} if the stage runs inline, in the
+		 * span it was created in
+		 */
+		Span continueSpan(Span previous) {
+			if (this.parent.equals(previous)) {
+				return null;
+			}
+			return this.tracer.continueSpan(this.parent);
+		}
+
+		/**
+		 * Detaches the continued span and puts back the span the stage ran in, if any
+		 */
+		void detach(Span span, Span previous) {
+			if (span == null) {
+				return;
+			}
+			this.tracer.detach(span);
+			if (previous != null) {
+				this.tracer.continueSpan(previous);
+			}
+		}
+	}
+
+	private static final class SupplierStage<U> extends TraceStage implements Supplier<U> {
+		private final Supplier<U> delegate;
+
+		SupplierStage(Tracer tracer, Span parent, Supplier<U> delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public U get() {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				return this.delegate.get();
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+
+	private static final class RunnableStage extends TraceStage implements Runnable {
+		private final Runnable delegate;
+
+		RunnableStage(Tracer tracer, Span parent, Runnable delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public void run() {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				this.delegate.run();
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+
+	private static final class FunctionStage<T, U> extends TraceStage implements Function<T, U> {
+		private final Function<T, U> delegate;
+
+		FunctionStage(Tracer tracer, Span parent, Function<T, U> delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public U apply(T t) {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				return this.delegate.apply(t);
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+
+	private static final class BiFunctionStage<T, U, R> extends TraceStage
+			implements BiFunction<T, U, R> {
+		private final BiFunction<T, U, R> delegate;
+
+		BiFunctionStage(Tracer tracer, Span parent, BiFunction<T, U, R> delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public R apply(T t, U u) {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				return this.delegate.apply(t, u);
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+
+	private static final class ConsumerStage<T> extends TraceStage implements Consumer<T> {
+		private final Consumer<T> delegate;
+
+		ConsumerStage(Tracer tracer, Span parent, Consumer<T> delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public void accept(T t) {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				this.delegate.accept(t);
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+
+	private static final class BiConsumerStage<T, U> extends TraceStage
+			implements BiConsumer<T, U> {
+		private final BiConsumer<T, U> delegate;
+
+		BiConsumerStage(Tracer tracer, Span parent, BiConsumer<T, U> delegate) {
+			super(tracer, parent);
+			this.delegate = delegate;
+		}
+
+		@Override public void accept(T t, U u) {
+			Span previous = currentSpan();
+			Span span = continueSpan(previous);
+			try {
+				this.delegate.accept(t, u);
+			}
+			finally {
+				detach(span, previous);
+			}
+		}
+	}
+}
@@ -29,6 +29,7 @@ import org.springframework.beans.factory.BeanFactory;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 
 /**
  * A decorator class for {@link ExecutorService} to support tracing in Executors
@@ -43,6 +44,9 @@ public class TraceableExecutorService implements ExecutorService {
 	TraceKeys traceKeys;
 	SpanNamer spanNamer;
 	BeanFactory beanFactory;
+	private final String executorName;
+	ExecutorMetrics executorMetrics;
+	private boolean executorMetricsResolved;
 
 	public TraceableExecutorService(final ExecutorService delegate, final Tracer tracer,
 			TraceKeys traceKeys, SpanNamer spanNamer) {
@@ -50,24 +54,49 @@ public class TraceableExecutorService implements ExecutorService {
 	}
 
 	public TraceableExecutorService(BeanFactory beanFactory, final ExecutorService delegate) {
+		this(beanFactory, delegate, null);
+	}
+
+	/**
+	 * @param executorName name the queue wait and run time of the tasks are recorded
+	 * under, when executor metrics are enabled. Without a name they aren't recorded.
+	 * @since 1.2.0
+	 */
+	public TraceableExecutorService(BeanFactory beanFactory, final ExecutorService delegate,
+			String executorName) {
 		this.delegate = delegate;
 		this.beanFactory = beanFactory;
 		this.spanName = null;
+		this.executorName = executorName;
 	}
 
 	public TraceableExecutorService(final ExecutorService delegate, final Tracer tracer,
 			TraceKeys traceKeys, SpanNamer spanNamer, String spanName) {
+		this(delegate, tracer, traceKeys, spanNamer, spanName, null);
+	}
+
+	/**
+	 * @param executorMetrics records the queue wait and run time of the tasks, may be
+	 * {@code null}
+	 * @since 1.2.0
+	 */
+	public TraceableExecutorService(final ExecutorService delegate, final Tracer tracer,
+			TraceKeys traceKeys, SpanNamer spanNamer, String spanName,
+			ExecutorMetrics executorMetrics) {
 		this.delegate = delegate;
 		this.tracer = tracer;
 		this.spanName = spanName;
 		this.traceKeys = traceKeys;
 		this.spanNamer = spanNamer;
+		this.executorName = null;
+		this.executorMetrics = executorMetrics;
+		this.executorMetricsResolved = true;
 	}
 
 	@Override
 	public void execute(Runnable command) {
 		final Runnable r = new LocalComponentTraceRunnable(tracer(), traceKeys(),
-				spanNamer(), command, this.spanName);
+				spanNamer(), command, this.spanName, executorMetrics());
 		this.delegate.execute(r);
 	}
 
@@ -99,21 +128,21 @@ public class TraceableExecutorService implements ExecutorService {
 	@Override
 	public <T> Future<T> submit(Callable<T> task) {
 		Callable<T> c = new SpanContinuingTraceCallable<>(tracer(), traceKeys(),
-				spanNamer(), this.spanName, task);
+				spanNamer(), this.spanName, task, executorMetrics(), 0);
 		return this.delegate.submit(c);
 	}
 
 	@Override
 	public <T> Future<T> submit(Runnable task, T result) {
 		Runnable r = new SpanContinuingTraceRunnable(tracer(), traceKeys(),
-				spanNamer(), task, this.spanName);
+				spanNamer(), task, this.spanName, executorMetrics(), 0, 0);
 		return this.delegate.submit(r, result);
 	}
 
 	@Override
 	public Future<?> submit(Runnable task) {
 		Runnable r = new LocalComponentTraceRunnable(tracer(), traceKeys(),
-				spanNamer(), task, this.spanName);
+				spanNamer(), task, this.spanName, executorMetrics());
 		return this.delegate.submit(r);
 	}
 
@@ -144,7 +173,7 @@ public class TraceableExecutorService implements ExecutorService {
 		for (Callable<T> task : tasks) {
 			if (!(task instanceof SpanContinuingTraceCallable)) {
 				ts.add(new SpanContinuingTraceCallable<>(tracer(), traceKeys(),
-						spanNamer(), this.spanName, task));
+						spanNamer(), this.spanName, task, executorMetrics(), 0));
 			}
 		}
 		return ts;
@@ -171,4 +200,13 @@ public class TraceableExecutorService implements ExecutorService {
 		return this.spanNamer;
 	}
 
+	ExecutorMetrics executorMetrics() {
+		if (!this.executorMetricsResolved && this.beanFactory != null) {
+			this.executorMetrics = TaskTiming.executorMetrics(this.beanFactory,
+					this.executorName);
+			this.executorMetricsResolved = true;
+		}
+		return this.executorMetrics;
+	}
+
 }
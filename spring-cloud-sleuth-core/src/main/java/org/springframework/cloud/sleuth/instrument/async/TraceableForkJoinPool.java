@@ -0,0 +1,105 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+/**
+ * {@link ForkJoinPool} that runs the submitted tasks in the span that was in scope when
+ * they got submitted. Subtasks get the span when they extend {@link TraceRecursiveTask}
+ * or {@link TraceRecursiveAction}.
+ *
+ * By default the submitted task continues the span of the submitter and so do its
+ * subtasks. With subtasks aggregation a single local component span is created for
+ * each submitted task instead, tagged with the number of subtasks that ran in it.
+ *
+ * @since 1.2.0
+ */
+public class TraceableForkJoinPool extends ForkJoinPool {
+
+	private final Tracer tracer;
+	private final TraceKeys traceKeys;
+	private final SpanNamer spanNamer;
+	private final boolean aggregateSubtasks;
+
+	public TraceableForkJoinPool(int parallelism, Tracer tracer, TraceKeys traceKeys,
+			SpanNamer spanNamer) {
+		this(parallelism, tracer, traceKeys, spanNamer, false);
+	}
+
+	/**
+	 * @param aggregateSubtasks whether to create one span per submitted task that all of
+	 * its subtasks run in
+	 */
+	public TraceableForkJoinPool(int parallelism, Tracer tracer, TraceKeys traceKeys,
+			SpanNamer spanNamer, boolean aggregateSubtasks) {
+		super(parallelism);
+		this.tracer = tracer;
+		this.traceKeys = traceKeys;
+		this.spanNamer = spanNamer;
+		this.aggregateSubtasks = aggregateSubtasks;
+	}
+
+	@Override
+	public <T> T invoke(ForkJoinTask<T> task) {
+		return super.invoke(trace(task));
+	}
+
+	@Override
+	public void execute(ForkJoinTask<?> task) {
+		super.execute(trace(task));
+	}
+
+	@Override
+	public void execute(Runnable task) {
+		super.execute(new SpanContinuingTraceRunnable(this.tracer, this.traceKeys,
+				this.spanNamer, task));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(ForkJoinTask<T> task) {
+		return super.submit(trace(task));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Callable<T> task) {
+		return super.submit(trace(ForkJoinTask.adapt(task)));
+	}
+
+	@Override
+	public <T> ForkJoinTask<T> submit(Runnable task, T result) {
+		return super.submit(trace(ForkJoinTask.adapt(task, result)));
+	}
+
+	@Override
+	public ForkJoinTask<?> submit(Runnable task) {
+		return super.submit(trace(ForkJoinTask.adapt(task)));
+	}
+
+	private <T> ForkJoinTask<T> trace(ForkJoinTask<T> task) {
+		if (task instanceof SpanContinuingForkJoinTask) {
+			return task;
+		}
+		return new SpanContinuingForkJoinTask<>(this.tracer, this.traceKeys, this.spanNamer,
+				task, this.aggregateSubtasks);
+	}
+}
@@ -24,6 +24,7 @@ import java.util.concurrent.TimeUnit;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.metric.ExecutorMetrics;
 
 /**
  * A decorator class for {@link ScheduledExecutorService} to support tracing in Executors
@@ -33,36 +34,67 @@ import org.springframework.cloud.sleuth.TraceKeys;
  */
 public class TraceableScheduledExecutorService extends TraceableExecutorService implements ScheduledExecutorService {
 
+	private volatile int periodicSampleEvery = 1;
+
 	public TraceableScheduledExecutorService(ScheduledExecutorService delegate,
 			Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer) {
 		super(delegate, tracer, traceKeys, spanNamer);
 	}
 
+	/**
+	 * @param executorMetrics records the queue wait and run time of the tasks, may be
+	 * {@code null}. The queue wait of a scheduled task starts once its delay is over.
+	 * @since 1.2.0
+	 */
+	public TraceableScheduledExecutorService(ScheduledExecutorService delegate,
+			Tracer tracer, TraceKeys traceKeys, SpanNamer spanNamer,
+			ExecutorMetrics executorMetrics) {
+		super(delegate, tracer, traceKeys, spanNamer, null, executorMetrics);
+	}
+
+	/**
+	 * Periodic tasks scheduled without a span in scope start a root span on each run.
+	 * A task that runs often produces lots of identical traces, so only one in the given
+	 * number of its runs can be sampled, the others aren't. Applies to the tasks
+	 * scheduled afterwards. Default: 1, every run is sampled by the default sampler
+	 *
+	 * @since 1.2.0
+	 */
+	public void setPeriodicSampleEvery(int periodicSampleEvery) {
+		this.periodicSampleEvery = periodicSampleEvery;
+	}
+
 	private ScheduledExecutorService getScheduledExecutorService() {
 		return (ScheduledExecutorService) this.delegate;
 	}
 
 	@Override
 	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer, command);
+		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,
+				command, null, this.executorMetrics, unit.toNanos(delay), 0);
 		return getScheduledExecutorService().schedule(r, delay, unit);
 	}
 
 	@Override
 	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
-		Callable<V> c = new SpanContinuingTraceCallable<>(this.tracer, this.traceKeys, this.spanNamer,  callable);
+		Callable<V> c = new SpanContinuingTraceCallable<>(this.tracer, this.traceKeys, this.spanNamer,
+				null, callable, this.executorMetrics, unit.toNanos(delay));
 		return getScheduledExecutorService().schedule(c, delay, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,  command);
+		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,
+				command, null, this.executorMetrics, unit.toNanos(initialDelay), unit.toNanos(period),
+				this.periodicSampleEvery);
 		return getScheduledExecutorService().scheduleAtFixedRate(r, initialDelay, period, unit);
 	}
 
 	@Override
 	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
-		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,  command);
+		Runnable r = new SpanContinuingTraceRunnable(this.tracer, this.traceKeys, this.spanNamer,
+				command, null, this.executorMetrics, unit.toNanos(initialDelay), -unit.toNanos(delay),
+				this.periodicSampleEvery);
 		return getScheduledExecutorService().scheduleWithFixedDelay(r, initialDelay, delay, unit);
 	}
 
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.instrument.hystrix;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixInvokableInfo;
+
+/**
+ * Tags of a Hystrix command. The tag names and values depend only on the command key,
+ * so they're built once per command key instead of on each execution.
+ *
+ * @since 1.2.0
+ */
+final class HystrixCommandTags {
+
+	private static final ConcurrentMap<HystrixCommandKey, HystrixCommandTags> CACHE =
+			new ConcurrentHashMap<>();
+
+	private final TraceKeys.Hystrix keys;
+	private final String commandKeyTag;
+	private final String commandKey;
+	private final String commandGroupTag;
+	private final String commandGroup;
+	private final String threadPoolKeyTag;
+	private final String threadPoolKey;
+	final String queueWaitTag;
+
+	private HystrixCommandTags(TraceKeys.Hystrix keys, HystrixInvokableInfo<?> command) {
+		this.keys = keys;
+		this.commandKeyTag = keys.getPrefix() + keys.getCommandKey();
+		this.commandKey = command.getCommandKey().name();
+		this.commandGroupTag = keys.getPrefix() + keys.getCommandGroup();
+		this.commandGroup = command.getCommandGroup().name();
+		this.threadPoolKeyTag = keys.getPrefix() + keys.getThreadPoolKey();
+		this.threadPoolKey = command.getThreadPoolKey().name();
+		this.queueWaitTag = keys.getPrefix() + keys.getQueueWaitKey();
+	}
+
+	static HystrixCommandTags of(TraceKeys traceKeys, HystrixInvokableInfo<?> command) {
+		HystrixCommandTags tags = CACHE.get(command.getCommandKey());
+		// rebuilt if the tags were computed for different trace keys
+		if (tags == null || tags.keys != traceKeys.getHystrix()) {
+			tags = new HystrixCommandTags(traceKeys.getHystrix(), command);
+			CACHE.put(command.getCommandKey(), tags);
+		}
+		return tags;
+	}
+
+	void tag(Tracer tracer) {
+		tracer.addTag(this.commandKeyTag, this.commandKey);
+		tracer.addTag(this.commandGroupTag, this.commandGroup);
+		tracer.addTag(this.threadPoolKeyTag, this.threadPoolKey);
+	}
+
+	void tagQueueWait(Span span, long queueWaitNanos) {
+		span.tag(this.queueWaitTag, String.valueOf(queueWaitNanos / 1000));
+	}
+}
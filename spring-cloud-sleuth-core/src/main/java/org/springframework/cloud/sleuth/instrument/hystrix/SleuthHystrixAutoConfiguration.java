@@ -1,5 +1,6 @@
 package org.springframework.cloud.sleuth.instrument.hystrix;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
@@ -29,8 +30,9 @@ import com.netflix.hystrix.HystrixCommand;
 public class SleuthHystrixAutoConfiguration {
 
 	@Bean
-	SleuthHystrixConcurrencyStrategy sleuthHystrixConcurrencyStrategy(Tracer tracer, TraceKeys traceKeys) {
-		return new SleuthHystrixConcurrencyStrategy(tracer, traceKeys);
+	SleuthHystrixConcurrencyStrategy sleuthHystrixConcurrencyStrategy(Tracer tracer, TraceKeys traceKeys,
+			@Value("${spring.sleuth.hystrix.events.enabled:true}") boolean executionEvents) {
+		return new SleuthHystrixConcurrencyStrategy(tracer, traceKeys, executionEvents);
 	}
 
 }
@@ -0,0 +1,239 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.instrument.hystrix;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+import com.netflix.hystrix.HystrixInvokable;
+import com.netflix.hystrix.HystrixInvokableInfo;
+import com.netflix.hystrix.exception.HystrixRuntimeException;
+import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
+
+/**
+ * {@link HystrixCommandExecutionHook} that logs the stages of a command execution as
+ * events of the span the command runs in. For thread isolated commands the start of the
+ * thread is logged too, and the time they waited for a thread of the pool is added as
+ * a tag.
+ *
+ * Every callback is passed on to the hook that was registered before.
+ *
+ * The state of an execution is removed when the command completes. Commands are
+ * weakly referenced, so the state of an execution that never completes, e.g. because
+ * nobody subscribed to its result, goes away with the command.
+ *
+ * @since 1.2.0
+ */
+class SleuthHystrixCommandExecutionHook extends HystrixCommandExecutionHook {
+
+	static final String THREAD_START = "hystrix.thread.start";
+	static final String RUN_START = "hystrix.run.start";
+	static final String RUN_END = "hystrix.run.end";
+	static final String FALLBACK_START = "hystrix.fallback.start";
+	static final String FALLBACK_END = "hystrix.fallback.end";
+	static final String SHORT_CIRCUITED = "hystrix.short-circuited";
+	static final String REJECTED = "hystrix.rejected";
+	static final String TIMEOUT = "hystrix.timeout";
+
+	private final Tracer tracer;
+	private final TraceKeys traceKeys;
+	private final HystrixCommandExecutionHook delegate;
+	private final WeakConcurrentMap<HystrixInvokable<?>, Execution> executions =
+			new WeakConcurrentMap<>();
+
+	SleuthHystrixCommandExecutionHook(Tracer tracer, TraceKeys traceKeys,
+			HystrixCommandExecutionHook delegate) {
+		this.tracer = tracer;
+		this.traceKeys = traceKeys;
+		this.delegate = delegate;
+	}
+
+	@Override
+	public <T> void onStart(HystrixInvokable<T> commandInstance) {
+		this.executions.put(commandInstance, new Execution(this.tracer.getCurrentSpan()));
+		this.delegate.onStart(commandInstance);
+	}
+
+	@Override
+	public <T> T onEmit(HystrixInvokable<T> commandInstance, T value) {
+		return this.delegate.onEmit(commandInstance, value);
+	}
+
+	@Override
+	public <T> Exception onError(HystrixInvokable<T> commandInstance,
+			HystrixRuntimeException.FailureType failureType, Exception e) {
+		Execution execution = this.executions.remove(commandInstance);
+		if (execution != null && execution.span != null && !execution.failureLogged) {
+			String event = failureEvent(failureType);
+			if (event != null) {
+				execution.span.logEvent(event);
+			}
+		}
+		return this.delegate.onError(commandInstance, failureType, e);
+	}
+
+	@Override
+	public <T> void onSuccess(HystrixInvokable<T> commandInstance) {
+		this.executions.remove(commandInstance);
+		this.delegate.onSuccess(commandInstance);
+	}
+
+	@Override
+	public <T> void onThreadStart(HystrixInvokable<T> commandInstance) {
+		Execution execution = this.executions.get(commandInstance);
+		Span current = this.tracer.getCurrentSpan();
+		if (execution != null && current != null
+				&& commandInstance instanceof HystrixInvokableInfo) {
+			// the span the command runs in, whether continued or created for it
+			HystrixCommandTags.of(this.traceKeys, (HystrixInvokableInfo<?>) commandInstance)
+					.tagQueueWait(current, System.nanoTime() - execution.startNanos);
+			current.logEvent(THREAD_START);
+		}
+		this.delegate.onThreadStart(commandInstance);
+	}
+
+	@Override
+	public <T> void onThreadComplete(HystrixInvokable<T> commandInstance) {
+		this.delegate.onThreadComplete(commandInstance);
+	}
+
+	@Override
+	public <T> void onExecutionStart(HystrixInvokable<T> commandInstance) {
+		Execution execution = this.executions.get(commandInstance);
+		if (execution != null) {
+			if (execution.span == null) {
+				execution.span = this.tracer.getCurrentSpan();
+			}
+			logEvent(execution, RUN_START);
+		}
+		this.delegate.onExecutionStart(commandInstance);
+	}
+
+	@Override
+	public <T> T onExecutionEmit(HystrixInvokable<T> commandInstance, T value) {
+		return this.delegate.onExecutionEmit(commandInstance, value);
+	}
+
+	@Override
+	public <T> Exception onExecutionError(HystrixInvokable<T> commandInstance,
+			Exception e) {
+		logEvent(this.executions.get(commandInstance), RUN_END);
+		return this.delegate.onExecutionError(commandInstance, e);
+	}
+
+	@Override
+	public <T> void onExecutionSuccess(HystrixInvokable<T> commandInstance) {
+		logEvent(this.executions.get(commandInstance), RUN_END);
+		this.delegate.onExecutionSuccess(commandInstance);
+	}
+
+	@Override
+	public <T> void onFallbackStart(HystrixInvokable<T> commandInstance) {
+		Execution execution = this.executions.get(commandInstance);
+		if (execution != null && execution.span != null) {
+			String event = failureEvent(commandInstance);
+			if (event != null) {
+				execution.span.logEvent(event);
+				execution.failureLogged = true;
+			}
+			execution.span.logEvent(FALLBACK_START);
+		}
+		this.delegate.onFallbackStart(commandInstance);
+	}
+
+	@Override
+	public <T> T onFallbackEmit(HystrixInvokable<T> commandInstance, T value) {
+		return this.delegate.onFallbackEmit(commandInstance, value);
+	}
+
+	@Override
+	public <T> Exception onFallbackError(HystrixInvokable<T> commandInstance,
+			Exception e) {
+		logEvent(this.executions.get(commandInstance), FALLBACK_END);
+		return this.delegate.onFallbackError(commandInstance, e);
+	}
+
+	@Override
+	public <T> void onFallbackSuccess(HystrixInvokable<T> commandInstance) {
+		logEvent(this.executions.get(commandInstance), FALLBACK_END);
+		this.delegate.onFallbackSuccess(commandInstance);
+	}
+
+	@Override
+	public <T> void onCacheHit(HystrixInvokable<T> commandInstance) {
+		this.delegate.onCacheHit(commandInstance);
+	}
+
+	@Override
+	public <T> void onUnsubscribe(HystrixInvokable<T> commandInstance) {
+		this.executions.remove(commandInstance);
+		this.delegate.onUnsubscribe(commandInstance);
+	}
+
+	private void logEvent(Execution execution, String event) {
+		if (execution != null && execution.span != null) {
+			execution.span.logEvent(event);
+		}
+	}
+
+	private String failureEvent(HystrixInvokable<?> commandInstance) {
+		if (!(commandInstance instanceof HystrixInvokableInfo)) {
+			return null;
+		}
+		HystrixInvokableInfo<?> info = (HystrixInvokableInfo<?>) commandInstance;
+		if (info.isResponseShortCircuited()) {
+			return SHORT_CIRCUITED;
+		}
+		if (info.isResponseRejected()) {
+			return REJECTED;
+		}
+		if (info.isResponseTimedOut()) {
+			return TIMEOUT;
+		}
+		return null;
+	}
+
+	private String failureEvent(HystrixRuntimeException.FailureType failureType) {
+		switch (failureType) {
+		case SHORTCIRCUIT:
+			return SHORT_CIRCUITED;
+		case REJECTED_THREAD_EXECUTION:
+		case REJECTED_SEMAPHORE_EXECUTION:
+			return REJECTED;
+		case TIMEOUT:
+			return TIMEOUT;
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * State of a single execution of a command. The span is the one the command runs
+	 * in, it's known at the start of the execution only if the caller had a span.
+	 */
+	private static final class Execution {
+		final long startNanos = System.nanoTime();
+		volatile Span span;
+		volatile boolean failureLogged;
+
+		Execution(Span span) {
+			this.span = span;
+		}
+	}
+}
@@ -35,7 +35,9 @@ import org.springframework.cloud.sleuth.Tracer;
 /**
  * A {@link HystrixConcurrencyStrategy} that wraps a {@link Callable} in a
  * {@link Callable} that either starts a new span or continues one if the tracing was
- * already running before the command was executed.
+ * already running before the command was executed. Optionally registers a
+ * {@link SleuthHystrixCommandExecutionHook} that logs the stages of command executions
+ * as span events.
  *
  * @author Marcin Grzejszczak
  * @since 1.0.0
@@ -51,6 +53,16 @@ public class SleuthHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy
 	private HystrixConcurrencyStrategy delegate;
 
 	public SleuthHystrixConcurrencyStrategy(Tracer tracer, TraceKeys traceKeys) {
+		this(tracer, traceKeys, true);
+	}
+
+	/**
+	 * @param executionEvents whether the stages of command executions should be logged
+	 * as span events
+	 * @since 1.2.0
+	 */
+	public SleuthHystrixConcurrencyStrategy(Tracer tracer, TraceKeys traceKeys,
+			boolean executionEvents) {
 		this.tracer = tracer;
 		this.traceKeys = traceKeys;
 		try {
@@ -72,7 +84,10 @@ public class SleuthHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy
 			HystrixPlugins.reset();
 			HystrixPlugins.getInstance().registerConcurrencyStrategy(this);
 			HystrixPlugins.getInstance()
-					.registerCommandExecutionHook(commandExecutionHook);
+					.registerCommandExecutionHook(executionEvents
+							? new SleuthHystrixCommandExecutionHook(tracer, traceKeys,
+									commandExecutionHook)
+							: commandExecutionHook);
 			HystrixPlugins.getInstance().registerEventNotifier(eventNotifier);
 			HystrixPlugins.getInstance().registerMetricsPublisher(metricsPublisher);
 			HystrixPlugins.getInstance().registerPropertiesStrategy(propertiesStrategy);
@@ -53,12 +53,7 @@ public abstract class TraceCommand<R> extends HystrixCommand<R> {
 		String commandKeyName = getCommandKey().name();
 		Span span = startSpan(commandKeyName);
 		this.tracer.addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, HYSTRIX_COMPONENT);
-		this.tracer.addTag(this.traceKeys.getHystrix().getPrefix() +
-				this.traceKeys.getHystrix().getCommandKey(), commandKeyName);
-		this.tracer.addTag(this.traceKeys.getHystrix().getPrefix() +
-				this.traceKeys.getHystrix().getCommandGroup(), getCommandGroup().name());
-		this.tracer.addTag(this.traceKeys.getHystrix().getPrefix() +
-				this.traceKeys.getHystrix().getThreadPoolKey(), getThreadPoolKey().name());
+		HystrixCommandTags.of(this.traceKeys, this).tag(this.tracer);
 		try {
 			return doRun();
 		}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.hystrix;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Concurrent map that compares its keys by identity and references them weakly, so
+ * that an entry goes away with its key. The entries of collected keys are removed on
+ * the next put. Unlike a synchronized {@link java.util.WeakHashMap} it doesn't take a
+ * global lock on every access.
+ *
+ * @since 1.2.0
+ */
+final class WeakConcurrentMap<K, V> {
+
+	private final ConcurrentMap<Object, V> map = new ConcurrentHashMap<>();
+	private final ReferenceQueue<K> collected = new ReferenceQueue<>();
+
+	V get(K key) {
+		return this.map.get(new LookupKey<>(key));
+	}
+
+	void put(K key, V value) {
+		removeCollected();
+		this.map.put(new WeakKey<>(key, this.collected), value);
+	}
+
+	V remove(K key) {
+		return this.map.remove(new LookupKey<>(key));
+	}
+
+	int size() {
+		removeCollected();
+		return this.map.size();
+	}
+
+	private void removeCollected() {
+		Reference<? extends K> reference;
+		while ((reference = this.collected.poll()) != null) {
+			this.map.remove(reference);
+		}
+	}
+
+	/**
+	 * Key of an entry. Equal only to itself once its referent got collected, so that
+	 * the entry can still be removed.
+	 */
+	private static final class WeakKey<K> extends WeakReference<K> {
+		private final int hashCode;
+
+		WeakKey(K key, ReferenceQueue<K> queue) {
+			super(key, queue);
+			this.hashCode = System.identityHashCode(key);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			Object key = get();
+			return key != null && o instanceof WeakKey && ((WeakKey<?>) o).get() == key;
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hashCode;
+		}
+	}
+
+	/**
+	 * Looks up an entry without registering a reference
+	 */
+	private static final class LookupKey<K> {
+		private final K key;
+
+		LookupKey(K key) {
+			this.key = key;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof WeakKey && ((WeakKey<?>) o).get() == this.key;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(this.key);
+		}
+	}
+}
@@ -1,6 +1,8 @@
 package org.springframework.cloud.sleuth.instrument.rxjava;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Pattern;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -28,14 +30,14 @@ class SleuthRxJavaSchedulersHook extends RxJavaSchedulersHook {
 	private static final String RXJAVA_COMPONENT = "rxjava";
 	private final Tracer tracer;
 	private final TraceKeys traceKeys;
-	private final List<String> threadsToSample;
+	private final ThreadsToIgnore threadsToIgnore;
 	private RxJavaSchedulersHook delegate;
 
 	SleuthRxJavaSchedulersHook(Tracer tracer, TraceKeys traceKeys,
 			List<String> threadsToSample) {
 		this.tracer = tracer;
 		this.traceKeys = traceKeys;
-		this.threadsToSample = threadsToSample;
+		this.threadsToIgnore = new ThreadsToIgnore(threadsToSample);
 		try {
 			this.delegate = RxJavaPlugins.getInstance().getSchedulersHook();
 			if (this.delegate instanceof SleuthRxJavaSchedulersHook) {
@@ -77,7 +79,7 @@ class SleuthRxJavaSchedulersHook extends RxJavaSchedulersHook {
 			return action;
 		}
 		return super.onSchedule(new TraceAction(this.tracer, this.traceKeys, wrappedAction,
-				this.threadsToSample));
+				this.threadsToIgnore));
 	}
 
 	static class TraceAction implements Action0 {
@@ -86,10 +88,10 @@ class SleuthRxJavaSchedulersHook extends RxJavaSchedulersHook {
 		private Tracer tracer;
 		private TraceKeys traceKeys;
 		private Span parent;
-		private final List<String> threadsToIgnore;
+		private final ThreadsToIgnore threadsToIgnore;
 
 		public TraceAction(Tracer tracer, TraceKeys traceKeys, Action0 actual,
-				List<String> threadsToIgnore) {
+				ThreadsToIgnore threadsToIgnore) {
 			this.tracer = tracer;
 			this.traceKeys = traceKeys;
 			this.threadsToIgnore = threadsToIgnore;
@@ -101,17 +103,9 @@ class SleuthRxJavaSchedulersHook extends RxJavaSchedulersHook {
 		@Override
 		public void call() {
 			// don't create a span if the thread name is on a list of threads to ignore
-			for (String threadToIgnore : this.threadsToIgnore) {
-				String threadName = Thread.currentThread().getName();
-				if (threadName.matches(threadToIgnore)) {
-					if (log.isTraceEnabled()) {
-						log.trace(String.format(
-								"Thread with name [%s] matches the regex [%s]. A span will not be created for this Thread.",
-								threadName, threadToIgnore));
-					}
-					this.actual.call();
-					return;
-				}
+			if (this.threadsToIgnore.isCurrentThreadIgnored()) {
+				this.actual.call();
+				return;
 			}
 			Span span = this.parent;
 			boolean created = false;
@@ -135,4 +129,47 @@ class SleuthRxJavaSchedulersHook extends RxJavaSchedulersHook {
 			}
 		}
 	}
+
+	/**
+	 * Regular expressions of names of threads for which no span gets created. They are
+	 * compiled once and each thread is matched only the first time it executes an
+	 * action, so renaming a thread afterwards doesn't change the decision.
+	 */
+	static class ThreadsToIgnore {
+
+		private final List<Pattern> patterns = new ArrayList<>();
+		private final ThreadLocal<Boolean> currentThreadIgnored = new ThreadLocal<>();
+
+		ThreadsToIgnore(List<String> threadsToIgnore) {
+			for (String threadToIgnore : threadsToIgnore) {
+				this.patterns.add(Pattern.compile(threadToIgnore));
+			}
+		}
+
+		boolean isCurrentThreadIgnored() {
+			if (this.patterns.isEmpty()) {
+				return false;
+			}
+			Boolean ignored = this.currentThreadIgnored.get();
+			if (ignored == null) {
+				ignored = matches(Thread.currentThread().getName());
+				this.currentThreadIgnored.set(ignored);
+			}
+			return ignored;
+		}
+
+		private boolean matches(String threadName) {
+			for (Pattern pattern : this.patterns) {
+				if (pattern.matcher(threadName).matches()) {
+					if (log.isTraceEnabled()) {
+						log.trace(String.format(
+								"Thread with name [%s] matches the regex [%s]. A span will not be created for this Thread.",
+								threadName, pattern));
+					}
+					return true;
+				}
+			}
+			return false;
+		}
+	}
 }
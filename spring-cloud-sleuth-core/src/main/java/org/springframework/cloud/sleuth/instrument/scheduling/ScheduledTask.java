@@ -0,0 +1,188 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.scheduling;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.sampler.NeverSampler;
+
+/**
+ * Traces the runs of a single scheduled method according to its
+ * {@link SleuthSchedulingProperties.Policy policy}. Everything that doesn't change
+ * between runs, like the span name and the tags, is resolved once.
+ *
+ * The policy applies only to runs that start a new trace, a run within a span is traced
+ * as part of it.
+ *
+ * @since 1.2.0
+ */
+final class ScheduledTask {
+
+	static final String RUNS_TAG = "scheduled.runs";
+	static final String ERRORS_TAG = "scheduled.errors";
+	static final String AVERAGE_DURATION_TAG = "scheduled.duration.avg";
+	static final String MAX_DURATION_TAG = "scheduled.duration.max";
+
+	private static final Sampler ALWAYS_SAMPLER = new AlwaysSampler();
+
+	final String spanName;
+	private final Map<String, String> tags;
+	private final SleuthSchedulingProperties.Mode mode;
+	private final int sampleEvery;
+	private final long slowerThanMicros;
+	private final long aggregationInterval;
+	private final AtomicLong runs = new AtomicLong();
+
+	// current aggregation window, guarded by this
+	private long windowBegin;
+	private long windowRuns;
+	private long windowErrors;
+	private long windowMicros;
+	private long windowMaxMicros;
+	private Span windowLastRun;
+
+	/**
+	 * @param tags tags of every run
+	 */
+	ScheduledTask(String spanName, Map<String, String> tags,
+			SleuthSchedulingProperties.Policy policy) {
+		this.spanName = spanName;
+		this.tags = tags;
+		this.mode = policy.getMode();
+		this.sampleEvery = Math.max(policy.getSampleEvery(), 1);
+		this.slowerThanMicros = policy.getSlowerThan() * 1000;
+		this.aggregationInterval = policy.getAggregationInterval();
+	}
+
+	/**
+	 * @return sampler of the next run, {@code null} for the default one
+	 */
+	Sampler sampler() {
+		switch (this.mode) {
+		case ALL:
+			return null;
+		case SAMPLE:
+			return this.runs.getAndIncrement() % this.sampleEvery == 0 ?
+					ALWAYS_SAMPLER : NeverSampler.INSTANCE;
+		default:
+			return NeverSampler.INSTANCE;
+		}
+	}
+
+	void tag(Tracer tracer) {
+		for (Map.Entry<String, String> tag : this.tags.entrySet()) {
+			tracer.addTag(tag.getKey(), tag.getValue());
+		}
+	}
+
+	/**
+	 * @param span closed span of the run
+	 * @param error whether the run threw an exception
+	 * @return span to report on behalf of the run or {@code null} if there's none
+	 */
+	Span finished(Span span, boolean error) {
+		if (!span.getParents().isEmpty()) {
+			return null;
+		}
+		switch (this.mode) {
+		case SLOW:
+			return span.getAccumulatedMicros() >= this.slowerThanMicros ?
+					exportable(span) : null;
+		case AGGREGATE:
+			return aggregate(span, error);
+		default:
+			return null;
+		}
+	}
+
+	private Span exportable(Span span) {
+		return Span.builder()
+				.begin(span.getBegin())
+				.end(span.getEnd())
+				.name(span.getName())
+				.traceIdHigh(span.getTraceIdHigh())
+				.traceId(span.getTraceId())
+				.spanId(span.getSpanId())
+				.tags(span.tags())
+				.logs(span.logs())
+				.processId(span.getProcessId())
+				.exportable(true)
+				.build();
+	}
+
+	/**
+	 * The summary span of a window gets the ids of its last run, which wasn't reported
+	 */
+	private synchronized Span aggregate(Span span, boolean error) {
+		if (this.windowRuns == 0) {
+			this.windowBegin = span.getBegin();
+		}
+		long micros = span.getAccumulatedMicros();
+		this.windowRuns++;
+		if (error) {
+			this.windowErrors++;
+		}
+		this.windowMicros += micros;
+		this.windowMaxMicros = Math.max(this.windowMaxMicros, micros);
+		this.windowLastRun = span;
+		if (span.getEnd() - this.windowBegin < this.aggregationInterval) {
+			return null;
+		}
+		return summary();
+	}
+
+	/**
+	 * @return summary span of the runs of the current window, whose interval may not be
+	 * over yet, or {@code null} if there were none
+	 */
+	synchronized Span flush() {
+		if (this.windowRuns == 0) {
+			return null;
+		}
+		return summary();
+	}
+
+	private Span summary() {
+		Span last = this.windowLastRun;
+		Span summary = Span.builder()
+				.begin(this.windowBegin)
+				.end(last.getEnd())
+				.name(this.spanName)
+				.traceIdHigh(last.getTraceIdHigh())
+				.traceId(last.getTraceId())
+				.spanId(last.getSpanId())
+				.tags(this.tags)
+				.tag(RUNS_TAG, String.valueOf(this.windowRuns))
+				.tag(ERRORS_TAG, String.valueOf(this.windowErrors))
+				.tag(AVERAGE_DURATION_TAG, String.valueOf(this.windowMicros / this.windowRuns))
+				.tag(MAX_DURATION_TAG, String.valueOf(this.windowMaxMicros))
+				.processId(last.getProcessId())
+				.exportable(true)
+				.build();
+		this.windowRuns = 0;
+		this.windowErrors = 0;
+		this.windowMicros = 0;
+		this.windowMaxMicros = 0;
+		this.windowLastRun = null;
+		return summary;
+	}
+}
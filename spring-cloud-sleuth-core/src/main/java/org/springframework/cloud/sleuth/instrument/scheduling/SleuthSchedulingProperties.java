@@ -0,0 +1,161 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.scheduling;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the {@link org.springframework.scheduling.annotation.Scheduled @Scheduled}
+ * methods instrumentation
+ *
+ * @since 1.2.0
+ */
+@ConfigurationProperties("spring.sleuth.scheduled")
+public class SleuthSchedulingProperties {
+
+	/**
+	 * How the runs of a scheduled method are traced
+	 */
+	public enum Mode {
+		/** Every run gets a span, sampled by the default sampler */
+		ALL,
+		/** One in sample-every runs is sampled, the others aren't */
+		SAMPLE,
+		/** Runs aren't sampled, only the span of a run slower than slower-than is reported */
+		SLOW,
+		/**
+		 * Runs aren't sampled, a summary span of the runs is reported once per
+		 * aggregation interval
+		 */
+		AGGREGATE
+	}
+
+	/**
+	 * Enable tracing of scheduled methods.
+	 */
+	private boolean enabled = true;
+
+	/**
+	 * Pattern for the fully qualified name of a class that should be skipped.
+	 */
+	private String skipPattern = "";
+
+	/**
+	 * Policy of the scheduled methods without a policy of their own.
+	 */
+	private Policy policy = new Policy();
+
+	/**
+	 * Policies by span name of the scheduled method, i.e. its lower hyphen name.
+	 */
+	private Map<String, Policy> tasks = new HashMap<>();
+
+	public boolean isEnabled() {
+		return this.enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public String getSkipPattern() {
+		return this.skipPattern;
+	}
+
+	public void setSkipPattern(String skipPattern) {
+		this.skipPattern = skipPattern;
+	}
+
+	public Policy getPolicy() {
+		return this.policy;
+	}
+
+	public void setPolicy(Policy policy) {
+		this.policy = policy;
+	}
+
+	public Map<String, Policy> getTasks() {
+		return this.tasks;
+	}
+
+	public void setTasks(Map<String, Policy> tasks) {
+		this.tasks = tasks;
+	}
+
+	/**
+	 * @return policy of the scheduled method with the given span name
+	 */
+	public Policy policy(String spanName) {
+		Policy policy = this.tasks.get(spanName);
+		return policy != null ? policy : this.policy;
+	}
+
+	public static class Policy {
+
+		private Mode mode = Mode.ALL;
+
+		/**
+		 * In sample mode, one in this many runs is sampled. Default: 100
+		 */
+		private int sampleEvery = 100;
+
+		/**
+		 * In slow mode, minimal duration (ms) of a reported run. Default: 1000
+		 */
+		private long slowerThan = 1000L;
+
+		/**
+		 * In aggregate mode, time (ms) that a summary span covers. Default: 60000
+		 */
+		private long aggregationInterval = 60_000L;
+
+		public Mode getMode() {
+			return this.mode;
+		}
+
+		public void setMode(Mode mode) {
+			this.mode = mode;
+		}
+
+		public int getSampleEvery() {
+			return this.sampleEvery;
+		}
+
+		public void setSampleEvery(int sampleEvery) {
+			this.sampleEvery = sampleEvery;
+		}
+
+		public long getSlowerThan() {
+			return this.slowerThan;
+		}
+
+		public void setSlowerThan(long slowerThan) {
+			this.slowerThan = slowerThan;
+		}
+
+		public long getAggregationInterval() {
+			return this.aggregationInterval;
+		}
+
+		public void setAggregationInterval(long aggregationInterval) {
+			this.aggregationInterval = aggregationInterval;
+		}
+	}
+}
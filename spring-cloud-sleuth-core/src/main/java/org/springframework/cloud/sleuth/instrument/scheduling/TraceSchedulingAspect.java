@@ -16,12 +16,21 @@
 
 package org.springframework.cloud.sleuth.instrument.scheduling;
 
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.regex.Pattern;
 
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
 import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.util.SpanNameUtil;
@@ -33,6 +42,11 @@ import org.springframework.cloud.sleuth.util.SpanNameUtil;
  * span will be the simple name of the class annotated with
  * {@link org.springframework.scheduling.annotation.Scheduled}
  *
+ * How the runs of a method are sampled and reported depends on its
+ * {@link SleuthSchedulingProperties.Policy policy}. Whether a class is skipped, the
+ * span name and the tags of a method are resolved on its first run only. The summaries
+ * of the aggregated runs whose interval isn't over yet are reported on {@link #destroy()}.
+ *
  * @author Tomasz Nurkewicz, 4financeIT
  * @author Michal Chmielarz, 4financeIT
  * @author Marcin Grzejszczak
@@ -42,38 +56,119 @@ import org.springframework.cloud.sleuth.util.SpanNameUtil;
  * @see Tracer
  */
 @Aspect
-public class TraceSchedulingAspect {
+public class TraceSchedulingAspect implements DisposableBean {
 
 	private static final String SCHEDULED_COMPONENT = "scheduled";
 
+	/**
+	 * Tasks of a class that is skipped
+	 */
+	private static final ConcurrentMap<Method, ScheduledTask> SKIPPED = new ConcurrentHashMap<>(0);
+
 	private final Tracer tracer;
 	private final TraceKeys traceKeys;
 	private final Pattern skipPattern;
+	private final SpanReporter spanReporter;
+	private final SleuthSchedulingProperties properties;
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Method, ScheduledTask>> tasks =
+			new ConcurrentHashMap<>();
 
 	public TraceSchedulingAspect(Tracer tracer, TraceKeys traceKeys, Pattern skipPattern) {
+		this(tracer, traceKeys, skipPattern, new NoOpSpanReporter(),
+				new SleuthSchedulingProperties());
+	}
+
+	/**
+	 * @param spanReporter reports the spans of the runs that aren't sampled but are
+	 * reported anyway, like slow runs or the summaries of aggregated ones
+	 * @since 1.2.0
+	 */
+	public TraceSchedulingAspect(Tracer tracer, TraceKeys traceKeys, Pattern skipPattern,
+			SpanReporter spanReporter, SleuthSchedulingProperties properties) {
 		this.tracer = tracer;
 		this.traceKeys = traceKeys;
 		this.skipPattern = skipPattern;
+		this.spanReporter = spanReporter;
+		this.properties = properties;
 	}
 
 	@Around("execution (@org.springframework.scheduling.annotation.Scheduled  * *.*(..))")
 	public Object traceBackgroundThread(final ProceedingJoinPoint pjp) throws Throwable {
-		if (this.skipPattern.matcher(pjp.getTarget().getClass().getName()).matches()) {
+		ScheduledTask task = task(pjp);
+		if (task == null) {
 			return pjp.proceed();
 		}
-		String spanName = SpanNameUtil.toLowerHyphen(pjp.getSignature().getName());
-		Span span = this.tracer.createSpan(spanName);
-		this.tracer.addTag(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, SCHEDULED_COMPONENT);
-		this.tracer.addTag(this.traceKeys.getAsync().getPrefix() +
-				this.traceKeys.getAsync().getClassNameKey(), pjp.getTarget().getClass().getSimpleName());
-		this.tracer.addTag(this.traceKeys.getAsync().getPrefix() +
-				this.traceKeys.getAsync().getMethodNameKey(), pjp.getSignature().getName());
+		Span span = this.tracer.createSpan(task.spanName, task.sampler());
+		task.tag(this.tracer);
+		boolean error = false;
 		try {
 			return pjp.proceed();
 		}
+		catch (Throwable e) {
+			error = true;
+			throw e;
+		}
 		finally {
 			this.tracer.close(span);
+			Span report = task.finished(span, error);
+			if (report != null) {
+				this.spanReporter.report(report);
+			}
+		}
+	}
+
+	/**
+	 * Reports the summaries of the runs that weren't reported yet, e.g. because their
+	 * method doesn't run any more
+	 */
+	@Override
+	public void destroy() {
+		for (ConcurrentMap<Method, ScheduledTask> classTasks : this.tasks.values()) {
+			for (ScheduledTask task : classTasks.values()) {
+				Span summary = task.flush();
+				if (summary != null) {
+					this.spanReporter.report(summary);
+				}
+			}
 		}
 	}
 
+	private ScheduledTask task(ProceedingJoinPoint pjp) {
+		Class<?> targetClass = pjp.getTarget().getClass();
+		ConcurrentMap<Method, ScheduledTask> classTasks = this.tasks.get(targetClass);
+		if (classTasks == null) {
+			classTasks = this.skipPattern.matcher(targetClass.getName()).matches() ?
+					SKIPPED : new ConcurrentHashMap<Method, ScheduledTask>();
+			ConcurrentMap<Method, ScheduledTask> existing = this.tasks.putIfAbsent(targetClass,
+					classTasks);
+			if (existing != null) {
+				classTasks = existing;
+			}
+		}
+		if (classTasks == SKIPPED) {
+			return null;
+		}
+		Method method = ((MethodSignature) pjp.getSignature()).getMethod();
+		ScheduledTask task = classTasks.get(method);
+		if (task == null) {
+			task = newTask(targetClass, method);
+			ScheduledTask existing = classTasks.putIfAbsent(method, task);
+			if (existing != null) {
+				task = existing;
+			}
+		}
+		return task;
+	}
+
+	private ScheduledTask newTask(Class<?> targetClass, Method method) {
+		String spanName = SpanNameUtil.toLowerHyphen(method.getName());
+		Map<String, String> tags = new LinkedHashMap<>();
+		tags.put(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, SCHEDULED_COMPONENT);
+		tags.put(this.traceKeys.getAsync().getPrefix() +
+				this.traceKeys.getAsync().getClassNameKey(), targetClass.getSimpleName());
+		tags.put(this.traceKeys.getAsync().getPrefix() +
+				this.traceKeys.getAsync().getMethodNameKey(), method.getName());
+		return new ScheduledTask(spanName, tags, this.properties.policy(spanName));
+	}
+
 }
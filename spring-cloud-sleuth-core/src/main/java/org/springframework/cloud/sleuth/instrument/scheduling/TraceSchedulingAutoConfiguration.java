@@ -18,11 +18,12 @@ package org.springframework.cloud.sleuth.instrument.scheduling;
 
 import java.util.regex.Pattern;
 
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.sleuth.SpanReporter;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
 import org.springframework.cloud.sleuth.autoconfig.TraceAutoConfiguration;
@@ -44,17 +45,15 @@ import org.springframework.context.annotation.EnableAspectJAutoProxy;
 @ConditionalOnProperty(value = "spring.sleuth.scheduled.enabled", matchIfMissing = true)
 @ConditionalOnBean(Tracer.class)
 @AutoConfigureAfter(TraceAutoConfiguration.class)
+@EnableConfigurationProperties(SleuthSchedulingProperties.class)
 public class TraceSchedulingAutoConfiguration {
 
-	/**
-	 * Pattern for the fully qualified name of a class that should be skipped
-	 */
-	private @Value("${spring.sleuth.scheduled.skipPattern:}") String skipPattern;
-
 	@ConditionalOnClass(name = "org.aspectj.lang.ProceedingJoinPoint")
 	@Bean
-	public TraceSchedulingAspect traceSchedulingAspect(Tracer tracer, TraceKeys traceKeys) {
-		return new TraceSchedulingAspect(tracer, traceKeys, Pattern.compile(this.skipPattern));
+	public TraceSchedulingAspect traceSchedulingAspect(Tracer tracer, TraceKeys traceKeys,
+			SpanReporter spanReporter, SleuthSchedulingProperties properties) {
+		return new TraceSchedulingAspect(tracer, traceKeys,
+				Pattern.compile(properties.getSkipPattern()), spanReporter, properties);
 	}
 
 }
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
+import org.springframework.boot.actuate.metrics.writer.Delta;
+
+/**
+ * Writes deltas straight to the {@link CounterBuffers} behind Spring Boot's default
+ * {@link org.springframework.boot.actuate.metrics.CounterService}, so that a sum of spans
+ * is counted in one go
+ *
+ * @since 1.2.0
+ */
+class CounterBuffersCounterWriter implements CounterWriter {
+
+	private final CounterBuffers counterBuffers;
+
+	CounterBuffersCounterWriter(CounterBuffers counterBuffers) {
+		this.counterBuffers = counterBuffers;
+	}
+
+	@Override
+	public void increment(Delta<?> delta) {
+		this.counterBuffers.increment(delta.getName(), delta.getValue().longValue());
+	}
+
+	@Override
+	public void reset(String metricName) {
+		this.counterBuffers.reset(metricName);
+	}
+}
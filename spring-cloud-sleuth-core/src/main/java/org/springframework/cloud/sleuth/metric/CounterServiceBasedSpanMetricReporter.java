@@ -1,37 +1,168 @@
 package org.springframework.cloud.sleuth.metric;
 
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
+import org.springframework.boot.actuate.metrics.writer.Delta;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 
 /**
  * Service to operate on accepted and dropped spans statistics.
  * Operates on a {@link CounterService} underneath
  *
+ * When a {@link CounterWriter} is given, the accepted and dropped spans of an update are
+ * published as a single {@link Delta}, else the counter service is incremented once per
+ * span. With a publish interval, the spans are summed up and published once per interval
+ * by a daemon thread started on the first update, and once more on {@link #destroy()}.
+ * As the counter service can't take a sum, without a writer the sum of each interval is
+ * submitted to the gauge service instead.
+ *
  * @author Marcin Grzejszczak
  * @since 1.0.0
  */
-public class CounterServiceBasedSpanMetricReporter implements SpanMetricReporter {
+public class CounterServiceBasedSpanMetricReporter implements QueuedSpanMetricReporter,
+		DisposableBean {
 	private final String acceptedSpansMetricName;
 	private final String droppedSpansMetricName;
 	private final CounterService counterService;
+	private final String queuedSpansMetricName;
+	private final GaugeService gaugeService;
+	private final CounterWriter counterWriter;
+	private final long publishInterval;
+	private final AtomicLong acceptedSpans = new AtomicLong();
+	private final AtomicLong droppedSpans = new AtomicLong();
+	private final AtomicBoolean scheduled = new AtomicBoolean();
+	private volatile ScheduledExecutorService publisher;
 
 	public CounterServiceBasedSpanMetricReporter(String acceptedSpansMetricName,
 			String droppedSpansMetricName, CounterService counterService) {
+		this(acceptedSpansMetricName, droppedSpansMetricName, counterService, null, null);
+	}
+
+	/**
+	 * @param queuedSpansMetricName name of the gauge of queued spans
+	 * @param gaugeService service the queued spans are submitted to, if {@code null}
+	 * they are not measured
+	 */
+	public CounterServiceBasedSpanMetricReporter(String acceptedSpansMetricName,
+			String droppedSpansMetricName, CounterService counterService,
+			String queuedSpansMetricName, GaugeService gaugeService) {
+		this(acceptedSpansMetricName, droppedSpansMetricName, counterService,
+				queuedSpansMetricName, gaugeService, null, 0);
+	}
+
+	/**
+	 * @param counterWriter writer the counts are published to as a single delta, if
+	 * {@code null} the counter service is incremented once per span
+	 * @param publishInterval time (ms) between publishing the counts, 0 to publish them
+	 * on every update
+	 */
+	public CounterServiceBasedSpanMetricReporter(String acceptedSpansMetricName,
+			String droppedSpansMetricName, CounterService counterService,
+			String queuedSpansMetricName, GaugeService gaugeService,
+			CounterWriter counterWriter, long publishInterval) {
 		this.acceptedSpansMetricName = acceptedSpansMetricName;
 		this.droppedSpansMetricName = droppedSpansMetricName;
 		this.counterService = counterService;
+		this.queuedSpansMetricName = queuedSpansMetricName;
+		this.gaugeService = gaugeService;
+		this.counterWriter = counterWriter;
+		this.publishInterval = publishInterval;
 	}
 
 	@Override
 	public void incrementAcceptedSpans(long quantity) {
-		for (int i = 0; i < quantity; i++) {
-			this.counterService.increment(this.acceptedSpansMetricName);
-		}
+		this.acceptedSpans.addAndGet(quantity);
+		countsUpdated();
 	}
 
 	@Override
 	public void incrementDroppedSpans(long quantity) {
-		for (int i = 0; i < quantity; i++) {
-			this.counterService.increment(this.droppedSpansMetricName);
+		this.droppedSpans.addAndGet(quantity);
+		countsUpdated();
+	}
+
+	@Override
+	public void updateQueuedSpans(long quantity) {
+		if (this.gaugeService != null) {
+			this.gaugeService.submit(this.queuedSpansMetricName, quantity);
+		}
+	}
+
+	private void countsUpdated() {
+		if (this.publishInterval <= 0) {
+			publish();
+		}
+		else if (!this.scheduled.get() && this.scheduled.compareAndSet(false, true)) {
+			schedulePublishing();
+		}
+	}
+
+	private void schedulePublishing() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"sleuth-span-metrics-");
+		threadFactory.setDaemon(true);
+		this.publisher = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		this.publisher.scheduleAtFixedRate(new Runnable() {
+			@Override
+			public void run() {
+				publish();
+			}
+		}, this.publishInterval, this.publishInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Publishes the accepted and dropped spans counted since the previous publishing
+	 */
+	public void publish() {
+		publish(this.acceptedSpansMetricName, this.acceptedSpans.getAndSet(0));
+		publish(this.droppedSpansMetricName, this.droppedSpans.getAndSet(0));
+	}
+
+	/**
+	 * Stops the periodic publishing and publishes the remaining counts
+	 */
+	@Override
+	public void destroy() {
+		ScheduledExecutorService publisher = this.publisher;
+		if (publisher != null) {
+			publisher.shutdownNow();
+		}
+		publish();
+	}
+
+	private void publish(String name, long quantity) {
+		if (quantity <= 0) {
+			return;
+		}
+		if (this.counterWriter != null) {
+			this.counterWriter.increment(new Delta<>(counterName(name), quantity));
+			return;
+		}
+		if (this.publishInterval > 0 && this.gaugeService != null) {
+			this.gaugeService.submit(name, quantity);
+			return;
+		}
+		for (long i = 0; i < quantity; i++) {
+			this.counterService.increment(name);
+		}
+	}
+
+	/**
+	 * Writers take the metric names as they are, so they're prefixed the way the
+	 * counter services prefix them
+	 */
+	private String counterName(String name) {
+		if (name.startsWith("counter") || name.startsWith("meter")) {
+			return name;
 		}
+		return "counter." + name;
 	}
-}
\ No newline at end of file
+}
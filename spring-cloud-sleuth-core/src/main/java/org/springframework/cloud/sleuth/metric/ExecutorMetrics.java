@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+/**
+ * Records the queue wait and run time of the tasks of a single traced executor
+ *
+ * @since 1.2.0
+ * @see ExecutorMetricsRecorder
+ */
+public interface ExecutorMetrics {
+
+	/**
+	 * @param queueWaitNanos time the task waited for a thread of the executor
+	 * @param runNanos time the task ran
+	 */
+	void recordTask(long queueWaitNanos, long runNanos);
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.HdrHistogram.Recorder;
+
+/**
+ * Records the queue wait and run time of the tasks of traced executors, per executor.
+ * Times are recorded like the span latencies of {@link SpanMetricsRecorder}, so
+ * recording doesn't block the threads of the executors.
+ *
+ * @since 1.2.0
+ */
+public class ExecutorMetricsRecorder {
+
+	/**
+	 * Name the tasks of executors without a name are recorded under
+	 */
+	public static final String UNNAMED = "unnamed";
+
+	private final ConcurrentMap<String, TaskMetrics> executors = new ConcurrentHashMap<>();
+	private final String prefix;
+	private final long highestTrackableMicros;
+	private final int significantDigits;
+
+	/**
+	 * @param prefix prefix of the exported metric names
+	 * @param highestTrackableTime highest time (ms) told apart, longer ones are recorded
+	 * as this value
+	 * @param significantDigits precision of the recorded times
+	 */
+	public ExecutorMetricsRecorder(String prefix, long highestTrackableTime,
+			int significantDigits) {
+		this.prefix = prefix;
+		this.highestTrackableMicros = highestTrackableTime * 1000;
+		this.significantDigits = significantDigits;
+	}
+
+	/**
+	 * @param name name of the executor, e.g. of its bean
+	 * @return metrics of the executor, the same instance for the same name
+	 */
+	public ExecutorMetrics executor(String name) {
+		String key = name == null ? UNNAMED : name;
+		TaskMetrics metrics = this.executors.get(key);
+		if (metrics == null) {
+			TaskMetrics created = new TaskMetrics(this.highestTrackableMicros,
+					this.significantDigits);
+			metrics = this.executors.putIfAbsent(key, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		return metrics;
+	}
+
+	/**
+	 * Current values of the metrics by metric name. Tasks are counted since the start,
+	 * the wait and run percentiles (in milliseconds) are those of the tasks finished
+	 * since the previous snapshot.
+	 */
+	public Map<String, Number> snapshot() {
+		Map<String, Number> snapshot = new TreeMap<>();
+		for (Map.Entry<String, TaskMetrics> entry : this.executors.entrySet()) {
+			entry.getValue().snapshot(this.prefix + "." + entry.getKey(), snapshot);
+		}
+		return snapshot;
+	}
+
+	private static final class TaskMetrics implements ExecutorMetrics {
+		private final LatencyHistogram queueWait;
+		private final LatencyHistogram run;
+		/** Guarded by this */
+		private long tasks;
+
+		TaskMetrics(long highestTrackableMicros, int significantDigits) {
+			this.queueWait = new LatencyHistogram(highestTrackableMicros, significantDigits);
+			this.run = new LatencyHistogram(highestTrackableMicros, significantDigits);
+		}
+
+		@Override
+		public void recordTask(long queueWaitNanos, long runNanos) {
+			this.queueWait.recordNanos(queueWaitNanos);
+			this.run.recordNanos(runNanos);
+		}
+
+		synchronized void snapshot(String name, Map<String, Number> snapshot) {
+			this.queueWait.snapshot(name + ".queue-wait", snapshot);
+			this.tasks += this.run.snapshot(name + ".run", snapshot);
+			snapshot.put(name + ".tasks", this.tasks);
+		}
+	}
+}
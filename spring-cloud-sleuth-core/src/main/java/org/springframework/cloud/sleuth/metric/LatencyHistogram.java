@@ -0,0 +1,80 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+/**
+ * Latencies recorded to a lock-free HdrHistogram {@link Recorder}, so recording doesn't
+ * block the measured threads. Snapshots hold the percentiles (in milliseconds) of the
+ * latencies recorded since the previous snapshot.
+ *
+ * Only the nested types of the recorders reference it, which keeps the HdrHistogram
+ * types out of the signatures of the recorders, so that they can be referenced when
+ * HdrHistogram isn't on the classpath.
+ *
+ * @since 1.2.0
+ */
+final class LatencyHistogram {
+
+	private final long highestTrackableMicros;
+	private final Recorder recorder;
+	/** Reused by every snapshot, guarded by this */
+	private Histogram interval;
+
+	LatencyHistogram(long highestTrackableMicros, int significantDigits) {
+		this.highestTrackableMicros = highestTrackableMicros;
+		this.recorder = new Recorder(highestTrackableMicros, significantDigits);
+	}
+
+	/**
+	 * Records the latency, longer ones than the highest trackable are recorded as that
+	 */
+	void recordMicros(long micros) {
+		this.recorder.recordValue(Math.min(Math.max(micros, 0), this.highestTrackableMicros));
+	}
+
+	void recordNanos(long nanos) {
+		recordMicros(nanos / 1000);
+	}
+
+	/**
+	 * Puts the percentiles of the latencies recorded since the previous snapshot, if
+	 * any, under the given name
+	 *
+	 * @return the number of latencies recorded since the previous snapshot
+	 */
+	synchronized long snapshot(String name, Map<String, Number> snapshot) {
+		this.interval = this.recorder.getIntervalHistogram(this.interval);
+		long count = this.interval.getTotalCount();
+		if (count > 0) {
+			snapshot.put(name + ".p50", millis(this.interval.getValueAtPercentile(50)));
+			snapshot.put(name + ".p90", millis(this.interval.getValueAtPercentile(90)));
+			snapshot.put(name + ".p99", millis(this.interval.getValueAtPercentile(99)));
+			snapshot.put(name + ".max", millis(this.interval.getMaxValue()));
+		}
+		return count;
+	}
+
+	private static double millis(long micros) {
+		return micros / 1000d;
+	}
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+
+/**
+ * {@link SpanReporter} that records every finished span in a {@link SpanMetricsRecorder}
+ * before passing it on, so that the metrics include spans that aren't exported.
+ *
+ * @since 1.2.0
+ */
+public final class MetricRecordingSpanReporter implements SpanReporter {
+
+	private final SpanReporter delegate;
+	private final SpanMetricsRecorder recorder;
+
+	public MetricRecordingSpanReporter(SpanReporter delegate, SpanMetricsRecorder recorder) {
+		this.delegate = delegate;
+		this.recorder = recorder;
+	}
+
+	@Override
+	public void report(Span span) {
+		this.recorder.record(span);
+		this.delegate.report(span);
+	}
+}
@@ -0,0 +1,18 @@
+package org.springframework.cloud.sleuth.metric;
+
+/**
+ * Optional contract of a {@link SpanMetricReporter} that also measures the number of
+ * spans waiting to be sent. Reporters that queue spans check for it with
+ * {@code instanceof} so existing {@link SpanMetricReporter} implementations keep working.
+ *
+ * @since 1.2.0
+ */
+public interface QueuedSpanMetricReporter extends SpanMetricReporter {
+
+	/**
+	 * Called when the number of spans waiting in a reporter's queue to be sent changes.
+	 *
+	 * @param quantity the number of spans currently queued.
+	 */
+	void updateQueuedSpans(long quantity);
+}
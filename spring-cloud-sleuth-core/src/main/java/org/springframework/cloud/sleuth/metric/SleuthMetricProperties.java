@@ -13,6 +13,10 @@ public class SleuthMetricProperties {
 
 	private Span span = new Span();
 
+	private SpanNames spanNames = new SpanNames();
+
+	private Executors executors = new Executors();
+
 	public Span getSpan() {
 		return this.span;
 	}
@@ -21,12 +25,36 @@ public class SleuthMetricProperties {
 		this.span = span;
 	}
 
+	public SpanNames getSpanNames() {
+		return this.spanNames;
+	}
+
+	public void setSpanNames(SpanNames spanNames) {
+		this.spanNames = spanNames;
+	}
+
+	public Executors getExecutors() {
+		return this.executors;
+	}
+
+	public void setExecutors(Executors executors) {
+		this.executors = executors;
+	}
+
 	public static class Span {
 
 		private String acceptedName = "counter.span.accepted";
 
 		private String droppedName = "counter.span.dropped";
 
+		private String queuedName = "gauge.span.queued";
+
+		/**
+		 * Time (ms) between publishing the accepted and dropped spans counts to the
+		 * counter service, 0 to publish them on every update. Default: 0
+		 */
+		private long publishInterval = 0L;
+
 		public String getAcceptedName() {
 			return this.acceptedName;
 		}
@@ -42,5 +70,147 @@ public class SleuthMetricProperties {
 		public void setDroppedName(String droppedName) {
 			this.droppedName = droppedName;
 		}
+
+		public String getQueuedName() {
+			return this.queuedName;
+		}
+
+		public void setQueuedName(String queuedName) {
+			this.queuedName = queuedName;
+		}
+
+		public long getPublishInterval() {
+			return this.publishInterval;
+		}
+
+		public void setPublishInterval(long publishInterval) {
+			this.publishInterval = publishInterval;
+		}
+	}
+
+	/**
+	 * Rate, errors and latency of finished spans per span name, sampled or not.
+	 * Requires HdrHistogram on the classpath.
+	 */
+	public static class SpanNames {
+
+		private boolean enabled = false;
+
+		/**
+		 * Prefix of the metric names. Default: span
+		 */
+		private String prefix = "span";
+
+		/**
+		 * Maximum number of tracked span names, others are recorded as "other".
+		 * Default: 100
+		 */
+		private int maxNames = 100;
+
+		/**
+		 * Highest latency (ms) told apart. Default: 60000
+		 */
+		private long highestTrackableLatency = 60_000L;
+
+		/**
+		 * Number of significant digits of the recorded latencies. Default: 2
+		 */
+		private int significantDigits = 2;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getPrefix() {
+			return this.prefix;
+		}
+
+		public void setPrefix(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public int getMaxNames() {
+			return this.maxNames;
+		}
+
+		public void setMaxNames(int maxNames) {
+			this.maxNames = maxNames;
+		}
+
+		public long getHighestTrackableLatency() {
+			return this.highestTrackableLatency;
+		}
+
+		public void setHighestTrackableLatency(long highestTrackableLatency) {
+			this.highestTrackableLatency = highestTrackableLatency;
+		}
+
+		public int getSignificantDigits() {
+			return this.significantDigits;
+		}
+
+		public void setSignificantDigits(int significantDigits) {
+			this.significantDigits = significantDigits;
+		}
+	}
+
+	/**
+	 * Queue wait and run time of the tasks of traced executors, per executor.
+	 * Requires HdrHistogram on the classpath.
+	 */
+	public static class Executors {
+
+		private boolean enabled = false;
+
+		/**
+		 * Prefix of the metric names. Default: executor
+		 */
+		private String prefix = "executor";
+
+		/**
+		 * Highest queue wait or run time (ms) told apart. Default: 60000
+		 */
+		private long highestTrackableTime = 60_000L;
+
+		/**
+		 * Number of significant digits of the recorded times. Default: 2
+		 */
+		private int significantDigits = 2;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getPrefix() {
+			return this.prefix;
+		}
+
+		public void setPrefix(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public long getHighestTrackableTime() {
+			return this.highestTrackableTime;
+		}
+
+		public void setHighestTrackableTime(long highestTrackableTime) {
+			this.highestTrackableTime = highestTrackableTime;
+		}
+
+		public int getSignificantDigits() {
+			return this.significantDigits;
+		}
+
+		public void setSignificantDigits(int significantDigits) {
+			this.significantDigits = significantDigits;
+		}
 	}
 }
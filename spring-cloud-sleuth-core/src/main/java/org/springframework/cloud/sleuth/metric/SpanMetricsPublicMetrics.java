@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
+import org.springframework.boot.actuate.metrics.Metric;
+
+/**
+ * Exposes the {@link SpanMetricsRecorder} metrics through the actuator
+ *
+ * @since 1.2.0
+ */
+class SpanMetricsPublicMetrics implements PublicMetrics {
+
+	private final SpanMetricsRecorder recorder;
+
+	SpanMetricsPublicMetrics(SpanMetricsRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	@Override
+	public Collection<Metric<?>> metrics() {
+		Map<String, Number> snapshot = this.recorder.snapshot();
+		Collection<Metric<?>> metrics = new ArrayList<>(snapshot.size());
+		for (Map.Entry<String, Number> entry : snapshot.entrySet()) {
+			metrics.add(new Metric<>(entry.getKey(), entry.getValue()));
+		}
+		return metrics;
+	}
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.HdrHistogram.Recorder;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Records the rate, errors and latency of finished spans per span name. Latencies go to
+ * lock-free HdrHistogram {@link Recorder recorders}, so recording doesn't block the
+ * threads finishing spans.
+ *
+ * At most the configured number of span names are tracked, spans of further names are
+ * recorded under {@link #OTHER_NAME}.
+ *
+ * @since 1.2.0
+ */
+public class SpanMetricsRecorder {
+
+	/**
+	 * Name the spans are recorded under when too many span names are tracked already
+	 */
+	public static final String OTHER_NAME = "other";
+
+	private static final String HTTP_STATUS_CODE = "http.status_code";
+
+	private final ConcurrentMap<String, NameMetrics> names = new ConcurrentHashMap<>();
+	private final String prefix;
+	private final int maxNames;
+	private final long highestTrackableMicros;
+	private final int significantDigits;
+
+	/**
+	 * @param prefix prefix of the exported metric names
+	 * @param maxNames maximum number of tracked span names
+	 * @param highestTrackableLatency highest latency (ms) told apart, longer ones are
+	 * recorded as this value
+	 * @param significantDigits precision of the recorded latencies
+	 */
+	public SpanMetricsRecorder(String prefix, int maxNames, long highestTrackableLatency,
+			int significantDigits) {
+		this.prefix = prefix;
+		this.maxNames = maxNames;
+		this.highestTrackableMicros = highestTrackableLatency * 1000;
+		this.significantDigits = significantDigits;
+	}
+
+	/**
+	 * Records a finished span, whether sampled or not
+	 */
+	public void record(Span span) {
+		metrics(span.getName()).record(span.getAccumulatedMicros(), isError(span));
+	}
+
+	private NameMetrics metrics(String name) {
+		String key = name == null ? OTHER_NAME : name;
+		NameMetrics metrics = this.names.get(key);
+		if (metrics != null) {
+			return metrics;
+		}
+		if (this.names.size() >= this.maxNames) {
+			key = OTHER_NAME;
+		}
+		metrics = this.names.get(key);
+		if (metrics == null) {
+			NameMetrics created = new NameMetrics(this.highestTrackableMicros, this.significantDigits);
+			metrics = this.names.putIfAbsent(key, created);
+			if (metrics == null) {
+				metrics = created;
+			}
+		}
+		return metrics;
+	}
+
+	private boolean isError(Span span) {
+		Map<String, String> tags = span.tags();
+		if (tags.isEmpty()) {
+			return false;
+		}
+		if (tags.containsKey(Span.SPAN_ERROR_TAG_NAME)) {
+			return true;
+		}
+		String status = tags.get(HTTP_STATUS_CODE);
+		return status != null && status.length() == 3 && status.charAt(0) == '5';
+	}
+
+	/**
+	 * Current values of the metrics by metric name. Requests and errors are counted since
+	 * the start, the latency percentiles (in milliseconds) are those of the spans
+	 * finished since the previous snapshot.
+	 */
+	public Map<String, Number> snapshot() {
+		Map<String, Number> snapshot = new TreeMap<>();
+		for (Map.Entry<String, NameMetrics> entry : this.names.entrySet()) {
+			entry.getValue().snapshot(this.prefix + "." + entry.getKey(), snapshot);
+		}
+		return snapshot;
+	}
+
+	private static final class NameMetrics {
+		private final AtomicLong requests = new AtomicLong();
+		private final AtomicLong errors = new AtomicLong();
+		private final LatencyHistogram latency;
+
+		NameMetrics(long highestTrackableMicros, int significantDigits) {
+			this.latency = new LatencyHistogram(highestTrackableMicros, significantDigits);
+		}
+
+		void record(long micros, boolean error) {
+			this.requests.incrementAndGet();
+			if (error) {
+				this.errors.incrementAndGet();
+			}
+			this.latency.recordMicros(micros);
+		}
+
+		void snapshot(String name, Map<String, Number> snapshot) {
+			snapshot.put(name + ".requests", this.requests.get());
+			snapshot.put(name + ".errors", this.errors.get());
+			this.latency.snapshot(name + ".latency", snapshot);
+		}
+	}
+}
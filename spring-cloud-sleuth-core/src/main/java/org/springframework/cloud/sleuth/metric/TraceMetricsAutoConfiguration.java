@@ -16,7 +16,14 @@
 
 package org.springframework.cloud.sleuth.metric;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.PublicMetrics;
 import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.buffer.BufferCounterService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -48,12 +55,34 @@ public class TraceMetricsAutoConfiguration {
 	@ConditionalOnClass(CounterService.class)
 	@ConditionalOnMissingBean(SpanMetricReporter.class)
 	protected static class CounterServiceSpanReporterConfig {
+		@Autowired(required = false)
+		private GaugeService gaugeService;
+
 		@Bean
 		@ConditionalOnBean(CounterService.class)
 		public SpanMetricReporter spanReporterCounterService(CounterService counterService,
-				SleuthMetricProperties sleuthMetricProperties) {
+				SleuthMetricProperties sleuthMetricProperties,
+				ObjectProvider<CounterBuffers> counterBuffers,
+				ObjectProvider<CounterWriter> counterWriters) {
 			return new CounterServiceBasedSpanMetricReporter(sleuthMetricProperties.getSpan().getAcceptedName(),
-					sleuthMetricProperties.getSpan().getDroppedName(), counterService);
+					sleuthMetricProperties.getSpan().getDroppedName(), counterService,
+					sleuthMetricProperties.getSpan().getQueuedName(), this.gaugeService,
+					counterWriter(counterService, counterBuffers, counterWriters),
+					sleuthMetricProperties.getSpan().getPublishInterval());
+		}
+
+		/**
+		 * The buffers behind Spring Boot's default counter service take a sum of spans
+		 * directly, else the only counter writer is used
+		 */
+		private CounterWriter counterWriter(CounterService counterService,
+				ObjectProvider<CounterBuffers> counterBuffers,
+				ObjectProvider<CounterWriter> counterWriters) {
+			CounterBuffers buffers = counterBuffers.getIfUnique();
+			if (counterService instanceof BufferCounterService && buffers != null) {
+				return new CounterBuffersCounterWriter(buffers);
+			}
+			return counterWriters.getIfUnique();
 		}
 
 		@Bean
@@ -63,6 +92,46 @@ public class TraceMetricsAutoConfiguration {
 		}
 	}
 
+	@Configuration
+	@ConditionalOnClass(name = "org.HdrHistogram.Recorder")
+	@ConditionalOnProperty("spring.sleuth.metric.span-names.enabled")
+	protected static class SpanMetricsRecorderConfig {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public SpanMetricsRecorder spanMetricsRecorder(SleuthMetricProperties sleuthMetricProperties) {
+			SleuthMetricProperties.SpanNames spanNames = sleuthMetricProperties.getSpanNames();
+			return new SpanMetricsRecorder(spanNames.getPrefix(), spanNames.getMaxNames(),
+					spanNames.getHighestTrackableLatency(), spanNames.getSignificantDigits());
+		}
+
+		@Bean
+		@ConditionalOnClass(PublicMetrics.class)
+		public PublicMetrics spanMetricsPublicMetrics(SpanMetricsRecorder spanMetricsRecorder) {
+			return new SpanMetricsPublicMetrics(spanMetricsRecorder);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnClass(name = "org.HdrHistogram.Recorder")
+	@ConditionalOnProperty("spring.sleuth.metric.executors.enabled")
+	protected static class ExecutorMetricsRecorderConfig {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ExecutorMetricsRecorder executorMetricsRecorder(SleuthMetricProperties sleuthMetricProperties) {
+			SleuthMetricProperties.Executors executors = sleuthMetricProperties.getExecutors();
+			return new ExecutorMetricsRecorder(executors.getPrefix(),
+					executors.getHighestTrackableTime(), executors.getSignificantDigits());
+		}
+
+		@Bean
+		@ConditionalOnClass(PublicMetrics.class)
+		public PublicMetrics executorMetricsPublicMetrics(ExecutorMetricsRecorder executorMetricsRecorder) {
+			return new ExecutorMetricsPublicMetrics(executorMetricsRecorder);
+		}
+	}
+
 	@Bean
 	@ConditionalOnMissingClass("org.springframework.boot.actuate.metrics.CounterService")
 	@ConditionalOnMissingBean(SpanMetricReporter.class)
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import java.io.Closeable;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Storage of the span context of the current thread that the {@link DefaultTracer} uses.
+ * Implementations decide where the context lives, e.g. in a thread local or in an
+ * inheritable one. The context itself is opaque and gets only stored and returned.
+ *
+ * {@link #newScope(Span)} puts a span in scope until the returned {@link Scope} gets
+ * closed, which restores the previous context. Used with try-with-resources it can't
+ * leave a span behind on a pooled thread.
+ *
+ * @since 1.2.0
+ * @see ThreadLocalCurrentTraceContext
+ * @see InheritableThreadLocalCurrentTraceContext
+ */
+public abstract class CurrentTraceContext {
+
+	/**
+	 * @return the context of the current thread or {@code null} if there's none
+	 */
+	protected abstract SpanContext get();
+
+	/**
+	 * @param context context of the current thread, {@code null} removes it
+	 */
+	protected abstract void set(SpanContext context);
+
+	/**
+	 * Makes the span the current one until the returned scope gets closed
+	 */
+	public Scope newScope(Span span) {
+		SpanContext previous = get();
+		set(new SpanContext(span, false, previous));
+		return new Scope(this, previous);
+	}
+
+	/**
+	 * Span in scope together with the context it replaced
+	 */
+	public static final class SpanContext {
+		final Span span;
+		final boolean autoClose;
+		final SpanContext parent;
+
+		SpanContext(Span span, boolean autoClose, SpanContext parent) {
+			this.span = span;
+			this.autoClose = autoClose;
+			this.parent = parent;
+		}
+	}
+
+	/**
+	 * Restores the context that was current before the scope got opened
+	 */
+	public static final class Scope implements Closeable {
+		private final CurrentTraceContext currentTraceContext;
+		private final SpanContext previous;
+
+		Scope(CurrentTraceContext currentTraceContext, SpanContext previous) {
+			this.currentTraceContext = currentTraceContext;
+			this.previous = previous;
+		}
+
+		@Override
+		public void close() {
+			this.currentTraceContext.set(this.previous);
+		}
+	}
+}
@@ -52,6 +52,8 @@ public class DefaultTracer implements Tracer {
 
 	private final boolean traceId128;
 
+	private final SpanContextHolder spanContextHolder;
+
 	@Deprecated
 	public DefaultTracer(Sampler defaultSampler, Random random, SpanNamer spanNamer,
 			SpanLogger spanLogger, SpanReporter spanReporter) {
@@ -72,6 +74,18 @@ public class DefaultTracer implements Tracer {
 	public DefaultTracer(Sampler defaultSampler, Random random, SpanNamer spanNamer,
 				SpanLogger spanLogger, SpanReporter spanReporter, boolean traceId128,
 			TraceKeys traceKeys) {
+		this(defaultSampler, random, spanNamer, spanLogger, spanReporter, traceId128,
+				traceKeys, null);
+	}
+
+	/**
+	 * @param currentTraceContext storage of the current span, the default thread local
+	 * one if {@code null}
+	 * @since 1.2.0
+	 */
+	public DefaultTracer(Sampler defaultSampler, Random random, SpanNamer spanNamer,
+				SpanLogger spanLogger, SpanReporter spanReporter, boolean traceId128,
+			TraceKeys traceKeys, CurrentTraceContext currentTraceContext) {
 		this.defaultSampler = defaultSampler;
 		this.random = random;
 		this.spanNamer = spanNamer;
@@ -79,6 +93,8 @@ public class DefaultTracer implements Tracer {
 		this.spanReporter = spanReporter;
 		this.traceId128 = traceId128;
 		this.traceKeys = traceKeys != null ? traceKeys : new TraceKeys();
+		this.spanContextHolder = currentTraceContext != null ?
+				new SpanContextHolder(currentTraceContext) : SpanContextHolder.DEFAULT;
 	}
 
 	@Override
@@ -120,14 +136,14 @@ public class DefaultTracer implements Tracer {
 		if (span == null) {
 			return null;
 		}
-		Span cur = SpanContextHolder.getCurrentSpan();
+		Span cur = this.spanContextHolder.getCurrentSpan();
 		if (!span.equals(cur)) {
 			ExceptionUtils.warn("Tried to detach trace span but "
 					+ "it is not the current span: " + span
 					+ ". You may have forgotten to close or detach " + cur);
 		}
 		else {
-			SpanContextHolder.removeCurrentSpan();
+			this.spanContextHolder.removeCurrentSpan();
 		}
 		return span.getSavedSpan();
 	}
@@ -137,7 +153,7 @@ public class DefaultTracer implements Tracer {
 		if (span == null) {
 			return null;
 		}
-		Span cur = SpanContextHolder.getCurrentSpan();
+		Span cur = this.spanContextHolder.getCurrentSpan();
 		final Span savedSpan = span.getSavedSpan();
 		if (!span.equals(cur)) {
 			ExceptionUtils.warn(
@@ -156,7 +172,7 @@ public class DefaultTracer implements Tracer {
 					this.spanLogger.logStoppedSpan(null, span);
 				}
 			}
-			SpanContextHolder.close(new SpanContextHolder.SpanFunction() {
+			this.spanContextHolder.close(new SpanContextHolder.SpanFunction() {
 				@Override public void apply(Span span) {
 					DefaultTracer.this.spanLogger.logStoppedSpan(savedSpan, span);
 				}
@@ -178,7 +194,7 @@ public class DefaultTracer implements Tracer {
 		}
 		else {
 			if (!isTracing()) {
-				SpanContextHolder.push(parent, true);
+				this.spanContextHolder.push(parent, true);
 			}
 			Span span = Span.builder().name(name)
 					.traceIdHigh(parent.getTraceIdHigh())
@@ -217,8 +233,8 @@ public class DefaultTracer implements Tracer {
 		} else {
 			return null;
 		}
-		Span newSpan = createContinuedSpan(span, SpanContextHolder.getCurrentSpan());
-		SpanContextHolder.setCurrentSpan(newSpan);
+		Span newSpan = createContinuedSpan(span, this.spanContextHolder.getCurrentSpan());
+		this.spanContextHolder.setCurrentSpan(newSpan);
 		return newSpan;
 	}
 
@@ -231,12 +247,12 @@ public class DefaultTracer implements Tracer {
 
 	@Override
 	public Span getCurrentSpan() {
-		return SpanContextHolder.getCurrentSpan();
+		return this.spanContextHolder.getCurrentSpan();
 	}
 
 	@Override
 	public boolean isTracing() {
-		return SpanContextHolder.isTracing();
+		return this.spanContextHolder.isTracing();
 	}
 
 	@Override
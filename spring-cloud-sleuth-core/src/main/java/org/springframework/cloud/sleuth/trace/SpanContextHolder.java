@@ -18,10 +18,11 @@ package org.springframework.cloud.sleuth.trace;
 
 import org.apache.commons.logging.Log;
 import org.springframework.cloud.sleuth.Span;
-import org.springframework.core.NamedThreadLocal;
+import org.springframework.cloud.sleuth.trace.CurrentTraceContext.SpanContext;
 
 /**
- * Utility for managing the thread local state for the {@link DefaultTracer}.
+ * Utility for managing the thread local state for the {@link DefaultTracer}. The state
+ * is kept by a {@link CurrentTraceContext}.
  *
  * @author Spencer Gibb
  * @author Dave Syer
@@ -30,20 +31,31 @@ class SpanContextHolder {
 
 	private static final Log log = org.apache.commons.logging.LogFactory
 			.getLog(SpanContextHolder.class);
-	private static final ThreadLocal<SpanContext> CURRENT_SPAN = new NamedThreadLocal<>(
-			"Trace Context");
+
+	/**
+	 * Holder of the default, thread local, context
+	 */
+	static final SpanContextHolder DEFAULT = new SpanContextHolder(
+			new ThreadLocalCurrentTraceContext());
+
+	private final CurrentTraceContext currentTraceContext;
+
+	SpanContextHolder(CurrentTraceContext currentTraceContext) {
+		this.currentTraceContext = currentTraceContext;
+	}
 
 	/**
 	 * Get the current span out of the thread context
 	 */
-	static Span getCurrentSpan() {
-		return isTracing() ? CURRENT_SPAN.get().span : null;
+	Span getCurrentSpan() {
+		SpanContext current = this.currentTraceContext.get();
+		return current != null ? current.span : null;
 	}
 
 	/**
 	 * Set the current span in the thread context
 	 */
-	static void setCurrentSpan(Span span) {
+	void setCurrentSpan(Span span) {
 		if (log.isTraceEnabled()) {
 			log.trace("Setting current span " + span);
 		}
@@ -55,30 +67,30 @@ class SpanContextHolder {
 	 *
 	 * @see #close() for a better alternative in instrumetation
 	 */
-	static void removeCurrentSpan() {
-		CURRENT_SPAN.remove();
+	void removeCurrentSpan() {
+		this.currentTraceContext.set(null);
 	}
 
 	/**
 	 * Check if there is already a span in the current thread
 	 */
-	static boolean isTracing() {
-		return CURRENT_SPAN.get() != null;
+	boolean isTracing() {
+		return this.currentTraceContext.get() != null;
 	}
 
 	/**
 	 * Close the current span and all parents that can be auto closed.
 	 * On every iteration a function will be applied on the closed Span.
 	 */
-	static void close(SpanFunction spanFunction) {
-		SpanContext current = CURRENT_SPAN.get();
-		CURRENT_SPAN.remove();
+	void close(SpanFunction spanFunction) {
+		SpanContext current = this.currentTraceContext.get();
+		this.currentTraceContext.set(null);
 		while (current != null) {
 			current = current.parent;
 			spanFunction.apply(current != null ? current.span : null);
 			if (current != null) {
 				if (!current.autoClose) {
-					CURRENT_SPAN.set(current);
+					this.currentTraceContext.set(current);
 					current = null;
 				}
 			}
@@ -88,7 +100,7 @@ class SpanContextHolder {
 	/**
 	 * Close the current span and all parents that can be auto closed.
 	 */
-	static void close() {
+	void close() {
 		close(new NoOpFunction());
 	}
 
@@ -97,30 +109,19 @@ class SpanContextHolder {
 	 * child spans are themselves closed. Use autoClose=true if you start a new span with
 	 * a parent that wasn't already in thread context.
 	 */
-	static void push(Span span, boolean autoClose) {
-		if (isCurrent(span)) {
+	void push(Span span, boolean autoClose) {
+		SpanContext current = this.currentTraceContext.get();
+		if (isCurrent(span, current)) {
 			return;
 		}
-		CURRENT_SPAN.set(new SpanContext(span, autoClose));
+		this.currentTraceContext.set(new SpanContext(span, autoClose, current));
 	}
 
-	private static boolean isCurrent(Span span) {
-		if (span == null || CURRENT_SPAN.get() == null) {
+	private boolean isCurrent(Span span, SpanContext current) {
+		if (span == null || current == null) {
 			return false;
 		}
-		return span.equals(CURRENT_SPAN.get().span);
-	}
-
-	private static class SpanContext {
-		Span span;
-		boolean autoClose;
-		SpanContext parent;
-
-		public SpanContext(Span span, boolean autoClose) {
-			this.span = span;
-			this.autoClose = autoClose;
-			this.parent = CURRENT_SPAN.get();
-		}
+		return span.equals(current.span);
 	}
 
 	interface SpanFunction {
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import org.springframework.core.NamedThreadLocal;
+
+/**
+ * Default {@link CurrentTraceContext} that keeps the context in a thread local. All
+ * instances share the same thread local, so the context of a thread is a single
+ * entry in its thread local map regardless of the number of spans.
+ *
+ * @since 1.2.0
+ */
+public class ThreadLocalCurrentTraceContext extends CurrentTraceContext {
+
+	private static final ThreadLocal<SpanContext> CURRENT_SPAN = new NamedThreadLocal<>(
+			"Trace Context");
+
+	@Override
+	protected SpanContext get() {
+		return CURRENT_SPAN.get();
+	}
+
+	@Override
+	protected void set(SpanContext context) {
+		if (context == null) {
+			CURRENT_SPAN.remove();
+		}
+		else {
+			CURRENT_SPAN.set(context);
+		}
+	}
+}
@@ -203,6 +203,13 @@ public class SpanTests {
 				.isEqualTo(span.getAccumulatedMicros());
 	}
 
+	@Test public void shouldBuildStoppedSpanWithPreciseDuration() {
+		Span span = Span.builder().traceId(1L).begin(1000L).end(1002L).durationMicros(1500L).build();
+
+		assertThat(span.isRunning()).isFalse();
+		assertThat(span.getAccumulatedMicros()).isEqualTo(1500L);
+	}
+
 	// Duration of 0 is confusing to plot and can be misinterpreted as null
 	@Test public void getAccumulatedMicros_roundsUpToOneWhenRunning() throws IOException {
 		AtomicLong nanoTime = new AtomicLong();
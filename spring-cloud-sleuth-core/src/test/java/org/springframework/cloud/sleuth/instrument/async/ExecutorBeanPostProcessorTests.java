@@ -0,0 +1,163 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+public class ExecutorBeanPostProcessorTests {
+
+	BeanFactory beanFactory = beanFactory();
+	ExecutorBeanPostProcessor postProcessor = new ExecutorBeanPostProcessor(this.beanFactory);
+	ThreadPoolTaskExecutor threadPoolTaskExecutor = threadPoolTaskExecutor();
+
+	@After
+	public void close() {
+		this.threadPoolTaskExecutor.shutdown();
+	}
+
+	@Test
+	public void should_wrap_tasks_passed_to_an_executor() {
+		RecordingExecutor executor = new RecordingExecutor();
+
+		Executor proxy = (Executor) this.postProcessor
+				.postProcessAfterInitialization(executor, "executor");
+		proxy.execute(new NoOp());
+
+		then(proxy).isInstanceOf(RecordingExecutor.class);
+		then(executor.tasks).hasSize(1);
+		then(executor.tasks.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+	}
+
+	@Test
+	public void should_pass_other_calls_on_to_the_executor() {
+		RecordingExecutor executor = new RecordingExecutor();
+
+		RecordingExecutor proxy = (RecordingExecutor) this.postProcessor
+				.postProcessAfterInitialization(executor, "executor");
+		proxy.execute(new NoOp());
+
+		then(proxy.executedTasks()).isEqualTo(1);
+	}
+
+	@Test
+	public void should_run_tasks_submitted_to_a_thread_pool_task_executor() throws Exception {
+		final AtomicBoolean executed = new AtomicBoolean();
+
+		ThreadPoolTaskExecutor proxy = (ThreadPoolTaskExecutor) this.postProcessor
+				.postProcessAfterInitialization(this.threadPoolTaskExecutor, "executor");
+		proxy.submit(new Runnable() {
+			@Override public void run() {
+				executed.set(true);
+			}
+		}).get();
+
+		then(executed.get()).isTrue();
+		then(proxy.getThreadPoolExecutor())
+				.isSameAs(this.threadPoolTaskExecutor.getThreadPoolExecutor());
+	}
+
+	@Test
+	public void should_run_tasks_submitted_to_a_fork_join_pool() throws Exception {
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			ForkJoinPool proxy = (ForkJoinPool) this.postProcessor
+					.postProcessAfterInitialization(pool, "pool");
+
+			then(proxy.submit(() -> "done").get()).isEqualTo("done");
+			then(proxy.getParallelism()).isEqualTo(2);
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void should_not_wrap_trace_executors() {
+		LazyTraceExecutor executor = new LazyTraceExecutor(this.beanFactory, new RecordingExecutor());
+
+		then(this.postProcessor.postProcessAfterInitialization(executor, "executor"))
+				.isSameAs(executor);
+	}
+
+	@Test
+	public void should_proxy_the_interfaces_of_a_final_executor() {
+		RecordingFinalExecutor executor = new RecordingFinalExecutor();
+
+		Executor proxy = (Executor) this.postProcessor
+				.postProcessAfterInitialization(executor, "executor");
+		proxy.execute(new NoOp());
+
+		then(proxy).isNotInstanceOf(RecordingFinalExecutor.class);
+		then(executor.tasks.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+	}
+
+	private static ThreadPoolTaskExecutor threadPoolTaskExecutor() {
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		executor.afterPropertiesSet();
+		return executor;
+	}
+
+	private static BeanFactory beanFactory() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		given(beanFactory.getBean(Tracer.class)).willReturn(mock(Tracer.class));
+		given(beanFactory.getBean(TraceKeys.class)).willReturn(new TraceKeys());
+		given(beanFactory.getBean(SpanNamer.class)).willReturn(mock(SpanNamer.class));
+		given(beanFactory.getBean(SleuthAsyncProperties.class)).willReturn(new SleuthAsyncProperties());
+		return beanFactory;
+	}
+
+	static class RecordingExecutor implements Executor {
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Override public void execute(Runnable command) {
+			this.tasks.add(command);
+		}
+
+		public int executedTasks() {
+			return this.tasks.size();
+		}
+	}
+
+	static final class RecordingFinalExecutor implements Executor {
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Override public void execute(Runnable command) {
+			this.tasks.add(command);
+		}
+	}
+
+	static class NoOp implements Runnable {
+		@Override public void run() {
+		}
+	}
+}
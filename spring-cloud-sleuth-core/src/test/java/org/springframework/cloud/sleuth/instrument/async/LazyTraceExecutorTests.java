@@ -0,0 +1,115 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Test;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.NoSuchBeanDefinitionException;
+import org.springframework.cloud.sleuth.SpanNamer;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class LazyTraceExecutorTests {
+
+	Tracer tracer = mock(Tracer.class);
+	SleuthAsyncProperties properties = new SleuthAsyncProperties();
+	RecordingExecutor delegate = new RecordingExecutor();
+	Runnable task = new Runnable() {
+		@Override public void run() {
+		}
+	};
+
+	@Test
+	public void should_start_a_root_span_for_untraced_tasks_by_default() {
+		new LazyTraceExecutor(beanFactory(), this.delegate).execute(this.task);
+
+		then(this.delegate.tasks.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+	}
+
+	@Test
+	public void should_pass_untraced_tasks_through_when_configured() {
+		this.properties.setUntracedTasks(SleuthAsyncProperties.UntracedTasks.PASS_THROUGH);
+
+		new LazyTraceExecutor(beanFactory(), this.delegate).execute(this.task);
+
+		then(this.delegate.tasks.get(0)).isSameAs(this.task);
+	}
+
+	@Test
+	public void should_continue_the_current_span_regardless_of_the_policy() {
+		this.properties.setUntracedTasks(SleuthAsyncProperties.UntracedTasks.PASS_THROUGH);
+		given(this.tracer.isTracing()).willReturn(true);
+
+		new LazyTraceExecutor(beanFactory(), this.delegate).execute(this.task);
+
+		then(this.delegate.tasks.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+	}
+
+	@Test
+	public void should_start_a_root_span_only_for_the_named_executors() {
+		this.properties.setUntracedTasks(SleuthAsyncProperties.UntracedTasks.NAMED_EXECUTORS);
+		this.properties.setRootSpanExecutors(singletonList("traced"));
+
+		new LazyTraceExecutor(beanFactory(), this.delegate, "traced").execute(this.task);
+		new LazyTraceExecutor(beanFactory(), this.delegate, "untraced").execute(this.task);
+
+		then(this.delegate.tasks.get(0)).isInstanceOf(SpanContinuingTraceRunnable.class);
+		then(this.delegate.tasks.get(1)).isSameAs(this.task);
+	}
+
+	@Test
+	public void should_look_up_the_missing_properties_only_once() {
+		BeanFactory beanFactory = beanFactory();
+		given(beanFactory.getBean(SleuthAsyncProperties.class))
+				.willThrow(new NoSuchBeanDefinitionException(SleuthAsyncProperties.class));
+		LazyTraceExecutor executor = new LazyTraceExecutor(beanFactory, this.delegate);
+
+		executor.execute(this.task);
+		executor.execute(this.task);
+
+		then(this.delegate.tasks).allMatch(task -> task instanceof SpanContinuingTraceRunnable);
+		verify(beanFactory, times(1)).getBean(SleuthAsyncProperties.class);
+	}
+
+	private BeanFactory beanFactory() {
+		BeanFactory beanFactory = mock(BeanFactory.class);
+		given(beanFactory.getBean(Tracer.class)).willReturn(this.tracer);
+		given(beanFactory.getBean(TraceKeys.class)).willReturn(new TraceKeys());
+		given(beanFactory.getBean(SpanNamer.class)).willReturn(mock(SpanNamer.class));
+		given(beanFactory.getBean(SleuthAsyncProperties.class)).willReturn(this.properties);
+		return beanFactory;
+	}
+
+	static class RecordingExecutor implements Executor {
+		final List<Runnable> tasks = new ArrayList<>();
+
+		@Override public void execute(Runnable command) {
+			this.tasks.add(command);
+		}
+	}
+}
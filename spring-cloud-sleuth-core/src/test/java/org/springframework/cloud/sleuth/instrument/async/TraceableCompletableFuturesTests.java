@@ -0,0 +1,127 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class TraceableCompletableFuturesTests {
+
+	Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(), new TraceKeys());
+	ExecutorService executorService = Executors.newFixedThreadPool(2);
+	TraceableCompletableFutures futures = new TraceableCompletableFutures(this.tracer,
+			this.executorService);
+
+	@After
+	public void tearDown() {
+		this.executorService.shutdown();
+		TestSpanContextHolder.removeCurrentSpan();
+	}
+
+	@Test
+	public void should_pass_the_span_through_async_stages() throws Exception {
+		Span span = this.tracer.createSpan("parent");
+		CompletableFuture<Span> blocker = new CompletableFuture<>();
+
+		CompletableFuture<Long> traceIds = this.futures.supplyAsync(() -> currentSpan())
+				.thenCombineAsync(blocker, this.futures.biFunction((first, other) -> first))
+				.thenApplyAsync(this.futures.function(first -> currentSpan()), this.executorService)
+				.thenApply(this.futures.function(Span::getTraceId));
+		this.tracer.close(span);
+		// the stage gets completed by a thread that has no span in scope
+		blocker.complete(null);
+
+		then(traceIds.get()).isEqualTo(span.getTraceId());
+		then(this.tracer.getCurrentSpan()).isNull();
+	}
+
+	@Test
+	public void should_continue_the_span_of_the_stage_creator_not_of_the_completing_thread()
+			throws Exception {
+		CompletableFuture<String> blocker = new CompletableFuture<>();
+		Span span = this.tracer.createSpan("creator");
+		CompletableFuture<Span> stage = blocker
+				.thenApplyAsync(this.futures.function(value -> currentSpan()), this.executorService);
+		this.tracer.close(span);
+
+		Span other = this.tracer.createSpan("completer");
+		blocker.complete("done");
+		this.tracer.close(other);
+
+		then(stage.get().getSpanId()).isEqualTo(span.getSpanId());
+	}
+
+	@Test
+	public void should_keep_the_span_of_the_caller_when_a_completed_stage_runs_inline() {
+		Span span = this.tracer.createSpan("caller");
+		AtomicReference<Span> inStage = new AtomicReference<>();
+
+		CompletableFuture.completedFuture("done")
+				.thenAccept(this.futures.consumer(value -> inStage.set(currentSpan())));
+
+		then(inStage.get()).isEqualTo(span);
+		then(this.tracer.getCurrentSpan()).isEqualTo(span);
+		this.tracer.close(span);
+		then(this.tracer.getCurrentSpan()).isNull();
+	}
+
+	@Test
+	public void should_put_back_the_span_of_the_thread_running_the_stage_inline() {
+		CompletableFuture<String> blocker = new CompletableFuture<>();
+		Span creator = this.tracer.createSpan("creator");
+		AtomicReference<Span> inStage = new AtomicReference<>();
+		blocker.thenAccept(this.futures.consumer(value -> inStage.set(currentSpan())));
+		this.tracer.close(creator);
+
+		Span completer = this.tracer.createSpan("completer");
+		blocker.complete("done");
+
+		then(inStage.get()).isEqualTo(creator);
+		then(this.tracer.getCurrentSpan()).isEqualTo(completer);
+		this.tracer.close(completer);
+	}
+
+	@Test
+	public void should_not_wrap_stages_created_without_a_span() {
+		Function<String, String> function = value -> value;
+
+		then(this.futures.function(function)).isSameAs(function);
+	}
+
+	private Span currentSpan() {
+		return this.tracer.getCurrentSpan();
+	}
+}
@@ -9,9 +9,13 @@ import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.hamcrest.Description;
 import org.hamcrest.Matcher;
@@ -150,6 +154,44 @@ public class TraceableExecutorServiceTests {
 		then(this.tracer.getCurrentSpan()).isNull();
 	}
 
+	@Test
+	public void should_tag_the_queue_wait_and_record_the_times_of_tasks() throws Exception {
+		ExecutorService singleThread = Executors.newSingleThreadExecutor();
+		List<long[]> recorded = new CopyOnWriteArrayList<>();
+		TraceableExecutorService traceExecutorService = new TraceableExecutorService(
+				singleThread, this.tracer, new TraceKeys(), this.spanNamer, null,
+				(queueWait, run) -> recorded.add(new long[] { queueWait, run }));
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch blocked = new CountDownLatch(1);
+		AtomicReference<String> queueWaitTag = new AtomicReference<>();
+
+		traceExecutorService.execute(() -> {
+			running.countDown();
+			try {
+				blocked.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		Future<?> queued = traceExecutorService.submit(() -> queueWaitTag.set(
+				this.tracer.getCurrentSpan().tags().get("queue.wait")));
+		// the first task runs and the second one waits for at least as long as this
+		running.await();
+		long blockedSince = System.nanoTime();
+		Thread.sleep(50);
+		long blockedFor = System.nanoTime() - blockedSince;
+		blocked.countDown();
+		queued.get();
+		singleThread.shutdown();
+
+		then(Long.valueOf(queueWaitTag.get()))
+				.isGreaterThanOrEqualTo(TimeUnit.NANOSECONDS.toMicros(blockedFor));
+		then(recorded).hasSize(2);
+		then(recorded.get(0)[1]).isGreaterThanOrEqualTo(blockedFor);
+		then(recorded.get(1)[0]).isGreaterThanOrEqualTo(blockedFor);
+	}
+
 	private CompletableFuture<?>[] runnablesExecutedViaTraceManagerableExecutorService() {
 		List<CompletableFuture<?>> futures = new ArrayList<>();
 		for (int i = 0; i < TOTAL_THREADS; i++) {
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.cloud.sleuth.instrument.async;
+
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinTask;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
+import org.springframework.cloud.sleuth.util.ArrayListSpanAccumulator;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class TraceableForkJoinPoolTests {
+
+	ArrayListSpanAccumulator accumulator = new ArrayListSpanAccumulator();
+	Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), new NoOpSpanLogger(), this.accumulator, new TraceKeys());
+	Queue<Span> seenSpans = new ConcurrentLinkedQueue<>();
+	TraceableForkJoinPool pool;
+
+	@After
+	public void tearDown() {
+		if (this.pool != null) {
+			this.pool.shutdown();
+		}
+		TestSpanContextHolder.removeCurrentSpan();
+	}
+
+	@Test
+	public void should_pass_the_span_of_the_submitter_to_all_subtasks() {
+		this.pool = new TraceableForkJoinPool(4, this.tracer, new TraceKeys(),
+				new DefaultSpanNamer());
+		Span span = this.tracer.createSpan("batch");
+
+		Long sum = this.pool.invoke(new Sum(0, 1000));
+		this.tracer.close(span);
+
+		then(sum).isEqualTo(499500L);
+		then(this.seenSpans).hasSize(255);
+		then(this.seenSpans).allMatch(seen -> seen.getSpanId() == span.getSpanId());
+		then(this.accumulator.getSpans()).hasSize(1);
+	}
+
+	@Test
+	public void should_aggregate_subtasks_in_a_single_span() {
+		this.pool = new TraceableForkJoinPool(4, this.tracer, new TraceKeys(),
+				new DefaultSpanNamer(), true);
+		Span span = this.tracer.createSpan("batch");
+
+		this.pool.invoke(new Sum(0, 1000));
+		this.tracer.close(span);
+
+		then(this.accumulator.getSpans()).hasSize(2);
+		Span forkJoin = this.accumulator.getSpans().get(0);
+		then(forkJoin.getName()).isEqualTo("fork-join");
+		then(forkJoin.getParents()).containsExactly(span.getSpanId());
+		then(forkJoin.tags()).containsEntry("fork-join.tasks", "127");
+		then(Long.valueOf(forkJoin.tags().get("fork-join.busy-time")))
+				.isPositive()
+				.isLessThanOrEqualTo(4 * forkJoin.getAccumulatedMicros());
+		then(this.seenSpans).allMatch(seen -> seen.getSpanId() == forkJoin.getSpanId());
+	}
+
+	@Test
+	public void should_start_a_local_component_span_when_submitted_without_a_span() {
+		this.pool = new TraceableForkJoinPool(4, this.tracer, new TraceKeys(),
+				new DefaultSpanNamer());
+
+		this.pool.invoke(new Sum(0, 1000));
+
+		then(this.accumulator.getSpans()).hasSize(1);
+		Span forkJoin = this.accumulator.getSpans().get(0);
+		then(forkJoin.tags()).containsEntry(Span.SPAN_LOCAL_COMPONENT_TAG_NAME, "async");
+		then(this.seenSpans).allMatch(seen -> seen.getSpanId() == forkJoin.getSpanId());
+	}
+
+	@Test
+	public void should_keep_the_span_of_the_thread_when_a_nested_invoke_runs_inline() {
+		this.pool = new TraceableForkJoinPool(1, this.tracer, new TraceKeys(),
+				new DefaultSpanNamer());
+		Span span = this.tracer.createSpan("batch");
+
+		this.pool.invoke(ForkJoinTask.adapt(() -> {
+			this.pool.invoke(ForkJoinTask.adapt(this::seeCurrentSpan));
+			seeCurrentSpan();
+			Span nested = this.tracer.createSpan("nested");
+			this.pool.invoke(ForkJoinTask.adapt(this::seeCurrentSpan));
+			this.tracer.close(nested);
+			seeCurrentSpan();
+		}));
+		this.tracer.close(span);
+
+		then(this.seenSpans).hasSize(4);
+		then(this.seenSpans).element(0).isEqualTo(span);
+		then(this.seenSpans).element(1).isEqualTo(span);
+		then(this.seenSpans).element(2).isNotEqualTo(span);
+		then(this.seenSpans).element(3).isEqualTo(span);
+		then(this.tracer.getCurrentSpan()).isNull();
+	}
+
+	@Test
+	public void should_put_back_the_span_of_the_thread_that_runs_a_task_inline() {
+		Span creator = this.tracer.createSpan("creator");
+		ForkJoinTask<Span> task = new SpanContinuingForkJoinTask<>(this.tracer,
+				new TraceKeys(), new DefaultSpanNamer(),
+				ForkJoinTask.adapt(() -> this.tracer.getCurrentSpan()), false);
+		this.tracer.close(creator);
+
+		Span runner = this.tracer.createSpan("runner");
+		Span seen = task.invoke();
+
+		then(seen).isEqualTo(creator);
+		then(this.tracer.getCurrentSpan()).isEqualTo(runner);
+		this.tracer.close(runner);
+	}
+
+	private void seeCurrentSpan() {
+		this.seenSpans.add(this.tracer.getCurrentSpan());
+	}
+
+	@SuppressWarnings("serial")
+	class Sum extends TraceRecursiveTask<Long> {
+		final int from;
+		final int to;
+
+		Sum(int from, int to) {
+			super(TraceableForkJoinPoolTests.this.tracer);
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected Long compute() {
+			TraceableForkJoinPoolTests.this.seenSpans.add(
+					TraceableForkJoinPoolTests.this.tracer.getCurrentSpan());
+			if (this.to - this.from <= 10) {
+				long sum = 0;
+				for (int i = this.from; i < this.to; i++) {
+					sum += i;
+				}
+				return sum;
+			}
+			int middle = (this.from + this.to) / 2;
+			Sum left = new Sum(this.from, middle);
+			Sum right = new Sum(middle, this.to);
+			left.fork();
+			return right.compute() + left.join();
+		}
+	}
+}
@@ -16,8 +16,13 @@
 
 package org.springframework.cloud.sleuth.instrument.async;
 
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
@@ -26,10 +31,17 @@ import org.mockito.BDDMockito;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.NoOpSpanReporter;
 import org.springframework.cloud.sleuth.SpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
 import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
 
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.instanceOf;
 import static org.mockito.BDDMockito.then;
 import static org.mockito.Matchers.any;
@@ -96,6 +108,28 @@ public class TraceableScheduledExecutorServiceTest {
 				anyLong(), anyLong(), any(TimeUnit.class));
 	}
 
+	@Test
+	public void should_sample_one_in_n_runs_of_a_periodic_task_without_a_span()
+			throws Exception {
+		Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+				new DefaultSpanNamer(), new NoOpSpanLogger(), new NoOpSpanReporter(),
+				new TraceKeys());
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		TraceableScheduledExecutorService traceExecutor = new TraceableScheduledExecutorService(
+				executor, tracer, new TraceKeys(), new DefaultSpanNamer());
+		traceExecutor.setPeriodicSampleEvery(3);
+		List<Boolean> sampled = new CopyOnWriteArrayList<>();
+
+		ScheduledFuture<?> future = traceExecutor.scheduleAtFixedRate(
+				() -> sampled.add(tracer.getCurrentSpan().isExportable()), 0L, 1L,
+				TimeUnit.MILLISECONDS);
+		await().until(() -> sampled.size() >= 6);
+		future.cancel(false);
+		executor.shutdown();
+
+		assertThat(sampled.subList(0, 6)).containsExactly(true, false, false, true, false, false);
+	}
+
 	Runnable aRunnable() {
 		return () -> {
 		};
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.instrument.hystrix;
+
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.Tracer;
+import org.springframework.cloud.sleuth.log.NoOpSpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+import org.springframework.cloud.sleuth.trace.DefaultTracer;
+import org.springframework.cloud.sleuth.trace.TestSpanContextHolder;
+import org.springframework.cloud.sleuth.util.ArrayListSpanAccumulator;
+
+import com.netflix.hystrix.HystrixCommand;
+import com.netflix.hystrix.HystrixCommandKey;
+import com.netflix.hystrix.HystrixCommandProperties;
+import com.netflix.hystrix.HystrixInvokable;
+import com.netflix.hystrix.strategy.HystrixPlugins;
+import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static com.netflix.hystrix.HystrixCommand.Setter.withGroupKey;
+import static com.netflix.hystrix.HystrixCommandGroupKey.Factory.asKey;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SleuthHystrixCommandExecutionHookTests {
+
+	ArrayListSpanAccumulator spanReporter = new ArrayListSpanAccumulator();
+	Tracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), new NoOpSpanLogger(), this.spanReporter, new TraceKeys());
+	TraceKeys traceKeys = new TraceKeys();
+
+	@Before
+	@After
+	public void setup() {
+		HystrixPlugins.reset();
+		TestSpanContextHolder.removeCurrentSpan();
+		this.spanReporter.getSpans().clear();
+	}
+
+	@Test
+	public void should_log_run_events_and_queue_wait_on_the_continued_span() {
+		new SleuthHystrixConcurrencyStrategy(this.tracer, this.traceKeys, true);
+		Span span = this.tracer.createSpan("caller");
+
+		new TestCommand("continued", false).execute();
+
+		then(events(span)).containsExactly(SleuthHystrixCommandExecutionHook.THREAD_START,
+				SleuthHystrixCommandExecutionHook.RUN_START,
+				SleuthHystrixCommandExecutionHook.RUN_END);
+		then(span.tags()).containsKey("queueWait");
+		this.tracer.close(span);
+	}
+
+	@Test
+	public void should_add_queue_wait_to_the_span_created_for_the_command() {
+		new SleuthHystrixConcurrencyStrategy(this.tracer, this.traceKeys, true);
+
+		new TestCommand("created", false).execute();
+
+		await().until(() -> then(this.spanReporter.getSpans()).hasSize(1));
+		Span hystrixSpan = this.spanReporter.getSpans().stream()
+				.filter(span -> span.getName().equals("hystrix")).findFirst().get();
+		then(hystrixSpan.tags()).containsKey("queueWait");
+		then(events(hystrixSpan)).containsExactly(
+				SleuthHystrixCommandExecutionHook.THREAD_START,
+				SleuthHystrixCommandExecutionHook.RUN_START,
+				SleuthHystrixCommandExecutionHook.RUN_END);
+	}
+
+	@Test
+	public void should_log_short_circuit_and_fallback_events() {
+		new SleuthHystrixConcurrencyStrategy(this.tracer, this.traceKeys, true);
+		Span span = this.tracer.createSpan("caller");
+
+		String result = new TestCommand("shortCircuited", true).execute();
+
+		then(result).isEqualTo("fallback");
+		then(events(span)).containsExactly(
+				SleuthHystrixCommandExecutionHook.SHORT_CIRCUITED,
+				SleuthHystrixCommandExecutionHook.FALLBACK_START,
+				SleuthHystrixCommandExecutionHook.FALLBACK_END);
+		this.tracer.close(span);
+	}
+
+	@Test
+	public void should_pass_callbacks_to_the_previously_registered_hook() {
+		StartCountingHook previous = new StartCountingHook();
+		HystrixPlugins.getInstance().registerCommandExecutionHook(previous);
+		new SleuthHystrixConcurrencyStrategy(this.tracer, this.traceKeys, true);
+
+		new TestCommand("delegating", false).execute();
+
+		then(HystrixPlugins.getInstance().getCommandExecutionHook())
+				.isInstanceOf(SleuthHystrixCommandExecutionHook.class);
+		then(previous.starts).isEqualTo(1);
+	}
+
+	private static java.util.List<String> events(Span span) {
+		return span.logs().stream().map(Log::getEvent).collect(Collectors.toList());
+	}
+
+	static class TestCommand extends HystrixCommand<String> {
+
+		TestCommand(String commandKey, boolean forceOpen) {
+			super(withGroupKey(asKey("group"))
+					.andCommandKey(HystrixCommandKey.Factory.asKey(commandKey))
+					.andCommandPropertiesDefaults(HystrixCommandProperties.Setter()
+							.withCircuitBreakerForceOpen(forceOpen)));
+		}
+
+		@Override
+		protected String run() throws Exception {
+			return "run";
+		}
+
+		@Override
+		protected String getFallback() {
+			return "fallback";
+		}
+	}
+
+	static class StartCountingHook extends HystrixCommandExecutionHook {
+		int starts;
+
+		@Override
+		public <T> void onStart(HystrixInvokable<T> commandInstance) {
+			this.starts++;
+		}
+	}
+}
@@ -33,6 +33,7 @@ import org.springframework.cloud.sleuth.trace.DefaultTracer;
 import org.springframework.cloud.sleuth.util.ArrayListSpanAccumulator;
 import org.springframework.cloud.sleuth.util.ExceptionUtils;
 
+import com.netflix.hystrix.HystrixInvokable;
 import com.netflix.hystrix.strategy.HystrixPlugins;
 import com.netflix.hystrix.strategy.concurrency.HystrixConcurrencyStrategy;
 import com.netflix.hystrix.strategy.eventnotifier.HystrixEventNotifier;
@@ -40,6 +41,7 @@ import com.netflix.hystrix.strategy.executionhook.HystrixCommandExecutionHook;
 import com.netflix.hystrix.strategy.metrics.HystrixMetricsPublisher;
 import com.netflix.hystrix.strategy.properties.HystrixPropertiesStrategy;
 
+import static org.mockito.Mockito.mock;
 import static org.springframework.cloud.sleuth.assertions.SleuthAssertions.then;
 /**
  * @author Marcin Grzejszczak
@@ -61,15 +63,20 @@ public class SleuthHystrixConcurrencyStrategyTest {
 
 	@Test
 	public void should_not_override_existing_custom_strategies() {
-		HystrixPlugins.getInstance().registerCommandExecutionHook(new MyHystrixCommandExecutionHook());
+		MyHystrixCommandExecutionHook commandExecutionHook = new MyHystrixCommandExecutionHook();
+		HystrixPlugins.getInstance().registerCommandExecutionHook(commandExecutionHook);
 		HystrixPlugins.getInstance().registerEventNotifier(new MyHystrixEventNotifier());
 		HystrixPlugins.getInstance().registerMetricsPublisher(new MyHystrixMetricsPublisher());
 		HystrixPlugins.getInstance().registerPropertiesStrategy(new MyHystrixPropertiesStrategy());
 
 		new SleuthHystrixConcurrencyStrategy(this.tracer, this.traceKeys);
 
-		then(HystrixPlugins
-				.getInstance().getCommandExecutionHook()).isExactlyInstanceOf(MyHystrixCommandExecutionHook.class);
+		// the execution events hook passes every callback on to the existing hook
+		HystrixCommandExecutionHook registeredHook = HystrixPlugins.getInstance()
+				.getCommandExecutionHook();
+		then(registeredHook).isExactlyInstanceOf(SleuthHystrixCommandExecutionHook.class);
+		registeredHook.onStart(mock(HystrixInvokable.class));
+		then(commandExecutionHook.starts).isEqualTo(1);
 		then(HystrixPlugins.getInstance()
 				.getEventNotifier()).isExactlyInstanceOf(MyHystrixEventNotifier.class);
 		then(HystrixPlugins.getInstance()
@@ -154,7 +161,13 @@ public class SleuthHystrixConcurrencyStrategyTest {
 				.hasATag(asyncKey, "bar");
 	}
 
-	static class MyHystrixCommandExecutionHook extends HystrixCommandExecutionHook {}
+	static class MyHystrixCommandExecutionHook extends HystrixCommandExecutionHook {
+		int starts;
+
+		@Override public <T> void onStart(HystrixInvokable<T> commandInstance) {
+			this.starts++;
+		}
+	}
 	@SuppressWarnings("unchecked")
 	static class MyHystrixConcurrencyStrategy extends HystrixConcurrencyStrategy {
 		@Override public <T> Callable<T> wrapCallable(Callable<T> callable) {
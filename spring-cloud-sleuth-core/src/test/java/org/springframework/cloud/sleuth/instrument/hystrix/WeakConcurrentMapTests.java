@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.hystrix;
+
+import org.junit.Test;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class WeakConcurrentMapTests {
+
+	WeakConcurrentMap<Object, String> map = new WeakConcurrentMap<>();
+
+	@Test
+	public void should_compare_keys_by_identity() {
+		String key = new String("key");
+		this.map.put(key, "value");
+
+		then(this.map.get(key)).isEqualTo("value");
+		then(this.map.get(new String("key"))).isNull();
+		then(this.map.remove(key)).isEqualTo("value");
+		then(this.map.get(key)).isNull();
+	}
+
+	@Test
+	public void should_drop_the_entries_of_collected_keys() {
+		Object kept = new Object();
+		this.map.put(kept, "kept");
+		this.map.put(new Object(), "collected");
+
+		await().until(() -> {
+			System.gc();
+			return this.map.size() == 1;
+		});
+		then(this.map.get(kept)).isEqualTo("kept");
+	}
+}
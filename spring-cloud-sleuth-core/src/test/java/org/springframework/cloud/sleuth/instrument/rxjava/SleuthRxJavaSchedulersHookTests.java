@@ -94,6 +94,23 @@ public class SleuthRxJavaSchedulersHookTests {
 		BDDMockito.then(this.tracer).should(never()).continueSpan(any());
 	}
 
+	@Test
+	public void should_match_the_name_of_a_thread_only_once()
+			throws ExecutionException, InterruptedException {
+		SleuthRxJavaSchedulersHook.ThreadsToIgnore threadsToIgnore =
+				new SleuthRxJavaSchedulersHook.ThreadsToIgnore(
+						Collections.singletonList("^MyCustomThread.*$"));
+
+		Future<Boolean> ignored = executorService().submit(() -> {
+			boolean ignoredBeforeRename = threadsToIgnore.isCurrentThreadIgnored();
+			Thread.currentThread().setName("Renamed");
+			return ignoredBeforeRename && threadsToIgnore.isCurrentThreadIgnored();
+		});
+
+		then(ignored.get()).isTrue();
+		then(threadsToIgnore.isCurrentThreadIgnored()).isFalse();
+	}
+
 	private ExecutorService executorService() {
 		ThreadFactory threadFactory = r -> {
 			Thread thread = new Thread(r);
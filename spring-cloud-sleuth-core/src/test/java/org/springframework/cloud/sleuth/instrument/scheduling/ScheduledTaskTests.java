@@ -0,0 +1,135 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.instrument.scheduling;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Sampler;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.sampler.NeverSampler;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class ScheduledTaskTests {
+
+	@Test
+	public void should_use_the_default_sampler_and_report_nothing_extra_for_all_runs() {
+		ScheduledTask task = task(policy(SleuthSchedulingProperties.Mode.ALL));
+
+		then(task.sampler()).isNull();
+		then(task.finished(run(0, 5000), false)).isNull();
+	}
+
+	@Test
+	public void should_sample_one_in_n_runs() {
+		SleuthSchedulingProperties.Policy policy = policy(SleuthSchedulingProperties.Mode.SAMPLE);
+		policy.setSampleEvery(3);
+		ScheduledTask task = task(policy);
+
+		List<Boolean> sampled = IntStream.range(0, 6)
+				.mapToObj(i -> task.sampler().isSampled(run(0, 1)))
+				.collect(Collectors.toList());
+
+		then(sampled).containsExactly(true, false, false, true, false, false);
+	}
+
+	@Test
+	public void should_report_only_slow_runs() {
+		SleuthSchedulingProperties.Policy policy = policy(SleuthSchedulingProperties.Mode.SLOW);
+		policy.setSlowerThan(100);
+		ScheduledTask task = task(policy);
+
+		Sampler sampler = task.sampler();
+		Span fast = task.finished(run(1000, 1050), false);
+		Span slow = task.finished(run(1000, 1150), false);
+
+		then(sampler).isSameAs(NeverSampler.INSTANCE);
+		then(fast).isNull();
+		then(slow.isExportable()).isTrue();
+		then(slow.getAccumulatedMicros()).isEqualTo(150_000L);
+	}
+
+	@Test
+	public void should_report_a_summary_of_the_runs_once_per_interval() {
+		SleuthSchedulingProperties.Policy policy = policy(SleuthSchedulingProperties.Mode.AGGREGATE);
+		policy.setAggregationInterval(1000);
+		ScheduledTask task = task(policy);
+
+		then(task.finished(run(1000, 1010), false)).isNull();
+		then(task.finished(run(1500, 1530), true)).isNull();
+		Span summary = task.finished(run(2000, 2020), false);
+
+		then(summary.isExportable()).isTrue();
+		then(summary.getName()).isEqualTo("poll");
+		then(summary.getBegin()).isEqualTo(1000L);
+		then(summary.getEnd()).isEqualTo(2020L);
+		then(summary.tags())
+				.containsEntry("lc", "scheduled")
+				.containsEntry(ScheduledTask.RUNS_TAG, "3")
+				.containsEntry(ScheduledTask.ERRORS_TAG, "1")
+				.containsEntry(ScheduledTask.AVERAGE_DURATION_TAG, "20000")
+				.containsEntry(ScheduledTask.MAX_DURATION_TAG, "30000");
+		then(task.finished(run(2100, 2110), false)).isNull();
+	}
+
+	@Test
+	public void should_flush_the_summary_of_a_window_that_is_not_over() {
+		SleuthSchedulingProperties.Policy policy = policy(SleuthSchedulingProperties.Mode.AGGREGATE);
+		policy.setAggregationInterval(1000);
+		ScheduledTask task = task(policy);
+
+		then(task.flush()).isNull();
+		then(task.finished(run(1000, 1010), false)).isNull();
+		then(task.finished(run(1500, 1530), false)).isNull();
+		Span summary = task.flush();
+
+		then(summary.getBegin()).isEqualTo(1000L);
+		then(summary.getEnd()).isEqualTo(1530L);
+		then(summary.getSpanId()).isEqualTo(1500L);
+		then(summary.tags()).containsEntry(ScheduledTask.RUNS_TAG, "2");
+		then(task.flush()).isNull();
+	}
+
+	@Test
+	public void should_not_apply_the_policy_to_runs_within_a_span() {
+		SleuthSchedulingProperties.Policy policy = policy(SleuthSchedulingProperties.Mode.SLOW);
+		policy.setSlowerThan(0);
+		ScheduledTask task = task(policy);
+
+		Span child = Span.builder().begin(1000).end(2000).traceId(1L).spanId(2L).parent(1L).build();
+
+		then(task.finished(child, false)).isNull();
+	}
+
+	private SleuthSchedulingProperties.Policy policy(SleuthSchedulingProperties.Mode mode) {
+		SleuthSchedulingProperties.Policy policy = new SleuthSchedulingProperties.Policy();
+		policy.setMode(mode);
+		return policy;
+	}
+
+	private ScheduledTask task(SleuthSchedulingProperties.Policy policy) {
+		return new ScheduledTask("poll", Collections.singletonMap("lc", "scheduled"), policy);
+	}
+
+	private Span run(long begin, long end) {
+		return Span.builder().name("poll").begin(begin).end(end).traceId(begin).spanId(begin).build();
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.GaugeService;
+import org.springframework.boot.actuate.metrics.buffer.BufferCounterService;
+import org.springframework.boot.actuate.metrics.buffer.CounterBuffers;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
+import org.springframework.boot.actuate.metrics.writer.Delta;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class CounterServiceBasedSpanMetricReporterTests {
+
+	CounterBuffers buffers = new CounterBuffers();
+	CounterService counterService = mock(CounterService.class);
+	CounterServiceBasedSpanMetricReporter reporter;
+
+	@After
+	public void close() {
+		if (this.reporter != null) {
+			this.reporter.destroy();
+		}
+	}
+
+	@Test
+	public void should_increment_counter_once_per_span_without_counter_writer() {
+		this.reporter = new CounterServiceBasedSpanMetricReporter(
+				"counter.span.accepted", "counter.span.dropped", this.counterService);
+
+		this.reporter.incrementAcceptedSpans(3);
+		this.reporter.incrementDroppedSpans(2);
+
+		verify(this.counterService, times(3)).increment("counter.span.accepted");
+		verify(this.counterService, times(2)).increment("counter.span.dropped");
+	}
+
+	@Test
+	public void should_publish_spans_as_single_delta() {
+		CounterWriter counterWriter = mock(CounterWriter.class);
+		this.reporter = new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+				"counter.span.dropped", this.counterService, null, null, counterWriter, 0);
+
+		this.reporter.incrementAcceptedSpans(1000);
+
+		ArgumentCaptor<Delta> delta = ArgumentCaptor.forClass(Delta.class);
+		verify(counterWriter).increment(delta.capture());
+		then(delta.getValue().getName()).isEqualTo("counter.span.accepted");
+		then(delta.getValue().getValue()).isEqualTo(1000L);
+		verifyZeroInteractions(this.counterService);
+	}
+
+	@Test
+	public void should_prefix_the_names_written_to_the_counter_writer() {
+		this.reporter = new CounterServiceBasedSpanMetricReporter("span.accepted",
+				"span.dropped", this.counterService, null, null,
+				new CounterBuffersCounterWriter(this.buffers), 0);
+
+		this.reporter.incrementAcceptedSpans(5);
+
+		then(count("counter.span.accepted")).isEqualTo(5L);
+		verifyZeroInteractions(this.counterService);
+	}
+
+	@Test
+	public void should_submit_the_sum_of_an_interval_to_the_gauge_service_without_counter_writer() {
+		GaugeService gaugeService = mock(GaugeService.class);
+		this.reporter = new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+				"counter.span.dropped", this.counterService, "gauge.span.queued",
+				gaugeService, null, 60_000);
+
+		this.reporter.incrementAcceptedSpans(10);
+		this.reporter.incrementAcceptedSpans(20);
+		this.reporter.destroy();
+
+		verify(gaugeService).submit("counter.span.accepted", 30.0);
+		verifyZeroInteractions(this.counterService);
+	}
+
+	@Test
+	public void should_publish_counts_periodically() {
+		this.reporter = reporter(10);
+
+		this.reporter.incrementAcceptedSpans(10);
+		this.reporter.incrementAcceptedSpans(20);
+		this.reporter.incrementDroppedSpans(5);
+
+		await().until(() -> then(count("counter.span.accepted")).isEqualTo(30L));
+		await().until(() -> then(count("counter.span.dropped")).isEqualTo(5L));
+	}
+
+	@Test
+	public void should_publish_remaining_counts_on_destroy() {
+		this.reporter = reporter(60_000);
+
+		this.reporter.incrementAcceptedSpans(10);
+		this.reporter.incrementAcceptedSpans(20);
+
+		then(count("counter.span.accepted")).isZero();
+
+		this.reporter.destroy();
+
+		then(count("counter.span.accepted")).isEqualTo(30L);
+	}
+
+	@Test
+	public void should_prefix_metric_names_like_the_counter_service() {
+		this.reporter = new CounterServiceBasedSpanMetricReporter("span.accepted",
+				"span.dropped", new BufferCounterService(this.buffers), null, null, null, 0);
+
+		this.reporter.incrementAcceptedSpans(2);
+
+		then(count("counter.span.accepted")).isEqualTo(2L);
+	}
+
+	private CounterServiceBasedSpanMetricReporter reporter(long publishInterval) {
+		return new CounterServiceBasedSpanMetricReporter("counter.span.accepted",
+				"counter.span.dropped", new BufferCounterService(this.buffers), null, null,
+				new CounterBuffersCounterWriter(this.buffers), publishInterval);
+	}
+
+	private Long count(String name) {
+		final long[] count = new long[1];
+		this.buffers.forEach(input -> input.equals(name), (key, buffer) -> count[0] = buffer.getValue());
+		return count[0];
+	}
+}
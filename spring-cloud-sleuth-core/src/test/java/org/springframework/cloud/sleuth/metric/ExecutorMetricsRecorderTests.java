@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class ExecutorMetricsRecorderTests {
+
+	ExecutorMetricsRecorder recorder = new ExecutorMetricsRecorder("executor", 60_000L, 2);
+
+	@Test
+	public void should_record_queue_wait_and_run_time_per_executor() {
+		ExecutorMetrics io = this.recorder.executor("io");
+		io.recordTask(millis(10), millis(100));
+		io.recordTask(millis(30), millis(100));
+		this.recorder.executor("cpu").recordTask(0, millis(5));
+
+		Map<String, Number> snapshot = this.recorder.snapshot();
+
+		then(snapshot.get("executor.io.tasks")).isEqualTo(2L);
+		then(snapshot.get("executor.io.queue-wait.p50").doubleValue()).isCloseTo(10d, offset(0.5d));
+		then(snapshot.get("executor.io.queue-wait.max").doubleValue()).isCloseTo(30d, offset(0.5d));
+		then(snapshot.get("executor.io.run.p99").doubleValue()).isCloseTo(100d, offset(1d));
+		then(snapshot.get("executor.cpu.tasks")).isEqualTo(1L);
+		then(snapshot.get("executor.cpu.queue-wait.max").doubleValue()).isEqualTo(0d);
+	}
+
+	@Test
+	public void should_return_the_same_metrics_for_the_same_executor() {
+		then(this.recorder.executor("io")).isSameAs(this.recorder.executor("io"));
+		then(this.recorder.executor(null)).isSameAs(
+				this.recorder.executor(ExecutorMetricsRecorder.UNNAMED));
+	}
+
+	@Test
+	public void should_count_tasks_over_snapshots_and_report_times_since_previous_one() {
+		ExecutorMetrics io = this.recorder.executor("io");
+		io.recordTask(millis(10), millis(100));
+		this.recorder.snapshot();
+		io.recordTask(millis(10), millis(100));
+		this.recorder.snapshot();
+
+		Map<String, Number> snapshot = this.recorder.snapshot();
+
+		then(snapshot.get("executor.io.tasks")).isEqualTo(2L);
+		then(snapshot).doesNotContainKey("executor.io.run.p50");
+	}
+
+	private static long millis(long millis) {
+		return TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+}
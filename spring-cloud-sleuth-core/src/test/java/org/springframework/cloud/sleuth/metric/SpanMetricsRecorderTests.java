@@ -0,0 +1,88 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.Assertions.offset;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SpanMetricsRecorderTests {
+
+	SpanMetricsRecorder recorder = new SpanMetricsRecorder("span", 2, 60_000L, 2);
+
+	@Test
+	public void should_record_requests_errors_and_latency_per_span_name() {
+		this.recorder.record(span("get", 10, null));
+		this.recorder.record(span("get", 30, "500"));
+		this.recorder.record(span("post", 20, null));
+
+		Map<String, Number> snapshot = this.recorder.snapshot();
+
+		then(snapshot.get("span.get.requests")).isEqualTo(2L);
+		then(snapshot.get("span.get.errors")).isEqualTo(1L);
+		then(snapshot.get("span.get.latency.p50").doubleValue()).isCloseTo(10d, offset(0.5d));
+		then(snapshot.get("span.get.latency.max").doubleValue()).isCloseTo(30d, offset(0.5d));
+		then(snapshot.get("span.post.requests")).isEqualTo(1L);
+		then(snapshot.get("span.post.errors")).isEqualTo(0L);
+	}
+
+	@Test
+	public void should_report_latency_of_spans_finished_since_previous_snapshot() {
+		this.recorder.record(span("get", 10, null));
+		this.recorder.snapshot();
+
+		Map<String, Number> snapshot = this.recorder.snapshot();
+
+		then(snapshot.get("span.get.requests")).isEqualTo(1L);
+		then(snapshot).doesNotContainKey("span.get.latency.p50");
+	}
+
+	@Test
+	public void should_record_spans_beyond_the_max_names_as_other() {
+		this.recorder.record(span("a", 1, null));
+		this.recorder.record(span("b", 1, null));
+		this.recorder.record(span("c", 1, null));
+		this.recorder.record(span("d", 1, null));
+
+		then(this.recorder.snapshot()).containsKeys("span.a.requests", "span.b.requests")
+				.containsEntry("span.other.requests", 2L)
+				.doesNotContainKeys("span.c.requests", "span.d.requests");
+	}
+
+	@Test
+	public void should_count_spans_with_error_tag_as_errors() {
+		Span span = span("get", 1, null);
+		span.tag(Span.SPAN_ERROR_TAG_NAME, "boom");
+
+		this.recorder.record(span);
+
+		then(this.recorder.snapshot().get("span.get.errors")).isEqualTo(1L);
+	}
+
+	private Span span(String name, long millis, String status) {
+		Span span = Span.builder().name(name).traceId(1L).spanId(1L).begin(1000L).end(1000L + millis)
+				.exportable(false).build();
+		if (status != null) {
+			span.tag("http.status_code", status);
+		}
+		return span;
+	}
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.metric;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.actuate.autoconfigure.MetricRepositoryAutoConfiguration;
+import org.springframework.boot.actuate.metrics.CounterService;
+import org.springframework.boot.actuate.metrics.reader.MetricReader;
+import org.springframework.boot.actuate.metrics.writer.CounterWriter;
+import org.springframework.boot.actuate.metrics.writer.Delta;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import static org.assertj.core.api.BDDAssertions.then;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class TraceMetricsAutoConfigurationTests {
+
+	AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+	@After
+	public void close() {
+		this.context.close();
+	}
+
+	@Test
+	public void should_count_spans_in_the_buffers_of_the_default_counter_service() {
+		this.context.register(MetricRepositoryAutoConfiguration.class,
+				TraceMetricsAutoConfiguration.class);
+		this.context.refresh();
+
+		this.context.getBean(SpanMetricReporter.class).incrementAcceptedSpans(1000);
+
+		then(this.context.getBean(MetricReader.class).findOne("counter.span.accepted")
+				.getValue()).isEqualTo(1000L);
+	}
+
+	@Test
+	public void should_write_spans_to_the_counter_writer_as_a_single_delta() {
+		this.context.register(CounterWriterConfig.class,
+				TraceMetricsAutoConfiguration.class);
+		this.context.refresh();
+
+		this.context.getBean(SpanMetricReporter.class).incrementAcceptedSpans(1000);
+
+		ArgumentCaptor<Delta> delta = ArgumentCaptor.forClass(Delta.class);
+		verify(this.context.getBean(CounterWriter.class)).increment(delta.capture());
+		then(delta.getValue().getValue()).isEqualTo(1000L);
+		verifyZeroInteractions(this.context.getBean(CounterService.class));
+	}
+
+	@Configuration
+	static class CounterWriterConfig {
+
+		@Bean
+		CounterService counterService() {
+			return mock(CounterService.class);
+		}
+
+		@Bean
+		CounterWriter counterWriter() {
+			return mock(CounterWriter.class);
+		}
+	}
+}
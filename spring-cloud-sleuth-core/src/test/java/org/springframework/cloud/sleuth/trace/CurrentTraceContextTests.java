@@ -0,0 +1,85 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.trace;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.cloud.sleuth.DefaultSpanNamer;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.TraceKeys;
+import org.springframework.cloud.sleuth.log.SpanLogger;
+import org.springframework.cloud.sleuth.sampler.AlwaysSampler;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class CurrentTraceContextTests {
+
+	InheritableThreadLocalCurrentTraceContext inheritable =
+			new InheritableThreadLocalCurrentTraceContext();
+	DefaultTracer tracer = new DefaultTracer(new AlwaysSampler(), new Random(),
+			new DefaultSpanNamer(), Mockito.mock(SpanLogger.class),
+			Mockito.mock(SpanReporter.class), false, new TraceKeys(), this.inheritable);
+
+	@After
+	public void clean() {
+		this.inheritable.set(null);
+		TestSpanContextHolder.removeCurrentSpan();
+	}
+
+	@Test
+	public void should_restore_the_previous_context_when_scope_gets_closed() {
+		Span span = this.tracer.createSpan("foo");
+
+		try (CurrentTraceContext.Scope scope = this.inheritable.newScope(span("bar"))) {
+			then(this.tracer.getCurrentSpan().getName()).isEqualTo("bar");
+		}
+
+		then(this.tracer.getCurrentSpan()).isEqualTo(span);
+		this.tracer.close(span);
+		then(this.tracer.isTracing()).isFalse();
+	}
+
+	@Test
+	public void should_pass_the_current_span_to_a_child_thread() throws Exception {
+		Span span = this.tracer.createSpan("foo");
+		AtomicReference<Span> spanInThread = new AtomicReference<>();
+
+		Thread thread = new Thread(() -> spanInThread.set(this.tracer.getCurrentSpan()));
+		thread.start();
+		thread.join();
+
+		then(spanInThread.get()).isEqualTo(span);
+		this.tracer.close(span);
+	}
+
+	@Test
+	public void should_not_share_the_context_with_the_default_tracer() {
+		Span span = this.tracer.createSpan("foo");
+
+		then(TestSpanContextHolder.isTracing()).isFalse();
+		this.tracer.close(span);
+	}
+
+	private Span span(String name) {
+		return Span.builder().name(name).traceId(1L).spanId(2L).build();
+	}
+}
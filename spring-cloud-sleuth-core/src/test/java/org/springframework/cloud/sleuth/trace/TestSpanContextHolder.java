@@ -27,14 +27,14 @@ import org.springframework.cloud.sleuth.Span;
 public class TestSpanContextHolder {
 
 	public static Span getCurrentSpan() {
-		return SpanContextHolder.getCurrentSpan();
+		return SpanContextHolder.DEFAULT.getCurrentSpan();
 	}
 
 	public static void removeCurrentSpan() {
-		SpanContextHolder.removeCurrentSpan();
+		SpanContextHolder.DEFAULT.removeCurrentSpan();
 	}
 
 	public static boolean isTracing() {
-		return SpanContextHolder.isTracing();
+		return SpanContextHolder.DEFAULT.isTracing();
 	}
 }
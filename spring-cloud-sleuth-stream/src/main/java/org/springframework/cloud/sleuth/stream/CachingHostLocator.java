@@ -0,0 +1,99 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.context.embedded.EmbeddedServletContainerInitializedEvent;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.Assert;
+
+/**
+ * {@link HostLocator} that remembers the hosts located by its delegate, so that the same
+ * {@link Host} instance is returned until the time to live passes or {@link #refresh()}
+ * is called. Hosts are cached per {@link Span#getProcessId() process id} of the span,
+ * since that is the only property of the span delegates use.
+ *
+ * The cache is refreshed when the embedded container is initialized, as the port may
+ * only be known then.
+ *
+ * @since 1.2.0
+ */
+public class CachingHostLocator implements HostLocator {
+
+	/** Key of spans without a process id */
+	private static final String NO_PROCESS_ID = "";
+
+	private final HostLocator delegate;
+	private final long ttlNanos;
+	private final ConcurrentMap<String, CachedHost> hosts = new ConcurrentHashMap<>();
+
+	/**
+	 * @param delegate locator of hosts that are not cached yet
+	 * @param ttl time in milliseconds after which a host is located again
+	 */
+	public CachingHostLocator(HostLocator delegate, long ttl) {
+		Assert.notNull(delegate, "delegate");
+		this.delegate = delegate;
+		this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+	}
+
+	@Override
+	public Host locate(Span span) {
+		String key = span.getProcessId() != null ? span.getProcessId() : NO_PROCESS_ID;
+		long now = nanoTime();
+		CachedHost cached = this.hosts.get(key);
+		if (cached == null || now - cached.locatedNanos >= this.ttlNanos) {
+			cached = new CachedHost(this.delegate.locate(span), now);
+			this.hosts.put(key, cached);
+		}
+		return cached.host;
+	}
+
+	/**
+	 * Drops all cached hosts, they are located again on next use
+	 */
+	public void refresh() {
+		this.hosts.clear();
+	}
+
+	@EventListener(EmbeddedServletContainerInitializedEvent.class)
+	public void grabPort(EmbeddedServletContainerInitializedEvent event) {
+		if (this.delegate instanceof ServerPropertiesHostLocator) {
+			((ServerPropertiesHostLocator) this.delegate).grabPort(event);
+		}
+		refresh();
+	}
+
+	// Visible for testing
+	long nanoTime() {
+		return System.nanoTime();
+	}
+
+	private static final class CachedHost {
+		final Host host;
+		final long locatedNanos;
+
+		CachedHost(Host host, long locatedNanos) {
+			this.host = host;
+			this.locatedNanos = locatedNanos;
+		}
+	}
+}
@@ -20,6 +20,8 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.nio.ByteBuffer;
 
+import org.springframework.util.ObjectUtils;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 
@@ -81,4 +83,25 @@ public class Host {
 	public void setPort(Integer port) {
 		this.port = port;
 	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof Host)) {
+			return false;
+		}
+		Host that = (Host) o;
+		return ObjectUtils.nullSafeEquals(this.serviceName, that.serviceName)
+				&& ObjectUtils.nullSafeEquals(this.address, that.address)
+				&& ObjectUtils.nullSafeEquals(this.port, that.port);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = ObjectUtils.nullSafeHashCode(this.serviceName);
+		h = 31 * h + ObjectUtils.nullSafeHashCode(this.address);
+		return 31 * h + ObjectUtils.nullSafeHashCode(this.port);
+	}
 }
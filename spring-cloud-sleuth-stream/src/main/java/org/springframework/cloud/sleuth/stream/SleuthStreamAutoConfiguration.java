@@ -27,6 +27,7 @@ import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.discovery.event.InstanceRegisteredEvent;
 import org.springframework.cloud.sleuth.Sampler;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
 import org.springframework.cloud.sleuth.metric.TraceMetricsAutoConfiguration;
@@ -36,6 +37,7 @@ import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.cloud.stream.config.ChannelBindingAutoConfiguration;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.Ordered;
 import org.springframework.integration.config.GlobalChannelInterceptor;
 import org.springframework.integration.scheduling.PollerMetadata;
@@ -76,14 +78,32 @@ public class SleuthStreamAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	public StreamSpanReporter sleuthStreamSpanReporter(HostLocator endpointLocator,
-			SpanMetricReporter spanMetricReporter) {
-		return new StreamSpanReporter(endpointLocator, spanMetricReporter);
+			SpanMetricReporter spanMetricReporter, SleuthStreamProperties sleuth) {
+		StreamSpanReporter reporter = sleuth.getBatch().isEnabled() ?
+				new StreamSpanReporter(endpointLocator, spanMetricReporter, sleuth.getBatch()) :
+				new StreamSpanReporter(endpointLocator, spanMetricReporter);
+		if (sleuth.getPartition().isEnabled()) {
+			reporter.setPartitionCount(sleuth.getPartition().getCount());
+		}
+		return reporter;
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	public SpansMessageConverter sleuthSpansMessageConverter() {
+		return new SpansMessageConverter();
 	}
 
 	@Bean(name = StreamSpanReporter.POLLER)
 	@ConditionalOnMissingBean(name = StreamSpanReporter.POLLER)
 	public PollerMetadata defaultStreamSpanReporterPoller(SleuthStreamProperties sleuth) {
 		PollerMetadata poller = new PollerMetadata();
+		if (sleuth.getBatch().isEnabled()) {
+			// the reporter decides when a batch is ready, so it's checked often
+			poller.setTrigger(new PeriodicTrigger(sleuth.getBatch().getCheckInterval()));
+			poller.setMaxMessagesPerPoll(-1);
+			return poller;
+		}
 		poller.setTrigger(new PeriodicTrigger(sleuth.getPoller().getFixedDelay()));
 		poller.setMaxMessagesPerPoll(sleuth.getPoller().getMaxMessagesPerPoll());
 		return poller;
@@ -99,9 +119,14 @@ public class SleuthStreamAutoConfiguration {
 		@Value("${spring.application.name:unknown}")
 		private String appName;
 
+		@Autowired
+		private SleuthStreamProperties sleuth;
+
 		@Bean
 		public HostLocator zipkinEndpointLocator() {
-			return new ServerPropertiesHostLocator(this.serverProperties, this.appName);
+			return new CachingHostLocator(
+					new ServerPropertiesHostLocator(this.serverProperties, this.appName),
+					this.sleuth.getHostCacheTtl());
 		}
 
 	}
@@ -119,12 +144,23 @@ public class SleuthStreamAutoConfiguration {
 		@Autowired(required = false)
 		private DiscoveryClient client;
 
+		@Autowired
+		private SleuthStreamProperties sleuth;
+
 		@Bean
 		public HostLocator zipkinEndpointLocator() {
-			if (this.client != null) {
-				return new DiscoveryClientHostLocator(this.client);
+			HostLocator locator = this.client != null ? new DiscoveryClientHostLocator(this.client)
+					: new ServerPropertiesHostLocator(this.serverProperties, this.appName);
+			return new CachingHostLocator(locator, this.sleuth.getHostCacheTtl());
+		}
+
+		@EventListener(InstanceRegisteredEvent.class)
+		public void refreshHost() {
+			// the instance may have registered with a different address or port
+			HostLocator locator = zipkinEndpointLocator();
+			if (locator instanceof CachingHostLocator) {
+				((CachingHostLocator) locator).refresh();
 			}
-			return new ServerPropertiesHostLocator(this.serverProperties, this.appName);
 		}
 
 	}
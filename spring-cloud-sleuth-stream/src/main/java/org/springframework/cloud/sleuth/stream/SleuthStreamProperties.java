@@ -29,6 +29,12 @@ public class SleuthStreamProperties {
 	private boolean enabled = true;
 	private String group = SleuthSink.INPUT;
 	private Poller poller = new Poller();
+	private Batch batch = new Batch();
+	private Partition partition = new Partition();
+	/**
+	 * Time (ms) the host of the spans is cached for. Default: 60000
+	 */
+	private long hostCacheTtl = 60_000L;
 
 	public boolean isEnabled() {
 		return this.enabled;
@@ -50,6 +56,30 @@ public class SleuthStreamProperties {
 		return this.poller;
 	}
 
+	public long getHostCacheTtl() {
+		return this.hostCacheTtl;
+	}
+
+	public void setHostCacheTtl(long hostCacheTtl) {
+		this.hostCacheTtl = hostCacheTtl;
+	}
+
+	public Batch getBatch() {
+		return this.batch;
+	}
+
+	public void setBatch(Batch batch) {
+		this.batch = batch;
+	}
+
+	public Partition getPartition() {
+		return this.partition;
+	}
+
+	public void setPartition(Partition partition) {
+		this.partition = partition;
+	}
+
 	public static class Poller {
 		/**
 		 * Fixed delay (ms). Default: 1000
@@ -77,4 +107,104 @@ public class SleuthStreamProperties {
 			this.maxMessagesPerPoll = maxMessagesPerPoll;
 		}
 	}
+
+	/**
+	 * When enabled, spans are sent as soon as a batch is full or its first span waited
+	 * for the linger time, instead of once per fixed delay of the poller
+	 */
+	public static class Batch {
+
+		private boolean enabled = false;
+
+		/**
+		 * Maximum number of spans in a message. Default: 500
+		 */
+		private int size = 500;
+
+		/**
+		 * Maximum estimated size of the spans in a message, in bytes. Default: 262144
+		 */
+		private long maxBytes = 256 * 1024;
+
+		/**
+		 * Maximum time (ms) a span waits for the batch to fill up. Default: 100
+		 */
+		private long linger = 100L;
+
+		/**
+		 * Interval (ms) of checking whether a batch is ready to be sent. Default: 10
+		 */
+		private long checkInterval = 10L;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getSize() {
+			return this.size;
+		}
+
+		public void setSize(int size) {
+			this.size = size;
+		}
+
+		public long getMaxBytes() {
+			return this.maxBytes;
+		}
+
+		public void setMaxBytes(long maxBytes) {
+			this.maxBytes = maxBytes;
+		}
+
+		public long getLinger() {
+			return this.linger;
+		}
+
+		public void setLinger(long linger) {
+			this.linger = linger;
+		}
+
+		public long getCheckInterval() {
+			return this.checkInterval;
+		}
+
+		public void setCheckInterval(long checkInterval) {
+			this.checkInterval = checkInterval;
+		}
+	}
+
+	/**
+	 * When enabled, each message contains spans of a single partition of trace ids, set
+	 * in the {@link StreamSpanReporter#PARTITION_HEADER} header. The output binding is
+	 * partitioned by that header, so all spans of a trace reach the same consumer.
+	 */
+	public static class Partition {
+
+		private boolean enabled = false;
+
+		/**
+		 * Number of partitions the trace ids are split into. Default: 1
+		 */
+		private int count = 1;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getCount() {
+			return this.count;
+		}
+
+		public void setCount(int count) {
+			this.count = count;
+		}
+	}
 }
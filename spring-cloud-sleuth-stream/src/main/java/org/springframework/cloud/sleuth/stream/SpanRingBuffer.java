@@ -0,0 +1,104 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Bounded, lock-free queue of spans for many producers and a single consumer.
+ *
+ * Producers claim a slot by moving the tail forward and then publish the span in it.
+ * The consumer takes spans from the head until it reaches a slot that is not published
+ * yet, so spans are never taken out of order.
+ *
+ * @since 1.2.0
+ */
+final class SpanRingBuffer {
+
+	private final AtomicReferenceArray<Span> slots;
+	private final int mask;
+	private final int capacity;
+	/** Index of the next slot claimed by a producer */
+	private final AtomicLong tail = new AtomicLong();
+	/** Index of the next slot read by the consumer */
+	private final AtomicLong head = new AtomicLong();
+
+	SpanRingBuffer(int capacity) {
+		if (capacity < 1) {
+			throw new IllegalArgumentException("Capacity must be positive but was " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		this.slots = new AtomicReferenceArray<>(size);
+		this.mask = size - 1;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Adds the span unless the buffer is full. Safe to call from any thread.
+	 *
+	 * @return {@code false} when the span was not added
+	 */
+	boolean offer(Span span) {
+		for (;;) {
+			long tail = this.tail.get();
+			if (tail - this.head.get() >= this.capacity) {
+				return false;
+			}
+			if (this.tail.compareAndSet(tail, tail + 1)) {
+				this.slots.lazySet((int) tail & this.mask, span);
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Moves as many spans as fit to the batch, starting at the given offset. Must only be
+	 * called by one thread at a time.
+	 *
+	 * @return the number of spans moved
+	 */
+	int drainTo(Span[] batch, int offset) {
+		long head = this.head.get();
+		int count = 0;
+		while (offset + count < batch.length) {
+			int index = (int) head & this.mask;
+			Span span = this.slots.get(index);
+			if (span == null) {
+				break;
+			}
+			this.slots.lazySet(index, null);
+			batch[offset + count++] = span;
+			head++;
+		}
+		this.head.lazySet(head);
+		return count;
+	}
+
+	int size() {
+		return (int) Math.max(0, this.tail.get() - this.head.get());
+	}
+
+	int capacity() {
+		return this.capacity;
+	}
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+
+/**
+ * Compact binary format of {@link Spans}. Only the data needed to report the spans is
+ * kept. All strings (service name, span names, tag keys and values, log events) are
+ * written once to a string table and referenced by index, numbers are written as
+ * varints and timestamps relative to the begin of their span.
+ *
+ * <pre>
+ * message = version:byte strings host spanCount:varint span*
+ * strings = count:varint (length:varint utf8-bytes)*
+ * host    = serviceName:ref address:ref port:varint (0 if absent, port + 1 otherwise)
+ * span    = flags:byte [traceIdHigh:int64] traceId:int64 spanId:int64
+ *           parentCount:varint parentId:int64* name:ref processId:ref
+ *           begin:varint end:zigzag(end - begin) [durationMicros:varint]
+ *           tagCount:varint (key:ref value:ref)*
+ *           logCount:varint (timestamp:zigzag(timestamp - begin) event:ref)*
+ * ref     = varint (0 for null, index + 1 otherwise)
+ * </pre>
+ *
+ * @since 1.2.0
+ */
+public final class SpansCodec {
+
+	static final byte VERSION = 1;
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final int REMOTE = 1;
+	private static final int EXPORTABLE = 1 << 1;
+	private static final int TRACE_ID_HIGH = 1 << 2;
+	private static final int STOPPED = 1 << 3;
+
+	private SpansCodec() {
+	}
+
+	public static byte[] encode(Spans spans) {
+		Writer body = new Writer(256 + 128 * spans.getSpans().size());
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		Host host = spans.getHost();
+		if (host == null) {
+			body.writeVarint(0);
+			body.writeVarint(0);
+			body.writeVarint(0);
+		}
+		else {
+			body.writeVarint(ref(strings, host.getServiceName()));
+			body.writeVarint(ref(strings, host.getAddress()));
+			body.writeVarint(host.getPort() == null ? 0 : host.getPort() + 1);
+		}
+		body.writeVarint(spans.getSpans().size());
+		for (Span span : spans.getSpans()) {
+			writeSpan(body, strings, span);
+		}
+		Writer message = new Writer(body.size + 16 * strings.size() + 8);
+		message.writeByte(VERSION);
+		message.writeVarint(strings.size());
+		for (String string : strings.keySet()) {
+			byte[] bytes = string.getBytes(UTF_8);
+			message.writeVarint(bytes.length);
+			message.write(bytes, bytes.length);
+		}
+		message.write(body.bytes, body.size);
+		return message.toByteArray();
+	}
+
+	private static void writeSpan(Writer writer, Map<String, Integer> strings, Span span) {
+		boolean stopped = !span.isRunning();
+		int flags = (span.isRemote() ? REMOTE : 0) | (span.isExportable() ? EXPORTABLE : 0)
+				| (span.getTraceIdHigh() != 0 ? TRACE_ID_HIGH : 0) | (stopped ? STOPPED : 0);
+		writer.writeByte(flags);
+		if (span.getTraceIdHigh() != 0) {
+			writer.writeLong(span.getTraceIdHigh());
+		}
+		writer.writeLong(span.getTraceId());
+		writer.writeLong(span.getSpanId());
+		List<Long> parents = span.getParents();
+		writer.writeVarint(parents.size());
+		for (Long parent : parents) {
+			writer.writeLong(parent);
+		}
+		writer.writeVarint(ref(strings, span.getName()));
+		writer.writeVarint(ref(strings, span.getProcessId()));
+		long begin = span.getBegin();
+		writer.writeVarint(begin);
+		writer.writeVarint(zigZag(span.getEnd() - begin));
+		if (stopped) {
+			writer.writeVarint(span.getAccumulatedMicros());
+		}
+		Map<String, String> tags = span.tags();
+		writer.writeVarint(tags.size());
+		for (Map.Entry<String, String> tag : tags.entrySet()) {
+			writer.writeVarint(ref(strings, tag.getKey()));
+			writer.writeVarint(ref(strings, tag.getValue()));
+		}
+		List<Log> logs = span.logs();
+		writer.writeVarint(logs.size());
+		for (Log log : logs) {
+			writer.writeVarint(zigZag(log.getTimestamp() - begin));
+			writer.writeVarint(ref(strings, log.getEvent()));
+		}
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the bytes are not spans in this format
+	 */
+	public static Spans decode(byte[] bytes) {
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		try {
+			byte version = buffer.get();
+			if (version != VERSION) {
+				throw new IllegalArgumentException("Unsupported version of spans " + version);
+			}
+			String[] strings = new String[readInt(buffer)];
+			for (int i = 0; i < strings.length; i++) {
+				int length = readInt(buffer);
+				strings[i] = new String(bytes, buffer.position(), length, UTF_8);
+				buffer.position(buffer.position() + length);
+			}
+			String serviceName = string(strings, buffer);
+			String address = string(strings, buffer);
+			int port = readInt(buffer);
+			Host host = serviceName == null && address == null && port == 0 ? null
+					: new Host(serviceName, address, port == 0 ? null : port - 1);
+			int count = readInt(buffer);
+			List<Span> spans = new ArrayList<>(count);
+			for (int i = 0; i < count; i++) {
+				spans.add(readSpan(buffer, strings));
+			}
+			return new Spans(host, spans);
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Truncated or malformed spans", e);
+		}
+	}
+
+	private static Span readSpan(ByteBuffer buffer, String[] strings) {
+		int flags = buffer.get();
+		Span.SpanBuilder builder = Span.builder()
+				.remote((flags & REMOTE) != 0)
+				.exportable((flags & EXPORTABLE) != 0);
+		if ((flags & TRACE_ID_HIGH) != 0) {
+			builder.traceIdHigh(buffer.getLong());
+		}
+		builder.traceId(buffer.getLong()).spanId(buffer.getLong());
+		int parents = readInt(buffer);
+		Long[] parentIds = new Long[parents];
+		for (int i = 0; i < parents; i++) {
+			parentIds[i] = buffer.getLong();
+		}
+		builder.parents(Arrays.asList(parentIds));
+		builder.name(string(strings, buffer)).processId(string(strings, buffer));
+		long begin = readVarint(buffer);
+		long end = begin + unZigZag(readVarint(buffer));
+		builder.begin(begin).end(end);
+		if ((flags & STOPPED) != 0) {
+			builder.durationMicros(readVarint(buffer));
+		}
+		int tags = readInt(buffer);
+		for (int i = 0; i < tags; i++) {
+			builder.tag(string(strings, buffer), string(strings, buffer));
+		}
+		int logs = readInt(buffer);
+		for (int i = 0; i < logs; i++) {
+			long timestamp = begin + unZigZag(readVarint(buffer));
+			builder.log(new Log(timestamp, string(strings, buffer)));
+		}
+		return builder.build();
+	}
+
+	private static int ref(Map<String, Integer> strings, String value) {
+		if (value == null) {
+			return 0;
+		}
+		Integer index = strings.get(value);
+		if (index == null) {
+			index = strings.size();
+			strings.put(value, index);
+		}
+		return index + 1;
+	}
+
+	private static String string(String[] strings, ByteBuffer buffer) {
+		int ref = readInt(buffer);
+		return ref == 0 ? null : strings[ref - 1];
+	}
+
+	private static long zigZag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unZigZag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static int readInt(ByteBuffer buffer) {
+		long value = readVarint(buffer);
+		if (value < 0 || value > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Malformed spans, unexpected value " + value);
+		}
+		return (int) value;
+	}
+
+	private static long readVarint(ByteBuffer buffer) {
+		long result = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			byte b = buffer.get();
+			result |= (long) (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return result;
+			}
+		}
+		throw new IllegalArgumentException("Malformed spans, varint is too long");
+	}
+
+	private static final class Writer {
+		byte[] bytes;
+		int size;
+
+		Writer(int capacity) {
+			this.bytes = new byte[capacity];
+		}
+
+		void writeByte(int value) {
+			ensureCapacity(1);
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeVarint(long value) {
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				this.bytes[this.size++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			this.bytes[this.size++] = (byte) value;
+		}
+
+		void writeLong(long value) {
+			ensureCapacity(8);
+			for (int shift = 56; shift >= 0; shift -= 8) {
+				this.bytes[this.size++] = (byte) (value >>> shift);
+			}
+		}
+
+		void write(byte[] source, int length) {
+			ensureCapacity(length);
+			System.arraycopy(source, 0, this.bytes, this.size, length);
+			this.size += length;
+		}
+
+		byte[] toByteArray() {
+			return this.size == this.bytes.length ? this.bytes : Arrays.copyOf(this.bytes, this.size);
+		}
+
+		private void ensureCapacity(int length) {
+			if (this.size + length > this.bytes.length) {
+				this.bytes = Arrays.copyOf(this.bytes, Math.max(this.bytes.length * 2, this.size + length));
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.util.MimeType;
+
+/**
+ * Converts {@link Spans} to and from the binary format of {@link SpansCodec}. Used when
+ * the content type of the Sleuth channels is {@link #SPANS_MIME_TYPE}, e.g. by setting
+ * {@code spring.sleuth.stream.content-type=application/x-sleuth-spans}.
+ *
+ * @since 1.2.0
+ */
+public class SpansMessageConverter extends AbstractMessageConverter {
+
+	public static final String SPANS_CONTENT_TYPE = "application/x-sleuth-spans";
+	public static final MimeType SPANS_MIME_TYPE = MimeType.valueOf(SPANS_CONTENT_TYPE);
+
+	public SpansMessageConverter() {
+		super(SPANS_MIME_TYPE);
+		// don't try to read messages of other content types, like json
+		setStrictContentTypeMatch(true);
+	}
+
+	@Override
+	protected boolean supports(Class<?> clazz) {
+		return Spans.class.equals(clazz);
+	}
+
+	@Override
+	protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+		return message.getPayload() instanceof byte[] && super.canConvertFrom(message, targetClass);
+	}
+
+	@Override
+	protected Object convertFromInternal(Message<?> message, Class<?> targetClass,
+			Object conversionHint) {
+		return SpansCodec.decode((byte[]) message.getPayload());
+	}
+
+	@Override
+	protected Object convertToInternal(Object payload, MessageHeaders headers,
+			Object conversionHint) {
+		return SpansCodec.encode((Spans) payload);
+	}
+}
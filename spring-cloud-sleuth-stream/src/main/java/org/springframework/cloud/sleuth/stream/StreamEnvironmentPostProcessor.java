@@ -78,6 +78,13 @@ public class StreamEnvironmentPostProcessor implements EnvironmentPostProcessor
 				environment.getProperty("spring.sleuth.stream.group", SleuthSink.INPUT));
 		map.put("spring.cloud.stream.bindings." + SleuthSource.OUTPUT + ".content-type",
 				environment.getProperty("spring.sleuth.stream.content-type", "application/json"));
+		if (Boolean.parseBoolean(environment.getProperty("spring.sleuth.stream.partition.enabled"))) {
+			String producer = "spring.cloud.stream.bindings." + SleuthSource.OUTPUT + ".producer.";
+			map.put(producer + "partition-key-expression",
+					"headers['" + StreamSpanReporter.PARTITION_HEADER + "']");
+			map.put(producer + "partition-count",
+					environment.getProperty("spring.sleuth.stream.partition.count", "1"));
+		}
 		addOrReplace(environment.getPropertySources(), map);
 	}
 
@@ -17,20 +17,25 @@
 package org.springframework.cloud.sleuth.stream;
 
 import java.lang.invoke.MethodHandles;
-import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.SpanReporter;
+import org.springframework.cloud.sleuth.metric.QueuedSpanMetricReporter;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
 import org.springframework.integration.annotation.InboundChannelAdapter;
 import org.springframework.integration.annotation.MessageEndpoint;
 import org.springframework.integration.annotation.Poller;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+import org.springframework.util.ObjectUtils;
 
 /**
  * A message source for spans. Also handles RPC flavoured annotations.
@@ -50,45 +55,231 @@ public class StreamSpanReporter implements SpanReporter {
 	 */
 	public static final String POLLER = "streamSpanReporterPoller";
 
-	private BlockingQueue<Span> queue = new LinkedBlockingQueue<>(1000);
+	/**
+	 * Header with the partition of the trace ids of the spans in the message, set when
+	 * spans are {@link #setPartitionCount(int) partitioned}
+	 */
+	public static final String PARTITION_HEADER = "spanTracePartition";
+
+	/**
+	 * Name of the spans created when sending spans to {@link SleuthSource#OUTPUT}. These
+	 * are not reported, otherwise each poll would produce a span to be reported.
+	 */
+	private static final String SLEUTH_OUTPUT_SPAN_NAME = "message/" + SleuthSource.OUTPUT;
+	private static final int QUEUE_SIZE = 1000;
+
+	private final SpanRingBuffer buffer = new SpanRingBuffer(QUEUE_SIZE);
+	/** Spans taken from the queue but not sent yet, reused by every poll */
+	private final Span[] batch;
+	/** Estimated sizes of the spans in the batch */
+	private final int[] sizes;
+	private final long maxBatchBytes;
+	private final long lingerNanos;
+	private int pending;
+	private long pendingBytes;
+	private long firstPendingNanos;
+	private BlockingQueue<Span> queue;
+	private int partitionCount;
 	private final HostLocator endpointLocator;
 	private final SpanMetricReporter spanMetricReporter;
+	private final QueuedSpanMetricReporter queuedSpanMetricReporter;
 
+	/**
+	 * Sends all queued spans on every poll
+	 */
 	public StreamSpanReporter(HostLocator endpointLocator, SpanMetricReporter spanMetricReporter) {
+		this(endpointLocator, spanMetricReporter, QUEUE_SIZE, Long.MAX_VALUE, 0);
+	}
+
+	/**
+	 * Sends queued spans once there are as many as the batch size or bytes allow, or when
+	 * the first of them waited for longer than the linger time. Larger amounts of spans
+	 * are split into several messages.
+	 *
+	 * @param batch limits of a single message of spans
+	 */
+	public StreamSpanReporter(HostLocator endpointLocator, SpanMetricReporter spanMetricReporter,
+			SleuthStreamProperties.Batch batch) {
+		this(endpointLocator, spanMetricReporter, batch.getSize(), batch.getMaxBytes(),
+				batch.getLinger());
+	}
+
+	private StreamSpanReporter(HostLocator endpointLocator, SpanMetricReporter spanMetricReporter,
+			int maxBatchSize, long maxBatchBytes, long lingerMillis) {
 		this.endpointLocator = endpointLocator;
 		this.spanMetricReporter = spanMetricReporter;
+		this.queuedSpanMetricReporter = spanMetricReporter instanceof QueuedSpanMetricReporter ?
+				(QueuedSpanMetricReporter) spanMetricReporter : null;
+		this.batch = new Span[Math.max(1, maxBatchSize)];
+		this.sizes = new int[this.batch.length];
+		this.maxBatchBytes = maxBatchBytes;
+		this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(lingerMillis);
 	}
 
+	/**
+	 * Replaces the default lock-free queue of spans
+	 *
+	 * @deprecated the default queue doesn't block reporting threads
+	 */
+	@Deprecated
 	public void setQueue(BlockingQueue<Span> queue) {
 		this.queue = queue;
 	}
 
+	/**
+	 * Splits the spans by a hash of their trace id into the given number of partitions.
+	 * Every message then contains spans of a single partition, set in the
+	 * {@link #PARTITION_HEADER} header for the binder to route the message by. A value
+	 * below 2 turns partitioning off.
+	 */
+	public synchronized void setPartitionCount(int partitionCount) {
+		this.partitionCount = partitionCount;
+	}
+
+	/**
+	 * @return the next message of spans or {@code null} if there's nothing to send yet
+	 */
 	@InboundChannelAdapter(value = SleuthSource.OUTPUT, poller = @Poller(POLLER))
+	public synchronized Message<Spans> pollMessage() {
+		fillBatch();
+		Message<Spans> message = null;
+		if (this.pending > 0 && batchReady()) {
+			int partition = partition(this.batch[0]);
+			Spans spans = takeBatch(partition);
+			this.spanMetricReporter.incrementAcceptedSpans(spans.getSpans().size());
+			MessageBuilder<Spans> builder = MessageBuilder.withPayload(spans);
+			if (this.partitionCount > 1) {
+				builder.setHeader(PARTITION_HEADER, partition);
+			}
+			message = builder.build();
+		}
+		if (this.queuedSpanMetricReporter != null) {
+			this.queuedSpanMetricReporter.updateQueuedSpans(queued() + this.pending);
+		}
+		return message;
+	}
+
+	/**
+	 * @return the spans of the {@link #pollMessage() next message} or {@code null}
+	 */
 	public Spans poll() {
-		List<Span> result = new LinkedList<>();
-		this.queue.drainTo(result);
-		for (Iterator<Span> iterator = result.iterator(); iterator.hasNext();) {
-			Span span = iterator.next();
-			if (span.getName() != null && span.getName().equals("message/" + SleuthSource.OUTPUT)) {
-				iterator.remove();
+		Message<Spans> message = pollMessage();
+		return message == null ? null : message.getPayload();
+	}
+
+	private void fillBatch() {
+		int from = this.pending;
+		int to = from + drain(from);
+		for (int i = from; i < to; i++) {
+			Span span = this.batch[i];
+			this.batch[i] = null;
+			if (SLEUTH_OUTPUT_SPAN_NAME.equals(span.getName())) {
+				continue;
 			}
+			int size = this.maxBatchBytes == Long.MAX_VALUE ? 0 : estimatedSize(span);
+			this.batch[this.pending] = span;
+			this.sizes[this.pending] = size;
+			this.pendingBytes += size;
+			this.pending++;
 		}
-		if (result.isEmpty()) {
-			return null;
+		if (from == 0 && this.pending > 0) {
+			this.firstPendingNanos = System.nanoTime();
+		}
+	}
+
+	private boolean batchReady() {
+		return this.pending == this.batch.length || this.pendingBytes >= this.maxBatchBytes
+				|| System.nanoTime() - this.firstPendingNanos >= this.lingerNanos;
+	}
+
+	/**
+	 * Takes spans from the beginning of the batch up to its byte limit, but at least one.
+	 * Only spans of the same host and partition as the first one are taken, the others
+	 * stay in the batch for the next message.
+	 */
+	private Spans takeBatch(int partition) {
+		Host host = this.endpointLocator.locate(this.batch[0]);
+		List<Span> result = new ArrayList<>();
+		long bytes = 0;
+		boolean full = false;
+		int kept = 0;
+		for (int i = 0; i < this.pending; i++) {
+			Span span = this.batch[i];
+			int size = this.sizes[i];
+			boolean take = !full && (i == 0 || (partition(span) == partition
+					&& ObjectUtils.nullSafeEquals(host, this.endpointLocator.locate(span))));
+			if (take && i > 0 && bytes + size > this.maxBatchBytes) {
+				// keep the order of the spans of this host, the rest goes to the next message
+				full = true;
+				take = false;
+			}
+			if (take) {
+				result.add(span);
+				bytes += size;
+			}
+			else {
+				this.batch[kept] = span;
+				this.sizes[kept] = size;
+				kept++;
+			}
+		}
+		Arrays.fill(this.batch, kept, this.pending, null);
+		this.pending = kept;
+		this.pendingBytes -= bytes;
+		return new Spans(host, result);
+	}
+
+	private int partition(Span span) {
+		if (this.partitionCount < 2) {
+			return 0;
 		}
-		this.spanMetricReporter.incrementAcceptedSpans(result.size());
-		return new Spans(this.endpointLocator.locate(result.get(0)), result);
+		long traceId = span.getTraceId();
+		int hash = (int) (traceId ^ (traceId >>> 32));
+		return (hash & Integer.MAX_VALUE) % this.partitionCount;
+	}
+
+	/**
+	 * Rough size of the span once serialized, used to bound the size of messages
+	 */
+	static int estimatedSize(Span span) {
+		int size = 200 + length(span.getName()) + length(span.getProcessId());
+		for (Map.Entry<String, String> tag : span.tags().entrySet()) {
+			size += 8 + length(tag.getKey()) + length(tag.getValue());
+		}
+		for (org.springframework.cloud.sleuth.Log log : span.logs()) {
+			size += 40 + length(log.getEvent());
+		}
+		return size;
+	}
+
+	private static int length(String value) {
+		return value == null ? 0 : value.length();
+	}
+
+	private int drain(int offset) {
+		if (this.queue == null) {
+			return this.buffer.drainTo(this.batch, offset);
+		}
+		int count = 0;
+		Span span;
+		while (offset + count < this.batch.length && (span = this.queue.poll()) != null) {
+			this.batch[offset + count++] = span;
+		}
+		return count;
+	}
+
+	private int queued() {
+		return this.queue == null ? this.buffer.size() : this.queue.size();
 	}
 
 	@Override
 	public void report(Span span) {
 		if (span.isExportable()) {
-			try {
-				this.queue.add(span);
-			} catch (Exception e) {
+			boolean queued = this.queue == null ? this.buffer.offer(span) : this.queue.offer(span);
+			if (!queued) {
 				this.spanMetricReporter.incrementDroppedSpans(1);
 				if (log.isDebugEnabled()) {
-					log.debug("The span " + span + " will not be sent to Zipkin due to [" + e + "]");
+					log.debug("The span " + span + " will not be sent to Zipkin due to the queue being full");
 				}
 			}
 		} else {
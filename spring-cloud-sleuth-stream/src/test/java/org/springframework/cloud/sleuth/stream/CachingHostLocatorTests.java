@@ -0,0 +1,76 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class CachingHostLocatorTests {
+
+	AtomicInteger located = new AtomicInteger();
+	HostLocator delegate = new HostLocator() {
+		@Override public Host locate(Span span) {
+			CachingHostLocatorTests.this.located.incrementAndGet();
+			return new Host(span.getProcessId(), "127.0.0.1", 8080);
+		}
+	};
+	long nanoTime = 0L;
+	CachingHostLocator locator = new CachingHostLocator(this.delegate, 1000L) {
+		@Override long nanoTime() {
+			return CachingHostLocatorTests.this.nanoTime;
+		}
+	};
+
+	@Test
+	public void should_return_the_same_host_until_the_ttl_passes() {
+		Host host = this.locator.locate(span("foo"));
+		this.nanoTime += 999_000_000L;
+
+		then(this.locator.locate(span("foo"))).isSameAs(host);
+		this.nanoTime += 1_000_000L;
+		then(this.locator.locate(span("foo"))).isNotSameAs(host).isEqualTo(host);
+		then(this.located.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void should_cache_hosts_per_process_id() {
+		then(this.locator.locate(span("foo")).getServiceName()).isEqualTo("foo");
+		then(this.locator.locate(span("bar")).getServiceName()).isEqualTo("bar");
+		then(this.locator.locate(span(null)).getServiceName()).isNull();
+		then(this.locator.locate(span("foo")).getServiceName()).isEqualTo("foo");
+
+		then(this.located.get()).isEqualTo(3);
+	}
+
+	@Test
+	public void should_locate_hosts_again_after_refresh() {
+		this.locator.locate(span("foo"));
+
+		this.locator.refresh();
+		this.locator.locate(span("foo"));
+
+		then(this.located.get()).isEqualTo(2);
+	}
+
+	private static Span span(String processId) {
+		return Span.builder().name("foo").processId(processId).build();
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SpanRingBufferTests {
+
+	@Test
+	public void should_drain_spans_in_the_order_they_were_offered() {
+		SpanRingBuffer buffer = new SpanRingBuffer(3);
+		Span[] batch = new Span[5];
+
+		then(buffer.offer(span(1))).isTrue();
+		then(buffer.offer(span(2))).isTrue();
+
+		then(buffer.drainTo(batch, 0)).isEqualTo(2);
+		then(batch[0].getSpanId()).isEqualTo(1L);
+		then(batch[1].getSpanId()).isEqualTo(2L);
+		then(buffer.size()).isZero();
+		then(buffer.offer(span(3))).isTrue();
+		then(buffer.drainTo(batch, 2)).isEqualTo(1);
+		then(batch[2].getSpanId()).isEqualTo(3L);
+	}
+
+	@Test
+	public void should_reject_spans_above_the_capacity() {
+		SpanRingBuffer buffer = new SpanRingBuffer(3);
+
+		for (int i = 0; i < 3; i++) {
+			then(buffer.offer(span(i))).isTrue();
+		}
+
+		then(buffer.offer(span(4))).isFalse();
+		then(buffer.size()).isEqualTo(3);
+	}
+
+	@Test
+	public void should_drain_at_most_the_size_of_the_batch_and_wrap_around() {
+		SpanRingBuffer buffer = new SpanRingBuffer(4);
+		Span[] batch = new Span[2];
+
+		for (int round = 0; round < 10; round++) {
+			buffer.offer(span(2 * round));
+			buffer.offer(span(2 * round + 1));
+			buffer.offer(span(100));
+
+			then(buffer.drainTo(batch, 0)).isEqualTo(2);
+			then(batch[0].getSpanId()).isEqualTo(2 * round);
+			then(batch[1].getSpanId()).isEqualTo(2 * round + 1);
+			then(buffer.drainTo(batch, 0)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	public void should_not_lose_spans_offered_concurrently() throws Exception {
+		final SpanRingBuffer buffer = new SpanRingBuffer(100_000);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		final CountDownLatch start = new CountDownLatch(1);
+		for (int thread = 0; thread < 4; thread++) {
+			final int offset = thread * 10_000;
+			executor.submit(new Runnable() {
+				@Override public void run() {
+					try {
+						start.await();
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					for (int i = 0; i < 10_000; i++) {
+						buffer.offer(span(offset + i));
+					}
+				}
+			});
+		}
+		Set<Long> drained = new HashSet<>();
+		Span[] batch = new Span[64];
+
+		start.countDown();
+		executor.shutdown();
+		while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS) || buffer.size() > 0) {
+			int count = buffer.drainTo(batch, 0);
+			for (int i = 0; i < count; i++) {
+				drained.add(batch[i].getSpanId());
+			}
+		}
+
+		then(drained).hasSize(40_000);
+	}
+
+	private static Span span(long id) {
+		return Span.builder().traceId(id).spanId(id).name("foo").build();
+	}
+}
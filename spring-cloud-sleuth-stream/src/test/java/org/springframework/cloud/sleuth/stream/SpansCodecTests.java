@@ -0,0 +1,126 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Log;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SpansCodecTests {
+
+	Host host = new Host("service", "10.0.0.1", 8080);
+
+	@Test
+	public void should_decode_encoded_spans() {
+		Span span = Span.builder().traceIdHigh(7L).traceId(1L).spanId(2L).parent(3L)
+				.name("http:/foo").processId("process").remote(true).exportable(true)
+				.begin(1_000_000L).end(1_000_005L)
+				.tag("http.method", "GET").tag("http.status_code", "200")
+				.log(new Log(1_000_001L, "cs")).log(new Log(1_000_004L, "cr"))
+				.build();
+		Span running = Span.builder().traceId(1L).spanId(4L).name("running")
+				.begin(System.currentTimeMillis()).build();
+
+		Spans decoded = SpansCodec.decode(SpansCodec.encode(new Spans(this.host,
+				Arrays.asList(span, running))));
+
+		then(decoded.getHost().getServiceName()).isEqualTo("service");
+		then(decoded.getHost().getAddress()).isEqualTo("10.0.0.1");
+		then(decoded.getHost().getPort()).isEqualTo(8080);
+		then(decoded.getSpans()).hasSize(2);
+		Span first = decoded.getSpans().get(0);
+		then(first).isEqualTo(span);
+		then(first.getName()).isEqualTo("http:/foo");
+		then(first.getParents()).containsExactly(3L);
+		then(first.getProcessId()).isEqualTo("process");
+		then(first.isRemote()).isTrue();
+		then(first.isExportable()).isTrue();
+		then(first.getBegin()).isEqualTo(1_000_000L);
+		then(first.getEnd()).isEqualTo(1_000_005L);
+		then(first.getAccumulatedMicros()).isEqualTo(span.getAccumulatedMicros());
+		then(first.tags()).isEqualTo(span.tags());
+		then(first.logs()).containsExactlyElementsOf(span.logs());
+		Span second = decoded.getSpans().get(1);
+		then(second.isRunning()).isTrue();
+		then(second.getProcessId()).isNull();
+	}
+
+	@Test
+	public void should_keep_the_precise_duration_of_stopped_spans() {
+		Span span = Span.builder().traceId(1L).spanId(2L).name("foo").build();
+		span.stop();
+
+		Span decoded = SpansCodec.decode(SpansCodec.encode(new Spans(this.host,
+				Collections.singletonList(span)))).getSpans().get(0);
+
+		then(decoded.isRunning()).isFalse();
+		then(decoded.getAccumulatedMicros()).isEqualTo(span.getAccumulatedMicros());
+	}
+
+	@Test
+	public void should_be_smaller_than_json() throws Exception {
+		List<Span> spans = new ArrayList<>();
+		for (long i = 1; i <= 100; i++) {
+			Span span = Span.builder().traceId(i).spanId(i).parent(i + 1).name("http:/foo")
+					.begin(1_000_000L + i).end(1_000_005L + i).processId("process")
+					.tag("http.method", "GET").tag("http.path", "/foo")
+					.log(new Log(1_000_001L + i, "sr")).log(new Log(1_000_004L + i, "ss"))
+					.build();
+			spans.add(span);
+		}
+		Spans message = new Spans(this.host, spans);
+
+		int binary = SpansCodec.encode(message).length;
+		int json = new ObjectMapper().writeValueAsBytes(message).length;
+
+		then(binary).isLessThan(json / 4);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_reject_truncated_spans() {
+		byte[] encoded = SpansCodec.encode(new Spans(this.host,
+				Collections.singletonList(Span.builder().name("foo").build())));
+
+		SpansCodec.decode(Arrays.copyOf(encoded, encoded.length - 3));
+	}
+
+	@Test
+	public void should_only_convert_messages_of_the_spans_content_type() {
+		SpansMessageConverter converter = new SpansMessageConverter();
+		Spans spans = new Spans(this.host, Collections.singletonList(Span.builder().name("foo").build()));
+		Message<?> encoded = converter.toMessage(spans, new MessageHeaders(
+				Collections.<String, Object>singletonMap(MessageHeaders.CONTENT_TYPE,
+						SpansMessageConverter.SPANS_MIME_TYPE)));
+
+		then(converter.fromMessage(encoded, Spans.class)).isInstanceOf(Spans.class);
+		then(converter.fromMessage(MessageBuilder.withPayload(encoded.getPayload())
+				.setHeader(MessageHeaders.CONTENT_TYPE, "application/json").build(), Spans.class))
+				.isNull();
+	}
+}
@@ -76,6 +76,28 @@ public class StreamEnvironmentPostProcessorTests {
 						.hasSize(StreamEnvironmentPostProcessor.headers.length);
 	}
 
+	@Test
+	public void should_partition_output_by_trace_partition_header_when_enabled() {
+		EnvironmentTestUtils.addEnvironment(this.environment,
+				"spring.sleuth.stream.partition.enabled=true",
+				"spring.sleuth.stream.partition.count=4");
+		postProcess();
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-key-expression"))
+						.isEqualTo("headers['" + StreamSpanReporter.PARTITION_HEADER + "']");
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-count"))
+						.isEqualTo("4");
+	}
+
+	@Test
+	public void should_not_partition_output_by_default() {
+		postProcess();
+		assertThat(this.environment.getProperty(
+				"spring.cloud.stream.bindings.sleuth.producer.partition-key-expression"))
+						.isNull();
+	}
+
 	private void postProcess() {
 		this.processor.postProcessEnvironment(this.environment,
 				new SpringApplication(StreamEnvironmentPostProcessorTests.class));
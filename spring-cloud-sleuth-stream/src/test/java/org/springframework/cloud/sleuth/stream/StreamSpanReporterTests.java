@@ -18,15 +18,18 @@ package org.springframework.cloud.sleuth.stream;
 
 import java.util.concurrent.ArrayBlockingQueue;
 
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.springframework.cloud.sleuth.Span;
-import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+import org.springframework.cloud.sleuth.metric.QueuedSpanMetricReporter;
+import org.springframework.messaging.Message;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.times;
 
 /**
  * @author Marcin Grzejszczak
@@ -35,8 +38,13 @@ import static org.mockito.BDDMockito.then;
 public class StreamSpanReporterTests {
 
 	@Mock HostLocator endpointLocator;
-	@Mock SpanMetricReporter spanMetricReporter;
-	@InjectMocks StreamSpanReporter reporter;
+	@Mock QueuedSpanMetricReporter spanMetricReporter;
+	StreamSpanReporter reporter;
+
+	@Before
+	public void setup() {
+		this.reporter = new StreamSpanReporter(this.endpointLocator, this.spanMetricReporter);
+	}
 
 	@Test
 	public void should_not_throw_an_exception_when_queue_size_is_exceeded() throws Exception {
@@ -49,4 +57,138 @@ public class StreamSpanReporterTests {
 		then(spanMetricReporter).should().incrementDroppedSpans(1);
 	}
 
-}
\ No newline at end of file
+	@Test
+	public void should_drop_spans_when_the_default_queue_is_full() throws Exception {
+		for (int i = 0; i < 1001; i++) {
+			this.reporter.report(Span.builder().name("foo").exportable(true).build());
+		}
+
+		then(spanMetricReporter).should().incrementDroppedSpans(1);
+		assertThat(this.reporter.poll().getSpans()).hasSize(1000);
+	}
+
+	@Test
+	public void should_not_send_spans_of_sending_spans() throws Exception {
+		this.reporter.report(Span.builder().name("message/" + SleuthSource.OUTPUT).exportable(true).build());
+		this.reporter.report(Span.builder().name("foo").exportable(true).build());
+
+		Spans spans = this.reporter.poll();
+
+		assertThat(spans.getSpans()).extracting("name").containsExactly("foo");
+		then(spanMetricReporter).should().incrementAcceptedSpans(1);
+	}
+
+	@Test
+	public void should_report_the_number_of_queued_spans_on_poll() throws Exception {
+		this.reporter.report(Span.builder().name("foo").exportable(true).build());
+
+		assertThat(this.reporter.poll()).isNotNull();
+		assertThat(this.reporter.poll()).isNull();
+
+		then(spanMetricReporter).should(times(2)).updateQueuedSpans(0);
+	}
+
+	@Test
+	public void should_wait_for_a_full_batch_before_sending_spans() throws Exception {
+		this.reporter = batchingReporter(2, Long.MAX_VALUE, 60_000L);
+
+		this.reporter.report(Span.builder().name("foo").exportable(true).build());
+		assertThat(this.reporter.poll()).isNull();
+		this.reporter.report(Span.builder().name("bar").exportable(true).build());
+
+		assertThat(this.reporter.poll().getSpans()).extracting("name").containsExactly("foo", "bar");
+	}
+
+	@Test
+	public void should_send_an_incomplete_batch_after_the_linger_time() throws Exception {
+		this.reporter = batchingReporter(100, Long.MAX_VALUE, 20L);
+
+		this.reporter.report(Span.builder().name("foo").exportable(true).build());
+		assertThat(this.reporter.poll()).isNull();
+		Thread.sleep(30L);
+
+		assertThat(this.reporter.poll().getSpans()).hasSize(1);
+	}
+
+	@Test
+	public void should_split_spans_into_messages_bounded_by_bytes() throws Exception {
+		Span span = Span.builder().name("foo").exportable(true).build();
+		this.reporter = batchingReporter(100, 2 * StreamSpanReporter.estimatedSize(span), 60_000L);
+
+		for (int i = 0; i < 5; i++) {
+			this.reporter.report(Span.builder().name("foo").exportable(true).build());
+		}
+
+		assertThat(this.reporter.poll().getSpans()).hasSize(2);
+		assertThat(this.reporter.poll().getSpans()).hasSize(2);
+		assertThat(this.reporter.poll()).isNull();
+	}
+
+	@Test
+	public void should_split_spans_into_messages_bounded_by_size() throws Exception {
+		this.reporter = batchingReporter(2, Long.MAX_VALUE, 0L);
+
+		for (int i = 0; i < 5; i++) {
+			this.reporter.report(Span.builder().name("foo").exportable(true).build());
+		}
+
+		assertThat(this.reporter.poll().getSpans()).hasSize(2);
+		assertThat(this.reporter.poll().getSpans()).hasSize(2);
+		assertThat(this.reporter.poll().getSpans()).hasSize(1);
+		assertThat(this.reporter.poll()).isNull();
+	}
+
+	@Test
+	public void should_send_spans_of_different_hosts_in_separate_messages() throws Exception {
+		this.reporter = new StreamSpanReporter(new ServerPropertiesHostLocator(null, "app"),
+				this.spanMetricReporter);
+		this.reporter.report(Span.builder().name("a1").processId("a").exportable(true).build());
+		this.reporter.report(Span.builder().name("b1").processId("b").exportable(true).build());
+		this.reporter.report(Span.builder().name("a2").processId("a").exportable(true).build());
+
+		Spans first = this.reporter.poll();
+		Spans second = this.reporter.poll();
+
+		assertThat(first.getHost().getServiceName()).isEqualTo("a");
+		assertThat(first.getSpans()).extracting("name").containsExactly("a1", "a2");
+		assertThat(second.getHost().getServiceName()).isEqualTo("b");
+		assertThat(second.getSpans()).extracting("name").containsExactly("b1");
+		assertThat(this.reporter.poll()).isNull();
+	}
+
+	@Test
+	public void should_send_spans_of_different_trace_partitions_in_separate_messages() throws Exception {
+		this.reporter.setPartitionCount(2);
+		this.reporter.report(Span.builder().traceId(2L).name("even1").exportable(true).build());
+		this.reporter.report(Span.builder().traceId(3L).name("odd").exportable(true).build());
+		this.reporter.report(Span.builder().traceId(4L).name("even2").exportable(true).build());
+
+		Message<Spans> first = this.reporter.pollMessage();
+		Message<Spans> second = this.reporter.pollMessage();
+
+		assertThat(first.getHeaders().get(StreamSpanReporter.PARTITION_HEADER)).isEqualTo(0);
+		assertThat(first.getPayload().getSpans()).extracting("name").containsExactly("even1", "even2");
+		assertThat(second.getHeaders().get(StreamSpanReporter.PARTITION_HEADER)).isEqualTo(1);
+		assertThat(second.getPayload().getSpans()).extracting("name").containsExactly("odd");
+		assertThat(this.reporter.pollMessage()).isNull();
+	}
+
+	@Test
+	public void should_not_set_partition_header_when_not_partitioned() throws Exception {
+		this.reporter.report(Span.builder().traceId(2L).name("foo").exportable(true).build());
+		this.reporter.report(Span.builder().traceId(3L).name("bar").exportable(true).build());
+
+		Message<Spans> message = this.reporter.pollMessage();
+
+		assertThat(message.getHeaders()).doesNotContainKey(StreamSpanReporter.PARTITION_HEADER);
+		assertThat(message.getPayload().getSpans()).hasSize(2);
+	}
+
+	private StreamSpanReporter batchingReporter(int size, long maxBytes, long linger) {
+		SleuthStreamProperties.Batch batch = new SleuthStreamProperties.Batch();
+		batch.setSize(size);
+		batch.setMaxBytes(maxBytes);
+		batch.setLinger(linger);
+		return new StreamSpanReporter(this.endpointLocator, this.spanMetricReporter, batch);
+	}
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.springframework.cloud.sleuth.Span;
+
+import zipkin.BinaryAnnotation;
+
+/**
+ * Keeps traces that are slow or failed, and a percentage of the others chosen by their
+ * trace id. A trace is slow when one of its spans took at least the latency threshold,
+ * and failed when one of its spans has an {@link Span#SPAN_ERROR_TAG_NAME error} tag or
+ * a 5xx HTTP status.
+ *
+ * @since 1.2.0
+ */
+public class DefaultTailSamplingRule implements TailSamplingRule {
+
+	private static final Charset UTF_8 = Charset.forName("UTF-8");
+	private static final String HTTP_STATUS_CODE = "http.status_code";
+
+	private final long latencyThresholdMicros;
+	private final long keptPerTenThousand;
+
+	/**
+	 * @param latencyThreshold minimal duration (ms) of a span that makes the trace slow
+	 * @param percentage percentage (between 0.0 and 1.0) of other traces that are kept
+	 */
+	public DefaultTailSamplingRule(long latencyThreshold, float percentage) {
+		this.latencyThresholdMicros = latencyThreshold * 1000;
+		this.keptPerTenThousand = (long) (percentage * 10000);
+	}
+
+	@Override
+	public boolean keep(List<zipkin.Span> trace) {
+		for (zipkin.Span span : trace) {
+			if (span.duration != null && span.duration >= this.latencyThresholdMicros) {
+				return true;
+			}
+			for (BinaryAnnotation annotation : span.binaryAnnotations) {
+				if (isError(annotation)) {
+					return true;
+				}
+			}
+		}
+		return !trace.isEmpty()
+				&& (trace.get(0).traceId & Long.MAX_VALUE) % 10000 < this.keptPerTenThousand;
+	}
+
+	private boolean isError(BinaryAnnotation annotation) {
+		if (Span.SPAN_ERROR_TAG_NAME.equals(annotation.key)) {
+			return true;
+		}
+		if (HTTP_STATUS_CODE.equals(annotation.key)
+				&& annotation.type == BinaryAnnotation.Type.STRING) {
+			String status = new String(annotation.value, UTF_8);
+			return status.length() == 3 && status.charAt(0) == '5';
+		}
+		return false;
+	}
+}
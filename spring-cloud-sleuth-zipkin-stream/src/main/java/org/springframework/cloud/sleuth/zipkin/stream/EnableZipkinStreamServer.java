@@ -19,6 +19,7 @@ import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.sleuth.stream.SleuthSink;
 import org.springframework.cloud.stream.annotation.EnableBinding;
 import org.springframework.context.annotation.Import;
@@ -39,7 +40,8 @@ import zipkin.server.EnableZipkinServer;
 @Documented
 @EnableBinding(SleuthSink.class)
 @EnableZipkinServer
-@Import(ZipkinMessageListener.class)
+@EnableConfigurationProperties(ZipkinStreamProperties.class)
+@Import({ZipkinMessageListener.class, ZipkinStreamServerConfiguration.class})
 public @interface EnableZipkinStreamServer {
 
 }
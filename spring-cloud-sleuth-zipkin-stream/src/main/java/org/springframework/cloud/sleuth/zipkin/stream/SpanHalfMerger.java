@@ -0,0 +1,230 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import zipkin.Annotation;
+import zipkin.Constants;
+
+/**
+ * Merges the client ({@code cs}/{@code cr}) and the server ({@code sr}/{@code ss}) half
+ * of an RPC span into a single span before it's stored, so that the storage writes and
+ * later merges it only once.
+ *
+ * RPC halves wait for their counterpart for at most the merge window and are passed on
+ * alone when it doesn't arrive. Other spans, including spans that already carry both
+ * halves, are passed on right away. At most the configured number of halves wait at
+ * once; when more arrive, the oldest is passed on.
+ *
+ * @since 1.2.0
+ */
+class SpanHalfMerger implements Consumer<List<zipkin.Span>>, Closeable {
+
+	private final Consumer<List<zipkin.Span>> delegate;
+	private final long windowNanos;
+	private final int maxSpans;
+	/** Halves waiting for their counterpart, oldest first */
+	private final LinkedHashMap<SpanId, WaitingHalf> waiting = new LinkedHashMap<>();
+	private final ScheduledExecutorService sweeper;
+
+	SpanHalfMerger(ZipkinStreamProperties.Merge merge, Consumer<List<zipkin.Span>> delegate) {
+		this.delegate = delegate;
+		this.windowNanos = TimeUnit.MILLISECONDS.toNanos(merge.getWindow());
+		this.maxSpans = Math.max(1, merge.getMaxSpans());
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"sleuth-zipkin-stream-span-merger-");
+		threadFactory.setDaemon(true);
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		long interval = Math.max(10, merge.getWindow() / 4);
+		this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Passes on merged spans and spans that aren't RPC halves, keeps the other halves
+	 * until their counterpart arrives
+	 */
+	@Override
+	public void accept(List<zipkin.Span> spans) {
+		List<zipkin.Span> ready = new ArrayList<>(spans.size());
+		synchronized (this) {
+			long now = nanoTime();
+			for (zipkin.Span span : spans) {
+				Side side = side(span);
+				if (side == null) {
+					ready.add(span);
+					continue;
+				}
+				SpanId id = new SpanId(span);
+				WaitingHalf counterpart = this.waiting.get(id);
+				if (counterpart != null && counterpart.side != side) {
+					this.waiting.remove(id);
+					ready.add(merge(counterpart.span, span, side));
+					continue;
+				}
+				if (counterpart != null) {
+					// a duplicate of a waiting half, nothing to merge it with
+					ready.add(span);
+					continue;
+				}
+				if (this.waiting.size() >= this.maxSpans) {
+					Iterator<WaitingHalf> eldest = this.waiting.values().iterator();
+					ready.add(eldest.next().span);
+					eldest.remove();
+				}
+				this.waiting.put(id, new WaitingHalf(span, side, now));
+			}
+		}
+		if (!ready.isEmpty()) {
+			this.delegate.accept(ready);
+		}
+	}
+
+	/**
+	 * Passes on the halves that waited for longer than the merge window
+	 */
+	void sweep() {
+		List<zipkin.Span> expired = new ArrayList<>();
+		synchronized (this) {
+			long now = nanoTime();
+			Iterator<WaitingHalf> iterator = this.waiting.values().iterator();
+			while (iterator.hasNext()) {
+				WaitingHalf half = iterator.next();
+				if (now - half.arrivedNanos < this.windowNanos) {
+					break;
+				}
+				expired.add(half.span);
+				iterator.remove();
+			}
+		}
+		if (!expired.isEmpty()) {
+			this.delegate.accept(expired);
+		}
+	}
+
+	/**
+	 * The client half owns the timestamp and duration of the span, so it's the base of
+	 * the merged span
+	 */
+	private static zipkin.Span merge(zipkin.Span waiting, zipkin.Span arrived, Side arrivedSide) {
+		zipkin.Span client = arrivedSide == Side.CLIENT ? arrived : waiting;
+		zipkin.Span server = arrivedSide == Side.CLIENT ? waiting : arrived;
+		return client.toBuilder().merge(server).build();
+	}
+
+	/**
+	 * Returns {@code null} when the span isn't an RPC span or already carries both
+	 * halves, since there's nothing to merge it with then
+	 */
+	private static Side side(zipkin.Span span) {
+		boolean client = false;
+		boolean server = false;
+		for (Annotation annotation : span.annotations) {
+			String value = annotation.value;
+			if (Constants.CLIENT_SEND.equals(value) || Constants.CLIENT_RECV.equals(value)) {
+				client = true;
+			}
+			else if (Constants.SERVER_RECV.equals(value) || Constants.SERVER_SEND.equals(value)) {
+				server = true;
+			}
+		}
+		if (client == server) {
+			return null;
+		}
+		return client ? Side.CLIENT : Side.SERVER;
+	}
+
+	// Visible for testing
+	long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Passes on all waiting halves and stops sweeping
+	 */
+	@Override
+	public void close() {
+		this.sweeper.shutdownNow();
+		List<zipkin.Span> remaining = new ArrayList<>();
+		synchronized (this) {
+			for (WaitingHalf half : this.waiting.values()) {
+				remaining.add(half.span);
+			}
+			this.waiting.clear();
+		}
+		if (!remaining.isEmpty()) {
+			this.delegate.accept(remaining);
+		}
+	}
+
+	private enum Side {
+		CLIENT, SERVER
+	}
+
+	private static final class WaitingHalf {
+		final zipkin.Span span;
+		final Side side;
+		final long arrivedNanos;
+
+		WaitingHalf(zipkin.Span span, Side side, long arrivedNanos) {
+			this.span = span;
+			this.side = side;
+			this.arrivedNanos = arrivedNanos;
+		}
+	}
+
+	private static final class SpanId {
+		final long traceIdHigh;
+		final long traceId;
+		final long id;
+
+		SpanId(zipkin.Span span) {
+			this.traceIdHigh = span.traceIdHigh;
+			this.traceId = span.traceId;
+			this.id = span.id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof SpanId)) {
+				return false;
+			}
+			SpanId that = (SpanId) o;
+			return this.traceIdHigh == that.traceIdHigh && this.traceId == that.traceId
+					&& this.id == that.id;
+		}
+
+		@Override
+		public int hashCode() {
+			int result = Long.hashCode(this.traceIdHigh);
+			result = 31 * result + Long.hashCode(this.traceId);
+			return 31 * result + Long.hashCode(this.id);
+		}
+	}
+}
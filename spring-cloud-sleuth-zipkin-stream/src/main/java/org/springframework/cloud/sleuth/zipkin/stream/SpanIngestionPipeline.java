@@ -0,0 +1,184 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.io.Closeable;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Converts received {@link Spans} on a pool of workers and hands the converted spans to
+ * the storage in batches that can span several messages.
+ *
+ * Both stages are bounded. When the conversion queue is full, {@link #accept(Spans)}
+ * blocks the calling binder consumer; when the storage queue is full, the workers block.
+ * So the binder consumer concurrency and the storage throughput can be tuned separately
+ * without losing spans.
+ *
+ * @since 1.2.0
+ */
+final class SpanIngestionPipeline implements Closeable {
+
+	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
+
+	private final ThreadPoolExecutor workers;
+	private final BlockingQueue<zipkin.Span> converted;
+	private final ExecutorService storageThreads;
+	private final Consumer<List<zipkin.Span>> storage;
+	private final int storageBatchSize;
+	private final long storageLingerNanos;
+	private volatile boolean closed;
+
+	SpanIngestionPipeline(ZipkinStreamProperties.Ingestion ingestion,
+			Consumer<List<zipkin.Span>> storage) {
+		this.storage = storage;
+		this.storageBatchSize = Math.max(1, ingestion.getStorageBatchSize());
+		this.storageLingerNanos = TimeUnit.MILLISECONDS.toNanos(ingestion.getStorageLinger());
+		this.converted = new ArrayBlockingQueue<>(Math.max(1, ingestion.getStorageQueueSize()));
+		this.workers = new ThreadPoolExecutor(ingestion.getWorkers(), ingestion.getWorkers(),
+				0L, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, ingestion.getQueueSize())),
+				daemonThreads("sleuth-zipkin-stream-converter-"), (task, executor) -> {
+					// block the binder consumer until a worker catches up
+					try {
+						if (executor.isShutdown()) {
+							throw new RejectedExecutionException("Span ingestion is closed");
+						}
+						executor.getQueue().put(task);
+					}
+					catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new RejectedExecutionException("Interrupted while queueing spans", e);
+					}
+				});
+		int storageThreads = Math.max(1, ingestion.getStorageThreads());
+		this.storageThreads = Executors.newFixedThreadPool(storageThreads,
+				daemonThreads("sleuth-zipkin-stream-storage-"));
+		for (int i = 0; i < storageThreads; i++) {
+			this.storageThreads.execute(this::storeConverted);
+		}
+	}
+
+	private static CustomizableThreadFactory daemonThreads(String prefix) {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+		threadFactory.setDaemon(true);
+		return threadFactory;
+	}
+
+	/**
+	 * Queues the spans for conversion, blocking while the queue is full
+	 */
+	void accept(Spans input) {
+		this.workers.execute(() -> convert(input));
+	}
+
+	private void convert(Spans input) {
+		List<zipkin.Span> spans;
+		try {
+			spans = ConvertToZipkinSpanList.convert(input);
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to convert spans from " + input.getHost(), e);
+			return;
+		}
+		try {
+			for (zipkin.Span span : spans) {
+				this.converted.put(span);
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void storeConverted() {
+		while (!this.closed || !this.converted.isEmpty()) {
+			try {
+				List<zipkin.Span> batch = nextBatch();
+				if (!batch.isEmpty()) {
+					this.storage.accept(batch);
+				}
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (RuntimeException e) {
+				log.error("Failed to store spans", e);
+			}
+		}
+	}
+
+	/**
+	 * Waits for the first span, then for more until the batch is full or the first span
+	 * lingered long enough
+	 */
+	private List<zipkin.Span> nextBatch() throws InterruptedException {
+		List<zipkin.Span> batch = new ArrayList<>();
+		zipkin.Span first = this.converted.poll(this.storageLingerNanos + 1, TimeUnit.NANOSECONDS);
+		if (first == null) {
+			return batch;
+		}
+		batch.add(first);
+		long deadline = System.nanoTime() + this.storageLingerNanos;
+		while (batch.size() < this.storageBatchSize) {
+			if (this.converted.drainTo(batch, this.storageBatchSize - batch.size()) > 0) {
+				continue;
+			}
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0 || this.closed) {
+				break;
+			}
+			zipkin.Span next = this.converted.poll(remaining, TimeUnit.NANOSECONDS);
+			if (next != null) {
+				batch.add(next);
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Converts and stores the spans received so far, then stops the threads
+	 */
+	@Override
+	public void close() {
+		this.workers.shutdown();
+		try {
+			this.workers.awaitTermination(10, TimeUnit.SECONDS);
+			this.closed = true;
+			this.storageThreads.shutdown();
+			this.storageThreads.awaitTermination(10, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
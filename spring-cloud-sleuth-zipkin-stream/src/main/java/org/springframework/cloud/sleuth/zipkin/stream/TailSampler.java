@@ -0,0 +1,231 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+/**
+ * Buffers received spans by trace id and passes on only the traces kept by a
+ * {@link TailSamplingRule}, once they are complete.
+ *
+ * A trace is considered complete when no span of it arrived for the idle timeout after
+ * its root span was received, or for the trace timeout if the root span never came. At
+ * most the configured number of traces are buffered; when more arrive, the least
+ * recently updated trace is decided early. Spans arriving after their trace got decided
+ * follow that decision.
+ *
+ * @since 1.2.0
+ */
+class TailSampler implements Consumer<List<zipkin.Span>>, Closeable {
+
+	private static final Log log = LogFactory.getLog(TailSampler.class);
+
+	private final TailSamplingRule rule;
+	private final Consumer<List<zipkin.Span>> kept;
+	private final long idleTimeoutNanos;
+	private final long traceTimeoutNanos;
+	private final int maxTraces;
+	/** Traces waiting for a decision, least recently updated first */
+	private final LinkedHashMap<TraceId, PendingTrace> pending;
+	/** Recent decisions, applied to late spans */
+	private final LinkedHashMap<TraceId, Boolean> decided;
+	private final ScheduledExecutorService sweeper;
+
+	TailSampler(ZipkinStreamProperties.TailSampling sampling, TailSamplingRule rule,
+			Consumer<List<zipkin.Span>> kept) {
+		this.rule = rule;
+		this.kept = kept;
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sampling.getIdleTimeout());
+		this.traceTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sampling.getTraceTimeout());
+		this.maxTraces = Math.max(1, sampling.getMaxTraces());
+		this.pending = new LinkedHashMap<>(16, 0.75f, true);
+		this.decided = new LinkedHashMap<TraceId, Boolean>() {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<TraceId, Boolean> eldest) {
+				return size() > TailSampler.this.maxTraces;
+			}
+		};
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(
+				"sleuth-zipkin-stream-tail-sampler-");
+		threadFactory.setDaemon(true);
+		this.sweeper = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		long interval = Math.max(10, sampling.getIdleTimeout() / 4);
+		this.sweeper.scheduleWithFixedDelay(this::sweep, interval, interval,
+				TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Buffers the spans until their traces are complete
+	 */
+	@Override
+	public void accept(List<zipkin.Span> spans) {
+		List<List<zipkin.Span>> toStore = new ArrayList<>();
+		synchronized (this) {
+			long now = nanoTime();
+			for (zipkin.Span span : spans) {
+				TraceId traceId = new TraceId(span.traceIdHigh, span.traceId);
+				Boolean keep = this.decided.get(traceId);
+				if (keep != null) {
+					if (keep) {
+						toStore.add(Collections.singletonList(span));
+					}
+					continue;
+				}
+				PendingTrace trace = this.pending.get(traceId);
+				if (trace == null) {
+					if (this.pending.size() >= this.maxTraces) {
+						decideEldest(toStore);
+					}
+					trace = new PendingTrace(now);
+					this.pending.put(traceId, trace);
+				}
+				trace.add(span, now);
+			}
+		}
+		store(toStore);
+	}
+
+	/**
+	 * Decides the traces that are complete
+	 */
+	void sweep() {
+		List<List<zipkin.Span>> toStore = new ArrayList<>();
+		synchronized (this) {
+			long now = nanoTime();
+			Iterator<Map.Entry<TraceId, PendingTrace>> iterator = this.pending.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<TraceId, PendingTrace> entry = iterator.next();
+				long idle = now - entry.getValue().lastSpanNanos;
+				if (idle < this.idleTimeoutNanos) {
+					// the rest of the traces got spans even more recently
+					break;
+				}
+				if (entry.getValue().hasRoot || idle >= this.traceTimeoutNanos) {
+					iterator.remove();
+					decide(entry, toStore);
+				}
+			}
+		}
+		store(toStore);
+	}
+
+	private void decideEldest(List<List<zipkin.Span>> toStore) {
+		Iterator<Map.Entry<TraceId, PendingTrace>> iterator = this.pending.entrySet().iterator();
+		Map.Entry<TraceId, PendingTrace> eldest = iterator.next();
+		iterator.remove();
+		decide(eldest, toStore);
+	}
+
+	private void decide(Map.Entry<TraceId, PendingTrace> trace, List<List<zipkin.Span>> toStore) {
+		List<zipkin.Span> spans = trace.getValue().spans;
+		boolean keep = keep(spans);
+		this.decided.put(trace.getKey(), keep);
+		if (keep) {
+			toStore.add(spans);
+		}
+	}
+
+	private boolean keep(List<zipkin.Span> spans) {
+		try {
+			return this.rule.keep(spans);
+		}
+		catch (RuntimeException e) {
+			log.error("Failed to sample trace, will keep it", e);
+			return true;
+		}
+	}
+
+	private void store(List<List<zipkin.Span>> traces) {
+		for (List<zipkin.Span> trace : traces) {
+			this.kept.accept(trace);
+		}
+	}
+
+	// Visible for testing
+	long nanoTime() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Decides all buffered traces and stops sweeping
+	 */
+	@Override
+	public void close() {
+		this.sweeper.shutdownNow();
+		List<List<zipkin.Span>> toStore = new ArrayList<>();
+		synchronized (this) {
+			while (!this.pending.isEmpty()) {
+				decideEldest(toStore);
+			}
+		}
+		store(toStore);
+	}
+
+	private static final class PendingTrace {
+		final List<zipkin.Span> spans = new ArrayList<>();
+		long lastSpanNanos;
+		boolean hasRoot;
+
+		PendingTrace(long now) {
+			this.lastSpanNanos = now;
+		}
+
+		void add(zipkin.Span span, long now) {
+			this.spans.add(span);
+			this.lastSpanNanos = now;
+			this.hasRoot |= span.parentId == null;
+		}
+	}
+
+	private static final class TraceId {
+		final long high;
+		final long low;
+
+		TraceId(long high, long low) {
+			this.high = high;
+			this.low = low;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof TraceId)) {
+				return false;
+			}
+			TraceId that = (TraceId) o;
+			return this.high == that.high && this.low == that.low;
+		}
+
+		@Override
+		public int hashCode() {
+			return Long.hashCode(this.high) * 31 + Long.hashCode(this.low);
+		}
+	}
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.List;
+
+/**
+ * Decides whether a trace assembled by the Zipkin Stream collector gets stored. Register
+ * a bean of this type to replace the {@link DefaultTailSamplingRule}.
+ *
+ * @since 1.2.0
+ */
+public interface TailSamplingRule {
+
+	/**
+	 * @param trace spans of a single trace received so far, in the order of arrival
+	 * @return {@code true} to store the trace
+	 */
+	boolean keep(List<zipkin.Span> trace);
+}
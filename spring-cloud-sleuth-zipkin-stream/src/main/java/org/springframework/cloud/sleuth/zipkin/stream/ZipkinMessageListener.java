@@ -1,5 +1,7 @@
 package org.springframework.cloud.sleuth.zipkin.stream;
 
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
 import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
@@ -32,6 +34,7 @@ import java.io.UnsupportedEncodingException;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * A message listener that is turned on if Sleuth Stream is disabled.
@@ -44,28 +47,70 @@ import java.util.Map;
  */
 @MessageEndpoint
 @Conditional(NotSleuthStreamClient.class)
-public class ZipkinMessageListener {
+public class ZipkinMessageListener implements DisposableBean {
 
 	private static final org.apache.commons.logging.Log log = org.apache.commons.logging.LogFactory
 			.getLog(ZipkinMessageListener.class);
 	static final String UNKNOWN_PROCESS_ID = "unknown";
 	final Collector collector;
+	final TailSampler tailSampler;
+	final SpanHalfMerger spanHalfMerger;
+	final SpanIngestionPipeline pipeline;
+	/** Where converted spans go: the merger, then the tail sampler, then the collector */
+	final Consumer<List<zipkin.Span>> store;
 
 	/** lazy so transient storage errors don't crash bootstrap */
 	@Lazy
 	@Autowired
 	ZipkinMessageListener(StorageComponent storage, CollectorSampler sampler,
-			CollectorMetrics metrics) {
+			CollectorMetrics metrics, ZipkinStreamProperties properties,
+			ObjectProvider<TailSamplingRule> tailSamplingRule) {
 		this.collector = Collector.builder(getClass())
 				.storage(storage)
 				.sampler(sampler)
 				.metrics(metrics.forTransport("stream")).build();
+		Consumer<List<zipkin.Span>> collect = spans -> this.collector.accept(spans, Callback.NOOP);
+		ZipkinStreamProperties.TailSampling tailSampling = properties.getTailSampling();
+		if (tailSampling.isEnabled()) {
+			TailSamplingRule rule = tailSamplingRule.getIfAvailable();
+			if (rule == null) {
+				rule = new DefaultTailSamplingRule(tailSampling.getLatencyThreshold(),
+						tailSampling.getPercentage());
+			}
+			this.tailSampler = new TailSampler(tailSampling, rule, collect);
+		}
+		else {
+			this.tailSampler = null;
+		}
+		Consumer<List<zipkin.Span>> sample = this.tailSampler != null ? this.tailSampler : collect;
+		this.spanHalfMerger = properties.getMerge().isEnabled() ?
+				new SpanHalfMerger(properties.getMerge(), sample) : null;
+		this.store = this.spanHalfMerger != null ? this.spanHalfMerger : sample;
+		this.pipeline = properties.getIngestion().isEnabled() ?
+				new SpanIngestionPipeline(properties.getIngestion(), this.store) : null;
 	}
 
 	@StreamListener(SleuthSink.INPUT)
 	public void sink(Spans input) {
+		if (this.pipeline != null) {
+			this.pipeline.accept(input);
+			return;
+		}
 		List<zipkin.Span> converted = ConvertToZipkinSpanList.convert(input);
-		this.collector.accept(converted, Callback.NOOP);
+		this.store.accept(converted);
+	}
+
+	@Override
+	public void destroy() {
+		if (this.pipeline != null) {
+			this.pipeline.close();
+		}
+		if (this.spanHalfMerger != null) {
+			this.spanHalfMerger.close();
+		}
+		if (this.tailSampler != null) {
+			this.tailSampler.close();
+		}
 	}
 
 	/**
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the Zipkin Stream collector
+ *
+ * @since 1.2.0
+ */
+@ConfigurationProperties("spring.sleuth.zipkin.stream")
+public class ZipkinStreamProperties {
+
+	private Ingestion ingestion = new Ingestion();
+	private TailSampling tailSampling = new TailSampling();
+	private Merge merge = new Merge();
+
+	public Ingestion getIngestion() {
+		return this.ingestion;
+	}
+
+	public void setIngestion(Ingestion ingestion) {
+		this.ingestion = ingestion;
+	}
+
+	public TailSampling getTailSampling() {
+		return this.tailSampling;
+	}
+
+	public void setTailSampling(TailSampling tailSampling) {
+		this.tailSampling = tailSampling;
+	}
+
+	public Merge getMerge() {
+		return this.merge;
+	}
+
+	public void setMerge(Merge merge) {
+		this.merge = merge;
+	}
+
+	/**
+	 * When enabled, received spans are converted by a pool of workers and stored in
+	 * batches by separate threads, instead of on the thread of the binder consumer. When
+	 * the workers or the storage can't keep up, the binder consumer is blocked.
+	 */
+	public static class Ingestion {
+
+		private boolean enabled = false;
+
+		/** Number of threads converting received spans. */
+		private int workers = Runtime.getRuntime().availableProcessors();
+
+		/** Maximum number of received messages waiting for conversion. */
+		private int queueSize = 100;
+
+		/** Number of threads writing spans to the storage. */
+		private int storageThreads = 1;
+
+		/** Maximum number of converted spans waiting to be stored. */
+		private int storageQueueSize = 10000;
+
+		/** Maximum number of spans stored at once. */
+		private int storageBatchSize = 1000;
+
+		/** Maximum time (ms) a converted span waits for its storage batch to fill up. */
+		private long storageLinger = 100L;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getWorkers() {
+			return this.workers;
+		}
+
+		public void setWorkers(int workers) {
+			this.workers = workers;
+		}
+
+		public int getQueueSize() {
+			return this.queueSize;
+		}
+
+		public void setQueueSize(int queueSize) {
+			this.queueSize = queueSize;
+		}
+
+		public int getStorageThreads() {
+			return this.storageThreads;
+		}
+
+		public void setStorageThreads(int storageThreads) {
+			this.storageThreads = storageThreads;
+		}
+
+		public int getStorageQueueSize() {
+			return this.storageQueueSize;
+		}
+
+		public void setStorageQueueSize(int storageQueueSize) {
+			this.storageQueueSize = storageQueueSize;
+		}
+
+		public int getStorageBatchSize() {
+			return this.storageBatchSize;
+		}
+
+		public void setStorageBatchSize(int storageBatchSize) {
+			this.storageBatchSize = storageBatchSize;
+		}
+
+		public long getStorageLinger() {
+			return this.storageLinger;
+		}
+
+		public void setStorageLinger(long storageLinger) {
+			this.storageLinger = storageLinger;
+		}
+	}
+
+	/**
+	 * When enabled, received spans are buffered by trace and only traces kept by the
+	 * {@link TailSamplingRule} are stored, once they are complete.
+	 */
+	public static class TailSampling {
+
+		private boolean enabled = false;
+
+		/** Time (ms) without new spans after which a trace with a root span is complete. */
+		private long idleTimeout = 2000L;
+
+		/** Time (ms) without new spans after which a trace without a root span is complete. */
+		private long traceTimeout = 30000L;
+
+		/** Maximum number of traces buffered at once. */
+		private int maxTraces = 10000;
+
+		/** Minimal duration (ms) of a span that makes its trace kept. */
+		private long latencyThreshold = 1000L;
+
+		/** Percentage (between 0.0 and 1.0) of traces kept that are neither slow nor failed. */
+		private float percentage = 0.0f;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getIdleTimeout() {
+			return this.idleTimeout;
+		}
+
+		public void setIdleTimeout(long idleTimeout) {
+			this.idleTimeout = idleTimeout;
+		}
+
+		public long getTraceTimeout() {
+			return this.traceTimeout;
+		}
+
+		public void setTraceTimeout(long traceTimeout) {
+			this.traceTimeout = traceTimeout;
+		}
+
+		public int getMaxTraces() {
+			return this.maxTraces;
+		}
+
+		public void setMaxTraces(int maxTraces) {
+			this.maxTraces = maxTraces;
+		}
+
+		public long getLatencyThreshold() {
+			return this.latencyThreshold;
+		}
+
+		public void setLatencyThreshold(long latencyThreshold) {
+			this.latencyThreshold = latencyThreshold;
+		}
+
+		public float getPercentage() {
+			return this.percentage;
+		}
+
+		public void setPercentage(float percentage) {
+			this.percentage = percentage;
+		}
+	}
+
+	/**
+	 * When enabled, the client and the server half of an RPC span are merged into a
+	 * single span before they are stored, if both arrive within the merge window.
+	 */
+	public static class Merge {
+
+		private boolean enabled = false;
+
+		/** Maximum time (ms) a half of a span waits for the other half. */
+		private long window = 1000L;
+
+		/** Maximum number of halves waiting at once. */
+		private int maxSpans = 10000;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public long getWindow() {
+			return this.window;
+		}
+
+		public void setWindow(long window) {
+			this.window = window;
+		}
+
+		public int getMaxSpans() {
+			return this.maxSpans;
+		}
+
+		public void setMaxSpans(int maxSpans) {
+			this.maxSpans = maxSpans;
+		}
+	}
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration of the Zipkin Stream server that doesn't depend on whether the
+ * {@link ZipkinMessageListener} is turned on.
+ *
+ * @since 1.2.0
+ *
+ * @see EnableZipkinStreamServer
+ */
+@Configuration
+public class ZipkinStreamServerConfiguration {
+
+	/**
+	 * Decodes spans sent with the {@link SpansMessageConverter#SPANS_CONTENT_TYPE binary
+	 * content type}. Spans sent as JSON are still read by the default converters.
+	 */
+	@Bean
+	@ConditionalOnMissingBean
+	public SpansMessageConverter sleuthSpansMessageConverter() {
+		return new SpansMessageConverter();
+	}
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import zipkin.Annotation;
+import zipkin.Constants;
+import zipkin.Endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanHalfMergerTests {
+
+	Endpoint client = Endpoint.create("client", 1 << 24 | 2 << 16 | 3 << 8 | 4);
+	Endpoint server = Endpoint.create("server", 1 << 24 | 2 << 16 | 3 << 8 | 5);
+	ZipkinStreamProperties.Merge merge = new ZipkinStreamProperties.Merge();
+	List<zipkin.Span> stored = new ArrayList<>();
+	long nanoTime;
+	SpanHalfMerger merger;
+
+	@After
+	public void close() {
+		if (this.merger != null) {
+			this.merger.close();
+		}
+	}
+
+	@Test
+	public void should_merge_halves_arriving_in_different_messages() {
+		this.merger = merger();
+
+		this.merger.accept(Arrays.asList(serverHalf(1L)));
+		assertThat(this.stored).isEmpty();
+		this.merger.accept(Arrays.asList(clientHalf(1L)));
+
+		assertThat(this.stored).hasSize(1);
+		zipkin.Span merged = this.stored.get(0);
+		assertThat(merged.timestamp).isEqualTo(1000L);
+		assertThat(merged.duration).isEqualTo(500L);
+		assertThat(merged.annotations).extracting("value").containsExactly(
+				Constants.CLIENT_SEND, Constants.SERVER_RECV, Constants.SERVER_SEND,
+				Constants.CLIENT_RECV);
+	}
+
+	@Test
+	public void should_pass_on_spans_that_are_not_rpc_halves_right_away() {
+		this.merger = merger();
+		zipkin.Span local = zipkin.Span.builder().traceId(1L).id(2L).name("local").build();
+
+		this.merger.accept(Arrays.asList(local, clientHalf(3L)));
+
+		assertThat(this.stored).containsExactly(local);
+	}
+
+	@Test
+	public void should_pass_on_spans_that_already_carry_both_halves_right_away() {
+		this.merger = merger();
+		zipkin.Span both = clientHalf(1L).toBuilder().merge(serverHalf(1L)).build();
+
+		this.merger.accept(Arrays.asList(both));
+		assertThat(this.stored).containsExactly(both);
+		this.merger.accept(Arrays.asList(serverHalf(1L)));
+
+		assertThat(this.stored).containsExactly(both);
+	}
+
+	@Test
+	public void should_pass_on_a_half_alone_after_the_window() {
+		this.merger = merger();
+		this.merger.accept(Arrays.asList(clientHalf(1L)));
+
+		tick(this.merge.getWindow() - 1);
+		this.merger.sweep();
+		assertThat(this.stored).isEmpty();
+		tick(1);
+		this.merger.sweep();
+
+		assertThat(this.stored).containsExactly(clientHalf(1L));
+	}
+
+	@Test
+	public void should_pass_on_the_oldest_half_when_full() {
+		this.merge.setMaxSpans(1);
+		this.merger = merger();
+
+		this.merger.accept(Arrays.asList(clientHalf(1L), clientHalf(2L)));
+
+		assertThat(this.stored).containsExactly(clientHalf(1L));
+	}
+
+	private SpanHalfMerger merger() {
+		return new SpanHalfMerger(this.merge, this.stored::addAll) {
+			@Override long nanoTime() {
+				return SpanHalfMergerTests.this.nanoTime;
+			}
+		};
+	}
+
+	private void tick(long millis) {
+		this.nanoTime += TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private zipkin.Span clientHalf(long id) {
+		return zipkin.Span.builder().traceId(1L).id(id).name("get").timestamp(1000L).duration(500L)
+				.addAnnotation(Annotation.create(1000L, Constants.CLIENT_SEND, this.client))
+				.addAnnotation(Annotation.create(1500L, Constants.CLIENT_RECV, this.client))
+				.build();
+	}
+
+	private zipkin.Span serverHalf(long id) {
+		return zipkin.Span.builder().traceId(1L).id(id).name("get")
+				.addAnnotation(Annotation.create(1100L, Constants.SERVER_RECV, this.server))
+				.addAnnotation(Annotation.create(1400L, Constants.SERVER_SEND, this.server))
+				.build();
+	}
+}
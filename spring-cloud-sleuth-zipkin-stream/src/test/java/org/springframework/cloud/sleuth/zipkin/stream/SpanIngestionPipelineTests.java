@@ -0,0 +1,145 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.Spans;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpanIngestionPipelineTests {
+
+	Host host = new Host("myservice", "1.2.3.4", 8080);
+	List<List<zipkin.Span>> stored = new CopyOnWriteArrayList<>();
+	CountDownLatch storedLatch = new CountDownLatch(1);
+	ZipkinStreamProperties.Ingestion ingestion = new ZipkinStreamProperties.Ingestion();
+	SpanIngestionPipeline pipeline;
+
+	@After
+	public void close() {
+		if (this.pipeline != null) {
+			this.pipeline.close();
+		}
+	}
+
+	@Test
+	public void should_store_all_received_spans() {
+		this.ingestion.setWorkers(4);
+		this.pipeline = new SpanIngestionPipeline(this.ingestion, this.stored::add);
+
+		for (long i = 1; i <= 100; i++) {
+			this.pipeline.accept(spans(i));
+		}
+		this.pipeline.close();
+
+		assertThat(storedTraceIds()).hasSize(100);
+		for (long i = 1; i <= 100; i++) {
+			assertThat(storedTraceIds()).contains(i);
+		}
+	}
+
+	@Test
+	public void should_store_spans_of_several_messages_in_one_batch() throws Exception {
+		this.ingestion.setWorkers(1);
+		this.ingestion.setStorageBatchSize(3);
+		this.ingestion.setStorageLinger(TimeUnit.SECONDS.toMillis(10));
+		this.pipeline = new SpanIngestionPipeline(this.ingestion, this::store);
+
+		this.pipeline.accept(spans(1L));
+		this.pipeline.accept(spans(2L));
+		this.pipeline.accept(spans(3L));
+
+		assertThat(this.storedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(this.stored).hasSize(1);
+		assertThat(storedTraceIds()).containsExactly(1L, 2L, 3L);
+	}
+
+	@Test
+	public void should_store_an_incomplete_batch_once_it_lingered() throws Exception {
+		this.ingestion.setStorageBatchSize(100);
+		this.ingestion.setStorageLinger(10);
+		this.pipeline = new SpanIngestionPipeline(this.ingestion, this::store);
+
+		this.pipeline.accept(spans(1L));
+
+		assertThat(this.storedLatch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(storedTraceIds()).containsExactly(1L);
+	}
+
+	@Test
+	public void should_block_the_caller_while_storage_is_behind() throws Exception {
+		CountDownLatch storageLatch = new CountDownLatch(1);
+		this.ingestion.setWorkers(1);
+		this.ingestion.setQueueSize(1);
+		this.ingestion.setStorageQueueSize(1);
+		this.ingestion.setStorageBatchSize(1);
+		this.pipeline = new SpanIngestionPipeline(this.ingestion, spans -> {
+			try {
+				storageLatch.await();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			this.stored.add(spans);
+		});
+		CountDownLatch accepted = new CountDownLatch(1);
+		Thread producer = new Thread(() -> {
+			for (long i = 1; i <= 10; i++) {
+				this.pipeline.accept(spans(i));
+			}
+			accepted.countDown();
+		});
+		producer.start();
+
+		assertThat(accepted.await(200, TimeUnit.MILLISECONDS)).isFalse();
+		storageLatch.countDown();
+		assertThat(accepted.await(5, TimeUnit.SECONDS)).isTrue();
+		this.pipeline.close();
+		assertThat(storedTraceIds()).hasSize(10);
+	}
+
+	private void store(List<zipkin.Span> spans) {
+		this.stored.add(spans);
+		this.storedLatch.countDown();
+	}
+
+	private Spans spans(long traceId) {
+		Span span = Span.builder().traceId(traceId).spanId(traceId).name("foo")
+				.processId("process").build();
+		return new Spans(this.host, Collections.singletonList(span));
+	}
+
+	private List<Long> storedTraceIds() {
+		List<Long> traceIds = new ArrayList<>();
+		for (List<zipkin.Span> batch : this.stored) {
+			for (zipkin.Span span : batch) {
+				traceIds.add(span.traceId);
+			}
+		}
+		return traceIds;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import zipkin.BinaryAnnotation;
+import zipkin.Endpoint;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TailSamplerTests {
+
+	Endpoint endpoint = Endpoint.create("myservice", 1 << 24 | 2 << 16 | 3 << 8 | 4);
+	ZipkinStreamProperties.TailSampling sampling = new ZipkinStreamProperties.TailSampling();
+	List<List<zipkin.Span>> stored = new ArrayList<>();
+	long nanoTime;
+	TailSampler sampler;
+
+	@After
+	public void close() {
+		if (this.sampler != null) {
+			this.sampler.close();
+		}
+	}
+
+	@Test
+	public void should_keep_slow_traces_once_they_are_complete() {
+		this.sampler = sampler();
+
+		this.sampler.accept(Arrays.asList(span(1L, 1L, null, 5000), span(1L, 2L, 1L, 10)));
+		this.sampler.sweep();
+		assertThat(this.stored).isEmpty();
+
+		tick(this.sampling.getIdleTimeout());
+		this.sampler.sweep();
+
+		assertThat(this.stored).hasSize(1);
+		assertThat(this.stored.get(0)).extracting("id").containsExactly(1L, 2L);
+	}
+
+	@Test
+	public void should_drop_fast_traces_and_their_late_spans() {
+		this.sampler = sampler();
+
+		this.sampler.accept(Arrays.asList(span(1L, 1L, null, 10)));
+		tick(this.sampling.getIdleTimeout());
+		this.sampler.sweep();
+		this.sampler.accept(Arrays.asList(span(1L, 2L, 1L, 5000)));
+		this.sampler.close();
+
+		assertThat(this.stored).isEmpty();
+	}
+
+	@Test
+	public void should_keep_failed_traces() {
+		this.sampler = sampler();
+		zipkin.Span failed = span(2L, 2L, null, 10).toBuilder()
+				.addBinaryAnnotation(BinaryAnnotation.create("http.status_code", "503", this.endpoint))
+				.build();
+
+		this.sampler.accept(Arrays.asList(span(1L, 1L, null, 10), failed));
+		tick(this.sampling.getIdleTimeout());
+		this.sampler.sweep();
+
+		assertThat(this.stored).hasSize(1);
+		assertThat(this.stored.get(0)).containsExactly(failed);
+	}
+
+	@Test
+	public void should_wait_for_the_trace_timeout_when_root_span_is_missing() {
+		this.sampler = sampler();
+
+		this.sampler.accept(Arrays.asList(span(1L, 2L, 1L, 5000)));
+		tick(this.sampling.getIdleTimeout());
+		this.sampler.sweep();
+		assertThat(this.stored).isEmpty();
+
+		tick(this.sampling.getTraceTimeout());
+		this.sampler.sweep();
+
+		assertThat(this.stored).hasSize(1);
+	}
+
+	@Test
+	public void should_decide_least_recently_updated_trace_when_full() {
+		this.sampling.setMaxTraces(2);
+		this.sampler = sampler();
+
+		this.sampler.accept(Arrays.asList(span(1L, 1L, 5L, 5000)));
+		this.sampler.accept(Arrays.asList(span(2L, 2L, 5L, 5000)));
+		this.sampler.accept(Arrays.asList(span(1L, 3L, 5L, 10)));
+		this.sampler.accept(Arrays.asList(span(3L, 4L, 5L, 5000)));
+
+		assertThat(this.stored).hasSize(1);
+		assertThat(this.stored.get(0)).extracting("traceId").containsExactly(2L);
+	}
+
+	@Test
+	public void should_keep_a_percentage_of_other_traces() {
+		DefaultTailSamplingRule rule = new DefaultTailSamplingRule(1000, 0.5f);
+		int kept = 0;
+		for (long traceId = 0; traceId < 10000; traceId++) {
+			if (rule.keep(Arrays.asList(span(traceId * 7919, 1L, null, 10)))) {
+				kept++;
+			}
+		}
+
+		assertThat(kept).isBetween(4500, 5500);
+	}
+
+	private TailSampler sampler() {
+		return new TailSampler(this.sampling, new DefaultTailSamplingRule(
+				this.sampling.getLatencyThreshold(), this.sampling.getPercentage()),
+				this.stored::add) {
+			@Override long nanoTime() {
+				return TailSamplerTests.this.nanoTime;
+			}
+		};
+	}
+
+	private void tick(long millis) {
+		this.nanoTime += TimeUnit.MILLISECONDS.toNanos(millis);
+	}
+
+	private zipkin.Span span(long traceId, long id, Long parentId, long durationMillis) {
+		return zipkin.Span.builder().traceId(traceId).id(id).parentId(parentId).name("foo")
+				.timestamp(1000L).duration(durationMillis * 1000).build();
+	}
+}
@@ -20,6 +20,10 @@ import java.util.Collections;
 import org.junit.Test;
 import org.springframework.cloud.sleuth.Span;
 import org.springframework.cloud.sleuth.stream.Host;
+import org.springframework.cloud.sleuth.stream.Spans;
+import org.springframework.cloud.sleuth.stream.SpansMessageConverter;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.MessageBuilder;
 import zipkin.BinaryAnnotation;
 import zipkin.Endpoint;
 
@@ -108,4 +112,23 @@ public class ZipkinMessageListenerTests {
 		assertThat(result.binaryAnnotations)
 				.containsOnly(BinaryAnnotation.create("lc", "unknown", this.endpoint));
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void spansSentAsBinaryConvertLikeTheOriginalOnes() {
+		this.span.logEvent("cs");
+		this.span.tag("http.method", "GET");
+		this.span.stop();
+		SpansMessageConverter converter = new SpansMessageConverter();
+		MessageHeaders headers = new MessageHeaders(Collections.<String, Object>singletonMap(
+				MessageHeaders.CONTENT_TYPE, SpansMessageConverter.SPANS_CONTENT_TYPE));
+		Object payload = converter.toMessage(new Spans(this.host, Collections.singletonList(this.span)),
+				headers).getPayload();
+
+		Spans decoded = (Spans) converter.fromMessage(MessageBuilder.withPayload(payload)
+				.setHeader(MessageHeaders.CONTENT_TYPE, SpansMessageConverter.SPANS_CONTENT_TYPE).build(), Spans.class);
+
+		assertThat(ConvertToZipkinSpanList.convert(decoded))
+				.isEqualTo(ConvertToZipkinSpanList.convert(new Spans(this.host,
+						Collections.singletonList(this.span))));
+	}
+}
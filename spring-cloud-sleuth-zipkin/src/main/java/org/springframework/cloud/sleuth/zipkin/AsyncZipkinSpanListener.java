@@ -0,0 +1,164 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+
+/**
+ * {@link ZipkinSpanListener} that doesn't convert spans on the thread that closes them.
+ * Finished Sleuth spans are put on a bounded, lock-free queue and a single conversion
+ * thread converts them to Zipkin spans and passes them to the {@link ZipkinSpanReporter}.
+ * That way the critical path of closing a span is a single enqueue.
+ *
+ * If the queue is full the span is dropped and counted via {@link SpanMetricReporter}.
+ *
+ * The conversion thread is started by {@link #start()}, which Spring calls once the
+ * listener is initialized. Until then spans are only queued.
+ *
+ * @since 1.2.0
+ */
+public class AsyncZipkinSpanListener extends ZipkinSpanListener
+		implements InitializingBean, Flushable, Closeable {
+
+	private static final Log log = LogFactory.getLog(AsyncZipkinSpanListener.class);
+	private static final long MAX_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+	private final Queue<Span> pending = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger pendingCount = new AtomicInteger();
+	private final int queueSize;
+	private final SpanMetricReporter spanMetricReporter;
+	private final Thread converter;
+	private final AtomicBoolean started = new AtomicBoolean();
+	private volatile boolean converterParked;
+	private volatile boolean closed;
+
+	public AsyncZipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator,
+			SpanMetricReporter spanMetricReporter, int queueSize) {
+		super(reporter, endpointLocator);
+		this.spanMetricReporter = spanMetricReporter;
+		this.queueSize = queueSize;
+		this.converter = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				convertPending();
+			}
+		}, "sleuth-zipkin-span-converter");
+		this.converter.setDaemon(true);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		start();
+	}
+
+	/**
+	 * Starts the conversion thread. Calling it more than once has no effect.
+	 */
+	public void start() {
+		if (this.started.compareAndSet(false, true)) {
+			this.converter.start();
+		}
+	}
+
+	@Override
+	public void report(Span span) {
+		if (!span.isExportable()) {
+			super.report(span);
+			return;
+		}
+		if (this.closed) {
+			this.spanMetricReporter.incrementDroppedSpans(1);
+			return;
+		}
+		if (this.pendingCount.incrementAndGet() > this.queueSize) {
+			this.pendingCount.decrementAndGet();
+			this.spanMetricReporter.incrementDroppedSpans(1);
+			return;
+		}
+		this.pending.offer(span);
+		if (this.converterParked) {
+			LockSupport.unpark(this.converter);
+		}
+	}
+
+	/**
+	 * Converts and reports all pending spans on the current thread.
+	 */
+	@Override
+	public void flush() {
+		drain();
+	}
+
+	/**
+	 * Stops accepting spans, stops the conversion thread and reports whatever is
+	 * still pending on the current thread.
+	 */
+	@Override
+	public void close() {
+		this.closed = true;
+		LockSupport.unpark(this.converter);
+		try {
+			this.converter.join(TimeUnit.SECONDS.toMillis(1));
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		drain();
+	}
+
+	private void convertPending() {
+		while (!this.closed) {
+			if (drain() == 0) {
+				this.converterParked = true;
+				// re-check so that a span offered before the flag was set isn't left behind
+				if (this.pending.isEmpty() && !this.closed) {
+					LockSupport.parkNanos(this, MAX_PARK_NANOS);
+				}
+				this.converterParked = false;
+			}
+		}
+	}
+
+	private int drain() {
+		int drained = 0;
+		Span span;
+		while ((span = this.pending.poll()) != null) {
+			this.pendingCount.decrementAndGet();
+			drained++;
+			try {
+				super.report(span);
+			}
+			catch (RuntimeException e) {
+				log.error("Exception occurred while converting span " + span, e);
+			}
+		}
+		return drained;
+	}
+}
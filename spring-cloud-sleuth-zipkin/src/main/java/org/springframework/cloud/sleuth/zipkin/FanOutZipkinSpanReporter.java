@@ -0,0 +1,139 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.util.Assert;
+
+import zipkin.Span;
+import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Encoder;
+import zipkin.reporter.Encoding;
+
+/**
+ * Reports each span to several destinations while encoding it only once. The encoded
+ * span is shared by all destinations, so neither the destinations nor their
+ * {@link zipkin.reporter.Sender senders} may modify it.
+ *
+ * Every destination is an {@link AsyncReporter} with its own queue, bounds and flush
+ * thread, configured via its {@link AsyncReporter.Builder}. A destination that is slow
+ * or unavailable only fills up and drops from its own queue, it doesn't block the other
+ * destinations.
+ *
+ * <pre>{@code
+ * FanOutZipkinSpanReporter reporter = FanOutZipkinSpanReporter.builder(Encoding.JSON)
+ *     .destination(AsyncReporter.builder(httpSender).queuedMaxSpans(1000))
+ *     .destination(AsyncReporter.builder(fileSender).messageTimeout(5, TimeUnit.SECONDS))
+ *     .build();
+ * }</pre>
+ *
+ * @since 1.2.0
+ */
+public final class FanOutZipkinSpanReporter implements ZipkinSpanReporter, Flushable, Closeable {
+
+	private final Encoder<Span> encoder;
+	private final List<AsyncReporter<byte[]>> destinations;
+
+	FanOutZipkinSpanReporter(Builder builder) {
+		this.encoder = builder.encoder;
+		this.destinations = Collections.unmodifiableList(builder.destinations);
+	}
+
+	/**
+	 * @param encoding encoding of the spans, has to be the one of all destinations' senders
+	 */
+	public static Builder builder(Encoding encoding) {
+		return new Builder(encoding);
+	}
+
+	/**
+	 * Encodes the span and queues it on every destination
+	 */
+	@Override
+	public void report(Span span) {
+		byte[] encoded = this.encoder.encode(span);
+		for (int i = 0; i < this.destinations.size(); i++) {
+			this.destinations.get(i).report(encoded);
+		}
+	}
+
+	@Override
+	public void flush() {
+		for (AsyncReporter<byte[]> destination : this.destinations) {
+			destination.flush();
+		}
+	}
+
+	@Override
+	public void close() {
+		for (AsyncReporter<byte[]> destination : this.destinations) {
+			destination.close();
+		}
+	}
+
+	public static final class Builder {
+		private final Encoder<Span> encoder;
+		private final Encoder<byte[]> preEncoded;
+		private final List<AsyncReporter<byte[]>> destinations = new ArrayList<>();
+
+		Builder(Encoding encoding) {
+			Assert.notNull(encoding, "Encoding must not be null");
+			this.encoder = encoding == Encoding.JSON ? Encoder.JSON : Encoder.THRIFT;
+			this.preEncoded = new PreEncoded(encoding);
+		}
+
+		/**
+		 * Adds a destination. The queue and the flush policy of the destination are the
+		 * ones set on the given builder.
+		 */
+		public Builder destination(AsyncReporter.Builder destination) {
+			this.destinations.add(destination.build(this.preEncoded));
+			return this;
+		}
+
+		public FanOutZipkinSpanReporter build() {
+			Assert.notEmpty(this.destinations, "At least one destination is required");
+			return new FanOutZipkinSpanReporter(this);
+		}
+	}
+
+	/**
+	 * Passes through spans that were already encoded by {@link FanOutZipkinSpanReporter}.
+	 */
+	private static final class PreEncoded implements Encoder<byte[]> {
+		private final Encoding encoding;
+
+		PreEncoded(Encoding encoding) {
+			this.encoding = encoding;
+		}
+
+		@Override
+		public Encoding encoding() {
+			return this.encoding;
+		}
+
+		@Override
+		public byte[] encode(byte[] encoded) {
+			return encoded;
+		}
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+/**
+ * {@link Sender} that appends JSON encoded spans, one per line, to a file. A local agent
+ * (e.g. a log shipper) can then forward them to Zipkin. Each message is written with a
+ * single {@link FileChannel} write.
+ *
+ * The file is rotated when it exceeds the configured size or when it is older than the
+ * rotation interval. Rotated files get a timestamp in their name and only the newest
+ * ones are kept.
+ *
+ * How often the data is forced to disk is controlled by the {@link Fsync} policy.
+ *
+ * @since 1.2.0
+ */
+public class FileSender implements Sender {
+
+	private static final Log log = LogFactory.getLog(MethodHandles.lookup().lookupClass());
+	private static final byte NEW_LINE = '\n';
+	private static final String SUFFIX = ".ndjson";
+
+	/**
+	 * Policy of forcing written spans to disk
+	 */
+	public enum Fsync {
+		/** Leave it to the operating system */
+		NEVER,
+		/** After every written message */
+		ALWAYS,
+		/** After a message if the previous sync is older than the fsync interval */
+		PERIODIC
+	}
+
+	private final File directory;
+	private final String baseName;
+	private final long maxFileBytes;
+	private final long rotationIntervalMillis;
+	private final Fsync fsync;
+	private final long fsyncIntervalMillis;
+	private final int maxRotatedFiles;
+	private final int messageMaxBytes;
+
+	private FileChannel channel;
+	private long fileBytes;
+	private long fileOpenedMillis;
+	private long lastFsyncMillis;
+	private boolean closeCalled;
+
+	/**
+	 * @param file settings of the file the spans get written to
+	 * @param messageMaxBytes maximum number of bytes written at once
+	 */
+	public FileSender(ZipkinProperties.FileSink file, int messageMaxBytes) {
+		this.directory = new File(file.getDirectory());
+		this.baseName = file.getName();
+		this.maxFileBytes = file.getMaxFileSize();
+		this.rotationIntervalMillis = TimeUnit.SECONDS.toMillis(file.getRotationInterval());
+		this.fsync = file.getFsync();
+		this.fsyncIntervalMillis = TimeUnit.SECONDS.toMillis(file.getFsyncInterval());
+		this.maxRotatedFiles = file.getMaxRotatedFiles();
+		this.messageMaxBytes = messageMaxBytes;
+		if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+			throw new IllegalStateException("Can't create directory " + this.directory);
+		}
+	}
+
+	@Override public Encoding encoding() {
+		return Encoding.JSON;
+	}
+
+	@Override public int messageMaxBytes() {
+		return this.messageMaxBytes;
+	}
+
+	/** Each span is followed by a new line */
+	@Override public int messageSizeInBytes(List<byte[]> encodedSpans) {
+		int size = 0;
+		for (byte[] encodedSpan : encodedSpans) {
+			size += encodedSpan.length + 1;
+		}
+		return size;
+	}
+
+	@Override public synchronized void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+		if (this.closeCalled) throw new IllegalStateException("close");
+		try {
+			write(encodedSpans);
+			callback.onComplete();
+		} catch (Throwable e) {
+			callback.onError(e);
+			if (e instanceof Error) throw (Error) e;
+		}
+	}
+
+	private void write(List<byte[]> encodedSpans) throws IOException {
+		long now = currentTimeMillis();
+		int size = messageSizeInBytes(encodedSpans);
+		if (this.channel != null && shouldRotate(size, now)) {
+			rotate();
+		}
+		if (this.channel == null) {
+			open(now);
+		}
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		for (byte[] encodedSpan : encodedSpans) {
+			buffer.put(encodedSpan).put(NEW_LINE);
+		}
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			this.channel.write(buffer);
+		}
+		this.fileBytes += size;
+		if (this.fsync == Fsync.ALWAYS
+				|| (this.fsync == Fsync.PERIODIC && now - this.lastFsyncMillis >= this.fsyncIntervalMillis)) {
+			this.channel.force(false);
+			this.lastFsyncMillis = now;
+		}
+	}
+
+	private boolean shouldRotate(int nextMessageBytes, long now) {
+		if (this.fileBytes > 0 && this.fileBytes + nextMessageBytes > this.maxFileBytes) {
+			return true;
+		}
+		return this.rotationIntervalMillis > 0
+				&& now - this.fileOpenedMillis >= this.rotationIntervalMillis;
+	}
+
+	private void open(long now) throws IOException {
+		File file = activeFile();
+		this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		this.fileBytes = this.channel.size();
+		this.fileOpenedMillis = now;
+		this.lastFsyncMillis = now;
+	}
+
+	private void rotate() throws IOException {
+		closeChannel();
+		File active = activeFile();
+		// rotated files are named after the time of rotation so that they sort by age
+		long stamp = currentTimeMillis();
+		File rotated;
+		while ((rotated = new File(this.directory, this.baseName + "-" + stamp + SUFFIX)).exists()) {
+			stamp++;
+		}
+		if (!active.renameTo(rotated)) {
+			log.warn("Failed to rotate " + active + ", will keep appending to it");
+			return;
+		}
+		removeOldestRotatedFiles();
+	}
+
+	private void removeOldestRotatedFiles() {
+		final String prefix = this.baseName + "-";
+		File[] rotated = this.directory.listFiles(new FilenameFilter() {
+			@Override public boolean accept(File dir, String name) {
+				return name.startsWith(prefix) && name.endsWith(SUFFIX);
+			}
+		});
+		if (rotated == null || rotated.length <= this.maxRotatedFiles) {
+			return;
+		}
+		Arrays.sort(rotated);
+		for (int i = 0; i < rotated.length - this.maxRotatedFiles; i++) {
+			if (!rotated[i].delete()) {
+				log.warn("Failed to remove rotated file " + rotated[i]);
+			}
+		}
+	}
+
+	private File activeFile() {
+		return new File(this.directory, this.baseName + SUFFIX);
+	}
+
+	private void closeChannel() throws IOException {
+		if (this.channel != null) {
+			if (this.fsync != Fsync.NEVER) {
+				this.channel.force(false);
+			}
+			this.channel.close();
+			this.channel = null;
+		}
+	}
+
+	// Visible for testing
+	long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/** Checks that the directory the spans are written to is writable */
+	@Override public CheckResult check() {
+		if (this.directory.isDirectory() && this.directory.canWrite()) {
+			return CheckResult.OK;
+		}
+		return CheckResult.failed(new IllegalStateException(
+				"Can't write to directory " + this.directory));
+	}
+
+	@Override public synchronized void close() throws IOException {
+		this.closeCalled = true;
+		closeChannel();
+	}
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
+
+import zipkin.Span;
+import zipkin.reporter.AsyncReporter;
+
+/**
+ * Appends spans as newline-delimited JSON to local files, see {@link FileSender}. Spans
+ * are queued and written in batches, with the same bounds and flush interval as the
+ * ones used for the zipkin server.
+ *
+ * @since 1.2.0
+ */
+public final class FileZipkinSpanReporter implements ZipkinSpanReporter, Flushable, Closeable {
+	private final FileSender sender;
+	private final AsyncReporter<Span> delegate;
+
+	/**
+	 * @param zipkin settings of the files and of the queue of pending spans
+	 * @param spanMetricReporter service to count number of accepted / dropped spans
+	 */
+	public FileZipkinSpanReporter(ZipkinProperties zipkin, SpanMetricReporter spanMetricReporter) {
+		this.sender = new FileSender(zipkin.getFile(), zipkin.getMessageMaxBytes());
+		this.delegate = AsyncReporter.builder(this.sender)
+				.queuedMaxSpans(zipkin.getQueuedMaxSpans())
+				.queuedMaxBytes(zipkin.getQueuedMaxBytes())
+				.messageMaxBytes(zipkin.getMessageMaxBytes())
+				.messageTimeout(zipkin.getFlushInterval(), TimeUnit.SECONDS)
+				.metrics(new ReporterMetricsAdapter(spanMetricReporter))
+				.build();
+	}
+
+	/**
+	 * Queues the span for writing, or drops it if the queue is full.
+	 *
+	 * @param span Span, should not be <code>null</code>.
+	 */
+	@Override
+	public void report(Span span) {
+		this.delegate.report(span);
+	}
+
+	/**
+	 * Calling this will write any pending spans to the file on the current thread.
+	 */
+	@Override
+	public void flush() {
+		this.delegate.flush();
+	}
+
+	/**
+	 * Blocks until in-flight spans are written and closes the file.
+	 */
+	@Override
+	public void close() {
+		this.delegate.close();
+		try {
+			this.sender.close();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to close the file", e);
+		}
+	}
+}
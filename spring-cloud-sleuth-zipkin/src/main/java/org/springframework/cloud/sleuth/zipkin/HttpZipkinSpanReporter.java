@@ -1,14 +1,21 @@
 package org.springframework.cloud.sleuth.zipkin;
 
 import java.io.Closeable;
+import java.io.File;
 import java.io.Flushable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.springframework.cloud.sleuth.metric.SpanMetricReporter;
 import org.springframework.web.client.RestTemplate;
 
 import zipkin.Span;
 import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Sender;
 
 /**
  * Submits spans using Zipkin's {@code POST /spans} endpoint.
@@ -17,8 +24,10 @@ import zipkin.reporter.AsyncReporter;
  * @since 1.0.0
  */
 public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushable, Closeable {
-	private final RestTemplateSender sender;
-	private final AsyncReporter<Span> delegate;
+	private static final Log log = LogFactory.getLog(HttpZipkinSpanReporter.class);
+
+	private final Sender sender;
+	private final List<AsyncReporter<Span>> delegates;
 
 	/**
 	 * @param restTemplate {@link RestTemplate} used for sending requests to Zipkin
@@ -28,12 +37,63 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	 */
 	public HttpZipkinSpanReporter(RestTemplate restTemplate, String baseUrl, int flushInterval,
 			SpanMetricReporter spanMetricReporter) {
-		this.sender = new RestTemplateSender(restTemplate, baseUrl);
-		this.delegate = AsyncReporter.builder(this.sender)
-				.queuedMaxSpans(1000) // historical constraint. Note: AsyncReporter supports memory bounds
-				.messageTimeout(flushInterval, TimeUnit.SECONDS)
-				.metrics(new ReporterMetricsAdapter(spanMetricReporter))
-				.build();
+		this(restTemplate, properties(baseUrl, flushInterval), spanMetricReporter);
+	}
+
+	/**
+	 * @param restTemplate {@link RestTemplate} used for sending requests to Zipkin
+	 * @param zipkin settings of the Zipkin server and of the queue of pending spans
+	 * @param spanMetricReporter service to count number of accepted / dropped spans
+	 */
+	public HttpZipkinSpanReporter(RestTemplate restTemplate, ZipkinProperties zipkin,
+			SpanMetricReporter spanMetricReporter) {
+		this.sender = sender(restTemplate, zipkin);
+		int flushThreads = Math.max(1, zipkin.getFlushThreads());
+		this.delegates = new ArrayList<>(flushThreads);
+		ReporterMetricsAdapter metrics = new ReporterMetricsAdapter(spanMetricReporter);
+		// each flush thread owns an equal share of the queue so that the bounds stay global
+		for (int i = 0; i < flushThreads; i++) {
+			this.delegates.add(AsyncReporter.builder(this.sender)
+					.queuedMaxSpans(share(zipkin.getQueuedMaxSpans(), flushThreads))
+					.queuedMaxBytes(share(zipkin.getQueuedMaxBytes(), flushThreads))
+					.messageMaxBytes(zipkin.getMessageMaxBytes())
+					.messageTimeout(zipkin.getFlushInterval(), TimeUnit.SECONDS)
+					.metrics(metrics)
+					.build());
+		}
+	}
+
+	private static Sender sender(RestTemplate restTemplate, ZipkinProperties zipkin) {
+		Sender sender = new RestTemplateSender(restTemplate, zipkin.getBaseUrl(),
+				zipkin.getMessageMaxBytes());
+		ZipkinProperties.Spill spill = zipkin.getSpill();
+		if (!spill.isEnabled()) {
+			return sender;
+		}
+		File directory = spill.getDirectory() != null ? new File(spill.getDirectory())
+				: new File(System.getProperty("java.io.tmpdir"), "sleuth-zipkin-spill");
+		SpanSpillStore store;
+		try {
+			store = new SpanSpillStore(directory, spill.getSegmentSize(), spill.getMaxSize());
+		}
+		catch (IllegalStateException e) {
+			log.warn("Spans won't be spilled to disk, set a spill directory of its own "
+					+ "for this application", e);
+			return sender;
+		}
+		return new SpillingSender(sender, store, spill.getRetryInterval(), TimeUnit.SECONDS,
+				spill.getMaxReplayMessages(), spill.getMaxAttempts());
+	}
+
+	private static ZipkinProperties properties(String baseUrl, int flushInterval) {
+		ZipkinProperties properties = new ZipkinProperties();
+		properties.setBaseUrl(baseUrl);
+		properties.setFlushInterval(flushInterval);
+		return properties;
+	}
+
+	private static int share(int total, int parts) {
+		return Math.max(1, (total + parts - 1) / parts);
 	}
 
 	/**
@@ -43,7 +103,10 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	 */
 	@Override
 	public void report(Span span) {
-		this.delegate.report(span);
+		// spans of the same trace are always queued on the same flush thread
+		int index = this.delegates.size() == 1 ? 0
+				: (int) ((span.traceId & Long.MAX_VALUE) % this.delegates.size());
+		this.delegates.get(index).report(span);
 	}
 
 	/**
@@ -51,7 +114,9 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	 */
 	@Override
 	public void flush() {
-		this.delegate.flush();
+		for (AsyncReporter<Span> delegate : this.delegates) {
+			delegate.flush();
+		}
 	}
 
 	/**
@@ -59,7 +124,14 @@ public final class HttpZipkinSpanReporter implements ZipkinSpanReporter, Flushab
 	 */
 	@Override
 	public void close() {
-		this.delegate.close();
-		this.sender.close();
+		for (AsyncReporter<Span> delegate : this.delegates) {
+			delegate.close();
+		}
+		try {
+			this.sender.close();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Failed to close the sender", e);
+		}
 	}
 }
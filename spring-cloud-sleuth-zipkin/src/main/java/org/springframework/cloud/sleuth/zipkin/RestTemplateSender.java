@@ -14,13 +14,27 @@ import zipkin.reporter.Callback;
 import zipkin.reporter.Encoding;
 import zipkin.reporter.Sender;
 
-final class RestTemplateSender implements Sender {
+/**
+ * {@link Sender} that posts JSON encoded spans to Zipkin's {@code POST /api/v1/spans}
+ * endpoint with a {@link RestTemplate}. It's the sender of {@link HttpZipkinSpanReporter}
+ * and can be a destination of a {@link FanOutZipkinSpanReporter}.
+ *
+ * @since 1.2.0
+ */
+public final class RestTemplateSender implements Sender {
 	final RestTemplate restTemplate;
 	final String url;
+	final int messageMaxBytes;
 
-	RestTemplateSender(RestTemplate restTemplate, String baseUrl) {
+	/**
+	 * @param restTemplate {@link RestTemplate} used for sending requests to Zipkin
+	 * @param baseUrl URL of the zipkin query server instance. Like: http://localhost:9411/
+	 * @param messageMaxBytes maximum size of a message, larger spans are dropped
+	 */
+	public RestTemplateSender(RestTemplate restTemplate, String baseUrl, int messageMaxBytes) {
 		this.restTemplate = restTemplate;
 		this.url = baseUrl + (baseUrl.endsWith("/") ? "" : "/") + "api/v1/spans";
+		this.messageMaxBytes = messageMaxBytes;
 	}
 
 	@Override public Encoding encoding() {
@@ -28,8 +42,8 @@ final class RestTemplateSender implements Sender {
 	}
 
 	@Override public int messageMaxBytes() {
-		// This will drop a span larger than 5MiB. Note: values like 512KiB benchmark better.
-		return 5 * 1024 * 1024;
+		// This will drop a span larger than the limit. See ZipkinProperties.messageMaxBytes
+		return this.messageMaxBytes;
 	}
 
 	@Override public int messageSizeInBytes(List<byte[]> spans) {
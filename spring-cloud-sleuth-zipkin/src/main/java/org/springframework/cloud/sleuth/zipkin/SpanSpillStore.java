@@ -0,0 +1,431 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Append-only log of encoded spans stored in memory-mapped segment files. Used to keep
+ * spans that couldn't be sent to Zipkin without growing the heap. Spans are read back in
+ * the order they were appended.
+ *
+ * Each segment starts with a header holding the read position in that segment, followed
+ * by records prefixed with their length. A zero length marks the end of the written part
+ * of the segment. Thanks to that, spans that were left in the store survive a restart of
+ * the application.
+ *
+ * The store never takes more than {@code maxBytes} on disk - appends that would exceed
+ * that limit are rejected. Segments are unmapped before they're deleted so that their
+ * disk space is released right away.
+ *
+ * The directory is locked while the store is open, it can't be shared by two stores.
+ *
+ * @since 1.2.0
+ */
+public class SpanSpillStore implements Closeable {
+
+	private static final Log log = LogFactory.getLog(SpanSpillStore.class);
+	private static final String SEGMENT_PREFIX = "spans-";
+	private static final String SEGMENT_SUFFIX = ".seg";
+	private static final int HEADER_BYTES = 4;
+	private static final int LENGTH_BYTES = 4;
+	private static final String LOCK_FILE = ".lock";
+
+	private final File directory;
+	private final int segmentBytes;
+	private final int maxSegments;
+	private final Deque<Segment> segments = new ArrayDeque<>();
+	private final FileChannel lockChannel;
+	private final FileLock lock;
+	private long nextSequence;
+	private boolean closed;
+
+	/**
+	 * @param directory directory in which the segment files are kept
+	 * @param segmentBytes size of a single segment file
+	 * @param maxBytes maximum number of bytes taken by all segment files
+	 */
+	public SpanSpillStore(File directory, int segmentBytes, long maxBytes) {
+		Assert.isTrue(segmentBytes > HEADER_BYTES + LENGTH_BYTES, "Segment size is too small");
+		Assert.isTrue(maxBytes >= segmentBytes, "Max size must fit at least one segment");
+		this.directory = directory;
+		this.segmentBytes = segmentBytes;
+		this.maxSegments = (int) Math.min(Integer.MAX_VALUE, maxBytes / segmentBytes);
+		if (!directory.isDirectory() && !directory.mkdirs()) {
+			throw new IllegalStateException("Can't create spill directory " + directory);
+		}
+		try {
+			this.lockChannel = new RandomAccessFile(new File(directory, LOCK_FILE), "rw")
+					.getChannel();
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Can't create lock file in " + directory, e);
+		}
+		this.lock = tryLock(this.lockChannel);
+		if (this.lock == null) {
+			closeQuietly(this.lockChannel);
+			throw new IllegalStateException("Spill directory " + directory
+					+ " is already used by another store");
+		}
+		openExistingSegments();
+	}
+
+	/**
+	 * Appends all the encoded spans or none of them if they don't fit in the store.
+	 *
+	 * @return {@code true} if the spans got stored
+	 */
+	public synchronized boolean append(List<byte[]> encodedSpans) {
+		int segmentsNeeded = segmentsNeeded(encodedSpans);
+		if (this.closed || segmentsNeeded < 0 || this.segments.size() + segmentsNeeded > this.maxSegments) {
+			return false;
+		}
+		for (byte[] encodedSpan : encodedSpans) {
+			Segment tail = this.segments.peekLast();
+			if (tail == null || !tail.fits(encodedSpan.length)) {
+				tail = newSegment();
+			}
+			tail.write(encodedSpan);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the oldest spans in the store without removing them. The sum of their sizes,
+	 * counting one additional delimiter byte per span, doesn't exceed {@code maxBytes}.
+	 * Always returns at least one span if the store isn't empty.
+	 */
+	public synchronized List<byte[]> peek(int maxBytes) {
+		if (isEmpty()) {
+			return Collections.emptyList();
+		}
+		List<byte[]> result = new ArrayList<>();
+		int bytes = 0;
+		for (Segment segment : this.segments) {
+			int position = segment.readPosition;
+			while (position < segment.writePosition) {
+				int length = segment.buffer.getInt(position);
+				if (!result.isEmpty() && bytes + length + 1 > maxBytes) {
+					return result;
+				}
+				result.add(segment.read(position + LENGTH_BYTES, length));
+				bytes += length + 1;
+				position += LENGTH_BYTES + length;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the given number of the oldest spans, typically the ones returned by
+	 * {@link #peek(int)} once they got sent.
+	 */
+	public synchronized void remove(int count) {
+		for (int i = 0; i < count && !isEmpty(); i++) {
+			removeConsumedSegments();
+			this.segments.peekFirst().skip();
+		}
+		removeConsumedSegments();
+	}
+
+	public synchronized boolean isEmpty() {
+		for (Segment segment : this.segments) {
+			if (segment.readPosition < segment.writePosition) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (this.closed) {
+			return;
+		}
+		for (Segment segment : this.segments) {
+			segment.buffer.force();
+			unmap(segment.buffer);
+		}
+		this.segments.clear();
+		this.closed = true;
+		try {
+			this.lock.release();
+		}
+		catch (IOException e) {
+			log.warn("Failed to release the lock of " + this.directory, e);
+		}
+		closeQuietly(this.lockChannel);
+	}
+
+	private static FileLock tryLock(FileChannel channel) {
+		try {
+			return channel.tryLock();
+		}
+		catch (OverlappingFileLockException e) {
+			// locked by a store of this JVM
+			return null;
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Can't lock spill directory", e);
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		}
+		catch (IOException e) {
+			log.debug("Failed to close " + closeable, e);
+		}
+	}
+
+	private void removeConsumedSegments() {
+		Segment head;
+		while ((head = this.segments.peekFirst()) != null
+				&& head.readPosition == head.writePosition) {
+			if (this.segments.size() == 1) {
+				head.reset();
+				return;
+			}
+			this.segments.removeFirst().delete();
+		}
+	}
+
+	private int segmentsNeeded(List<byte[]> encodedSpans) {
+		Segment tail = this.segments.peekLast();
+		int free = tail != null ? this.segmentBytes - tail.writePosition : 0;
+		int needed = 0;
+		for (byte[] encodedSpan : encodedSpans) {
+			int recordBytes = LENGTH_BYTES + encodedSpan.length;
+			if (recordBytes > this.segmentBytes - HEADER_BYTES) {
+				return -1;
+			}
+			if (recordBytes > free) {
+				needed++;
+				free = this.segmentBytes - HEADER_BYTES;
+			}
+			free -= recordBytes;
+		}
+		return needed;
+	}
+
+	private Segment newSegment() {
+		File file = new File(this.directory,
+				String.format("%s%020d%s", SEGMENT_PREFIX, this.nextSequence++, SEGMENT_SUFFIX));
+		Segment segment = new Segment(file, map(file));
+		segment.reset();
+		this.segments.addLast(segment);
+		return segment;
+	}
+
+	private void openExistingSegments() {
+		File[] files = this.directory.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+			}
+		});
+		if (files == null) {
+			return;
+		}
+		Arrays.sort(files);
+		for (File file : files) {
+			if (file.length() != this.segmentBytes) {
+				log.warn("Removing spill segment " + file + " of unexpected size " + file.length());
+				file.delete();
+				continue;
+			}
+			Segment segment = new Segment(file, map(file));
+			segment.recover();
+			this.segments.addLast(segment);
+			this.nextSequence = sequence(file) + 1;
+		}
+	}
+
+	private long sequence(File file) {
+		String name = file.getName();
+		return Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+				name.length() - SEGMENT_SUFFIX.length()));
+	}
+
+	private MappedByteBuffer map(File file) {
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, this.segmentBytes);
+		}
+		catch (IOException e) {
+			throw new IllegalStateException("Can't map spill segment " + file, e);
+		}
+	}
+
+	/**
+	 * Releases the memory mapping of the buffer right away instead of when the buffer
+	 * gets garbage collected. Until then the file of a deleted segment keeps taking disk
+	 * space. The buffer must not be used afterwards.
+	 */
+	static void unmap(MappedByteBuffer buffer) {
+		try {
+			if (Unmapper.INVOKE_CLEANER != null) {
+				ReflectionUtils.invokeMethod(Unmapper.INVOKE_CLEANER, Unmapper.UNSAFE, buffer);
+			}
+			else if (Unmapper.CLEANER != null) {
+				Object cleaner = ReflectionUtils.invokeMethod(Unmapper.CLEANER, buffer);
+				if (cleaner != null) {
+					ReflectionUtils.invokeMethod(Unmapper.CLEAN, cleaner);
+				}
+			}
+		}
+		catch (RuntimeException e) {
+			log.debug("Failed to unmap spill segment, it will be unmapped once collected", e);
+		}
+	}
+
+	/**
+	 * Looks up the JDK internals that release a mapping once, on first use. On Java 9 and
+	 * later that's {@code Unsafe.invokeCleaner}, before it's the cleaner of the buffer.
+	 */
+	private static final class Unmapper {
+		static final Object UNSAFE;
+		static final Method INVOKE_CLEANER;
+		static final Method CLEANER;
+		static final Method CLEAN;
+
+		static {
+			Object unsafe = null;
+			Method invokeCleaner = null;
+			Method cleaner = null;
+			Method clean = null;
+			try {
+				Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+				invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+				Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+				theUnsafe.setAccessible(true);
+				unsafe = theUnsafe.get(null);
+			}
+			catch (Exception e) {
+				invokeCleaner = null;
+				try {
+					cleaner = Class.forName("sun.nio.ch.DirectBuffer").getMethod("cleaner");
+					clean = cleaner.getReturnType().getMethod("clean");
+				}
+				catch (Exception ex) {
+					log.debug("Spill segments will be unmapped once collected", ex);
+				}
+			}
+			UNSAFE = unsafe;
+			INVOKE_CLEANER = invokeCleaner;
+			CLEANER = cleaner;
+			CLEAN = clean;
+		}
+	}
+
+	private final class Segment {
+		final File file;
+		final MappedByteBuffer buffer;
+		int readPosition;
+		int writePosition;
+
+		Segment(File file, MappedByteBuffer buffer) {
+			this.file = file;
+			this.buffer = buffer;
+		}
+
+		boolean fits(int length) {
+			return this.writePosition + LENGTH_BYTES + length <= SpanSpillStore.this.segmentBytes;
+		}
+
+		void write(byte[] encodedSpan) {
+			int position = this.writePosition;
+			ByteBuffer view = this.buffer.duplicate();
+			view.position(position + LENGTH_BYTES);
+			view.put(encodedSpan);
+			terminate(position + LENGTH_BYTES + encodedSpan.length);
+			// the length is written last so that a torn write is seen as the end of the segment
+			this.buffer.putInt(position, encodedSpan.length);
+			this.writePosition = position + LENGTH_BYTES + encodedSpan.length;
+		}
+
+		byte[] read(int position, int length) {
+			byte[] result = new byte[length];
+			ByteBuffer view = this.buffer.duplicate();
+			view.position(position);
+			view.get(result);
+			return result;
+		}
+
+		void skip() {
+			this.readPosition += LENGTH_BYTES + this.buffer.getInt(this.readPosition);
+			this.buffer.putInt(0, this.readPosition);
+		}
+
+		void reset() {
+			this.readPosition = HEADER_BYTES;
+			this.writePosition = HEADER_BYTES;
+			this.buffer.putInt(0, HEADER_BYTES);
+			terminate(HEADER_BYTES);
+		}
+
+		void recover() {
+			int position = HEADER_BYTES;
+			while (position + LENGTH_BYTES <= SpanSpillStore.this.segmentBytes) {
+				int length = this.buffer.getInt(position);
+				if (length <= 0 || position + LENGTH_BYTES + length > SpanSpillStore.this.segmentBytes) {
+					break;
+				}
+				position += LENGTH_BYTES + length;
+			}
+			this.writePosition = position;
+			int readPosition = this.buffer.getInt(0);
+			this.readPosition = readPosition >= HEADER_BYTES && readPosition <= position
+					? readPosition : HEADER_BYTES;
+		}
+
+		void delete() {
+			unmap(this.buffer);
+			if (!this.file.delete()) {
+				log.warn("Failed to remove spill segment " + this.file);
+			}
+		}
+
+		private void terminate(int position) {
+			if (position + LENGTH_BYTES <= SpanSpillStore.this.segmentBytes) {
+				this.buffer.putInt(position, 0);
+			}
+		}
+	}
+}
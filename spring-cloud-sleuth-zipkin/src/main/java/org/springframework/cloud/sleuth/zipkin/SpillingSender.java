@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+/**
+ * {@link Sender} that keeps the spans it failed to send in a {@link SpanSpillStore}
+ * instead of dropping them. Once there are spilled spans, every new message is appended
+ * to the store too, so that spans are sent in order.
+ *
+ * Replaying the store is retried at most once per {@code retryInterval} and sends at most
+ * {@code maxReplayMessages} messages at a time. Only one thread replays, the others
+ * append their messages to the store instead of waiting for it. Until the store is
+ * empty again new messages go straight to disk which keeps the in-memory queue of the
+ * reporter from filling up.
+ *
+ * When a replayed message fails, its oldest span is retried on its own. After
+ * {@code maxAttempts} failed attempts that span is dropped, so that a span the server
+ * keeps rejecting doesn't block the ones behind it. While the server is down that
+ * drops one span every {@code maxAttempts} retries.
+ *
+ * Spans are dropped as well when the store is full.
+ *
+ * Expects the delegate to invoke the callback before returning from
+ * {@link #sendSpans(List, Callback)}, like {@link RestTemplateSender} does.
+ */
+final class SpillingSender implements Sender {
+
+	private static final Log log = LogFactory.getLog(SpillingSender.class);
+
+	private final Sender delegate;
+	private final SpanSpillStore store;
+	private final long retryIntervalNanos;
+	private final int maxReplayMessages;
+	private final int maxAttempts;
+	private final Lock replayLock = new ReentrantLock();
+	private volatile long nextReplayNanos;
+	/** Failed attempts to send the oldest spilled span, guarded by the replay lock */
+	private int oldestSpanFailures;
+
+	SpillingSender(Sender delegate, SpanSpillStore store, long retryInterval, TimeUnit unit,
+			int maxReplayMessages, int maxAttempts) {
+		this.delegate = delegate;
+		this.store = store;
+		this.retryIntervalNanos = unit.toNanos(retryInterval);
+		this.maxReplayMessages = Math.max(1, maxReplayMessages);
+		this.maxAttempts = Math.max(1, maxAttempts);
+		this.nextReplayNanos = System.nanoTime();
+	}
+
+	@Override public Encoding encoding() {
+		return this.delegate.encoding();
+	}
+
+	@Override public int messageMaxBytes() {
+		return this.delegate.messageMaxBytes();
+	}
+
+	@Override public int messageSizeInBytes(List<byte[]> encodedSpans) {
+		return this.delegate.messageSizeInBytes(encodedSpans);
+	}
+
+	@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+		if (!this.store.isEmpty() && !replay()) {
+			spill(encodedSpans, callback, null);
+			return;
+		}
+		SendResult result = send(encodedSpans);
+		if (result.error == null) {
+			callback.onComplete();
+		} else {
+			this.nextReplayNanos = System.nanoTime() + this.retryIntervalNanos;
+			spill(encodedSpans, callback, result.error);
+		}
+	}
+
+	/**
+	 * Sends spilled spans, oldest first.
+	 *
+	 * @return {@code true} when the store got emptied
+	 */
+	private boolean replay() {
+		if (System.nanoTime() - this.nextReplayNanos < 0 || !this.replayLock.tryLock()) {
+			return false;
+		}
+		try {
+			for (int i = 0; i < this.maxReplayMessages; i++) {
+				// leave room for the list brackets of the message, a span that failed
+				// before is sent on its own
+				List<byte[]> spilled = this.store.peek(this.oldestSpanFailures > 0
+						? 1 : messageMaxBytes() - 1);
+				if (spilled.isEmpty()) {
+					return true;
+				}
+				SendResult result = send(spilled);
+				if (result.error == null) {
+					this.store.remove(spilled.size());
+					this.oldestSpanFailures = 0;
+					continue;
+				}
+				if (++this.oldestSpanFailures >= this.maxAttempts) {
+					log.warn("Dropping spilled span after " + this.oldestSpanFailures
+							+ " failed attempts to send it due to [" + result.error + "]");
+					this.store.remove(1);
+					this.oldestSpanFailures = 0;
+					continue;
+				}
+				if (log.isDebugEnabled()) {
+					log.debug("Failed to replay spilled spans due to [" + result.error + "]");
+				}
+				this.nextReplayNanos = System.nanoTime() + this.retryIntervalNanos;
+				return false;
+			}
+			return this.store.isEmpty();
+		}
+		finally {
+			this.replayLock.unlock();
+		}
+	}
+
+	private void spill(List<byte[]> encodedSpans, Callback callback, Throwable error) {
+		if (this.store.append(encodedSpans)) {
+			callback.onComplete();
+		} else {
+			callback.onError(error != null ? error :
+					new IllegalStateException("Spill store is full"));
+		}
+	}
+
+	private SendResult send(List<byte[]> encodedSpans) {
+		SendResult result = new SendResult();
+		this.delegate.sendSpans(encodedSpans, result);
+		return result;
+	}
+
+	@Override public CheckResult check() {
+		return this.delegate.check();
+	}
+
+	@Override public void close() throws IOException {
+		try {
+			this.delegate.close();
+		}
+		finally {
+			this.store.close();
+		}
+	}
+
+	private static final class SendResult implements Callback {
+		Throwable error;
+
+		@Override public void onComplete() {
+		}
+
+		@Override public void onError(Throwable t) {
+			this.error = t;
+		}
+	}
+}
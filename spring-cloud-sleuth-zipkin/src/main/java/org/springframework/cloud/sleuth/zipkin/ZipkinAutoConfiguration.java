@@ -16,6 +16,8 @@
 
 package org.springframework.cloud.sleuth.zipkin;
 
+import java.io.File;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
@@ -61,11 +63,19 @@ public class ZipkinAutoConfiguration {
 	@Bean
 	@ConditionalOnMissingBean
 	public ZipkinSpanReporter reporter(SpanMetricReporter spanMetricReporter, ZipkinProperties zipkin,
-			ZipkinRestTemplateCustomizer zipkinRestTemplateCustomizer) {
+			ZipkinRestTemplateCustomizer zipkinRestTemplateCustomizer,
+			@Value("${spring.application.name:default}") String appName) {
+		if (zipkin.getSpill().isEnabled() && zipkin.getSpill().getDirectory() == null) {
+			// a directory per application so that applications on the same host don't share it
+			zipkin.getSpill().setDirectory(new File(new File(System.getProperty("java.io.tmpdir"),
+					"sleuth-zipkin-spill"), appName).getPath());
+		}
+		if (zipkin.getFile().isEnabled()) {
+			return new FileZipkinSpanReporter(zipkin, spanMetricReporter);
+		}
 		RestTemplate restTemplate = new RestTemplate();
 		zipkinRestTemplateCustomizer.customize(restTemplate);
-		return new HttpZipkinSpanReporter(restTemplate, zipkin.getBaseUrl(), zipkin.getFlushInterval(),
-				spanMetricReporter);
+		return new HttpZipkinSpanReporter(restTemplate, zipkin, spanMetricReporter);
 	}
 
 	@Bean
@@ -81,7 +91,12 @@ public class ZipkinAutoConfiguration {
 	}
 
 	@Bean
-	public SpanReporter zipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator) {
+	public SpanReporter zipkinSpanListener(ZipkinSpanReporter reporter, EndpointLocator endpointLocator,
+			SpanMetricReporter spanMetricReporter, ZipkinProperties zipkin) {
+		if (zipkin.isAsyncConversion()) {
+			return new AsyncZipkinSpanListener(reporter, endpointLocator, spanMetricReporter,
+					zipkin.getAsyncConversionQueueSize());
+		}
 		return new ZipkinSpanListener(reporter, endpointLocator);
 	}
 
@@ -30,7 +30,33 @@ public class ZipkinProperties {
 	private String baseUrl = "http://localhost:9411/";
 	private boolean enabled = true;
 	private int flushInterval = 1;
+	/** Maximum number of spans buffered before they are dropped. */
+	private int queuedMaxSpans = 1000;
+	/**
+	 * Maximum number of bytes of encoded spans buffered before they are dropped. Bounds
+	 * the heap taken by pending spans regardless of their size.
+	 */
+	private int queuedMaxBytes = 5 * 1024 * 1024;
+	/**
+	 * Maximum size of a single message sent to Zipkin. Spans larger than this are
+	 * dropped.
+	 */
+	private int messageMaxBytes = 512 * 1024;
+	/**
+	 * Number of threads flushing spans to Zipkin. Each thread has its own share of the
+	 * queue, so bursts are drained in parallel.
+	 */
+	private int flushThreads = 1;
+	/**
+	 * When enabled, finished spans are converted to Zipkin spans on a separate thread
+	 * instead of the one that closes them.
+	 */
+	private boolean asyncConversion = false;
+	/** Maximum number of spans waiting for the asynchronous conversion. */
+	private int asyncConversionQueueSize = 1000;
 	private Compression compression = new Compression();
+	private Spill spill = new Spill();
+	private FileSink file = new FileSink();
 
 	public String getBaseUrl() {
 		return this.baseUrl;
@@ -44,6 +70,30 @@ public class ZipkinProperties {
 		return this.flushInterval;
 	}
 
+	public int getQueuedMaxSpans() {
+		return this.queuedMaxSpans;
+	}
+
+	public int getQueuedMaxBytes() {
+		return this.queuedMaxBytes;
+	}
+
+	public int getMessageMaxBytes() {
+		return this.messageMaxBytes;
+	}
+
+	public int getFlushThreads() {
+		return this.flushThreads;
+	}
+
+	public boolean isAsyncConversion() {
+		return this.asyncConversion;
+	}
+
+	public int getAsyncConversionQueueSize() {
+		return this.asyncConversionQueueSize;
+	}
+
 	public Compression getCompression() {
 		return this.compression;
 	}
@@ -60,10 +110,50 @@ public class ZipkinProperties {
 		this.flushInterval = flushInterval;
 	}
 
+	public void setQueuedMaxSpans(int queuedMaxSpans) {
+		this.queuedMaxSpans = queuedMaxSpans;
+	}
+
+	public void setQueuedMaxBytes(int queuedMaxBytes) {
+		this.queuedMaxBytes = queuedMaxBytes;
+	}
+
+	public void setMessageMaxBytes(int messageMaxBytes) {
+		this.messageMaxBytes = messageMaxBytes;
+	}
+
+	public void setFlushThreads(int flushThreads) {
+		this.flushThreads = flushThreads;
+	}
+
+	public void setAsyncConversion(boolean asyncConversion) {
+		this.asyncConversion = asyncConversion;
+	}
+
+	public void setAsyncConversionQueueSize(int asyncConversionQueueSize) {
+		this.asyncConversionQueueSize = asyncConversionQueueSize;
+	}
+
 	public void setCompression(Compression compression) {
 		this.compression = compression;
 	}
 
+	public Spill getSpill() {
+		return this.spill;
+	}
+
+	public void setSpill(Spill spill) {
+		this.spill = spill;
+	}
+
+	public FileSink getFile() {
+		return this.file;
+	}
+
+	public void setFile(FileSink file) {
+		this.file = file;
+	}
+
 	/** When enabled, spans are gzipped before sent to the zipkin server */
 	public static class Compression {
 
@@ -77,4 +167,185 @@ public class ZipkinProperties {
 			this.enabled = enabled;
 		}
 	}
+
+	/**
+	 * When enabled, spans that can't be sent to the zipkin server are stored in
+	 * memory-mapped files on disk and sent once the server is available again
+	 */
+	public static class Spill {
+
+		private boolean enabled = false;
+
+		/**
+		 * Directory in which the spilled spans are stored. Can't be shared by two
+		 * applications. Defaults to sleuth-zipkin-spill/${spring.application.name} in
+		 * the temporary directory.
+		 */
+		private String directory;
+
+		/** Size of a single file of spilled spans in bytes. */
+		private int segmentSize = 8 * 1024 * 1024;
+
+		/** Maximum number of bytes taken by spilled spans. Spans are dropped above it. */
+		private long maxSize = 256 * 1024 * 1024;
+
+		/** Interval in seconds between attempts to send the spilled spans. */
+		private int retryInterval = 5;
+
+		/** Maximum number of messages of spilled spans sent at a time. */
+		private int maxReplayMessages = 10;
+
+		/** Number of failed attempts to send a spilled span after which it's dropped. */
+		private int maxAttempts = 5;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public int getSegmentSize() {
+			return this.segmentSize;
+		}
+
+		public void setSegmentSize(int segmentSize) {
+			this.segmentSize = segmentSize;
+		}
+
+		public long getMaxSize() {
+			return this.maxSize;
+		}
+
+		public void setMaxSize(long maxSize) {
+			this.maxSize = maxSize;
+		}
+
+		public int getRetryInterval() {
+			return this.retryInterval;
+		}
+
+		public void setRetryInterval(int retryInterval) {
+			this.retryInterval = retryInterval;
+		}
+
+		public int getMaxReplayMessages() {
+			return this.maxReplayMessages;
+		}
+
+		public void setMaxReplayMessages(int maxReplayMessages) {
+			this.maxReplayMessages = maxReplayMessages;
+		}
+
+		public int getMaxAttempts() {
+			return this.maxAttempts;
+		}
+
+		public void setMaxAttempts(int maxAttempts) {
+			this.maxAttempts = maxAttempts;
+		}
+	}
+
+	/**
+	 * When enabled, spans are written as newline-delimited JSON to rotated files
+	 * instead of being sent to the zipkin server
+	 */
+	public static class FileSink {
+
+		private boolean enabled = false;
+
+		/** Directory in which the span files are written. */
+		private String directory = System.getProperty("java.io.tmpdir") + "/sleuth-zipkin-spans";
+
+		/** Name of the file that spans are appended to, without extension. */
+		private String name = "spans";
+
+		/** Size of a file in bytes after which it gets rotated. */
+		private long maxFileSize = 64 * 1024 * 1024;
+
+		/** Interval in seconds after which a file gets rotated. 0 disables it. */
+		private int rotationInterval = 3600;
+
+		/** Number of rotated files kept. Older ones are removed. */
+		private int maxRotatedFiles = 10;
+
+		/** When written spans are forced to disk. */
+		private FileSender.Fsync fsync = FileSender.Fsync.PERIODIC;
+
+		/** Interval in seconds between forcing spans to disk with the periodic policy. */
+		private int fsyncInterval = 1;
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public String getDirectory() {
+			return this.directory;
+		}
+
+		public void setDirectory(String directory) {
+			this.directory = directory;
+		}
+
+		public String getName() {
+			return this.name;
+		}
+
+		public void setName(String name) {
+			this.name = name;
+		}
+
+		public long getMaxFileSize() {
+			return this.maxFileSize;
+		}
+
+		public void setMaxFileSize(long maxFileSize) {
+			this.maxFileSize = maxFileSize;
+		}
+
+		public int getRotationInterval() {
+			return this.rotationInterval;
+		}
+
+		public void setRotationInterval(int rotationInterval) {
+			this.rotationInterval = rotationInterval;
+		}
+
+		public int getMaxRotatedFiles() {
+			return this.maxRotatedFiles;
+		}
+
+		public void setMaxRotatedFiles(int maxRotatedFiles) {
+			this.maxRotatedFiles = maxRotatedFiles;
+		}
+
+		public FileSender.Fsync getFsync() {
+			return this.fsync;
+		}
+
+		public void setFsync(FileSender.Fsync fsync) {
+			this.fsync = fsync;
+		}
+
+		public int getFsyncInterval() {
+			return this.fsyncInterval;
+		}
+
+		public void setFsyncInterval(int fsyncInterval) {
+			this.fsyncInterval = fsyncInterval;
+		}
+	}
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.sleuth.Span;
+import org.springframework.cloud.sleuth.metric.CounterServiceBasedSpanMetricReporter;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class AsyncZipkinSpanListenerTests {
+
+	List<zipkin.Span> reported = new CopyOnWriteArrayList<>();
+	List<String> reportingThreads = new CopyOnWriteArrayList<>();
+	InMemorySpanCounter inMemorySpanCounter = new InMemorySpanCounter();
+	ZipkinSpanReporter reporter = span -> {
+		this.reportingThreads.add(Thread.currentThread().getName());
+		this.reported.add(span);
+	};
+	EndpointLocator endpointLocator = new ServerPropertiesEndpointLocator(new ServerProperties(), "foo");
+	AsyncZipkinSpanListener listener;
+
+	@After
+	public void close() {
+		this.listener.close();
+	}
+
+	@Test
+	public void should_convert_spans_on_a_separate_thread() {
+		this.listener = listener(10);
+
+		this.listener.report(span(1L));
+
+		await().until(() -> then(this.reported).hasSize(1));
+		then(this.reported.get(0).traceId).isEqualTo(1L);
+		then(this.reportingThreads).containsOnly("sleuth-zipkin-span-converter");
+	}
+
+	@Test
+	public void should_drop_spans_when_the_queue_is_full() {
+		this.listener = listener(0);
+
+		this.listener.report(span(1L));
+
+		then(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
+		then(this.reported).isEmpty();
+	}
+
+	@Test
+	public void should_drop_spans_reported_after_close() {
+		this.listener = listener(10);
+		this.listener.close();
+
+		this.listener.report(span(1L));
+
+		then(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
+		then(this.reported).isEmpty();
+	}
+
+	@Test
+	public void should_not_queue_spans_that_are_not_exportable() {
+		this.listener = listener(0);
+
+		this.listener.report(Span.builder().traceId(1L).exportable(false).build());
+
+		then(this.inMemorySpanCounter.getDroppedSpans()).isZero();
+		then(this.reported).isEmpty();
+	}
+
+	@Test
+	public void should_only_queue_spans_until_started() {
+		this.listener = new AsyncZipkinSpanListener(this.reporter, this.endpointLocator,
+				new CounterServiceBasedSpanMetricReporter("accepted", "dropped",
+						this.inMemorySpanCounter), 10);
+
+		this.listener.report(span(1L));
+
+		then(this.reported).isEmpty();
+		this.listener.start();
+		await().until(() -> then(this.reported).hasSize(1));
+	}
+
+	private AsyncZipkinSpanListener listener(int queueSize) {
+		AsyncZipkinSpanListener listener = new AsyncZipkinSpanListener(this.reporter,
+				this.endpointLocator, new CounterServiceBasedSpanMetricReporter("accepted",
+						"dropped", this.inMemorySpanCounter), queueSize);
+		listener.start();
+		return listener;
+	}
+
+	private Span span(long traceId) {
+		Span span = Span.builder().traceId(traceId).spanId(traceId).name("foo").build();
+		span.stop();
+		return span;
+	}
+}
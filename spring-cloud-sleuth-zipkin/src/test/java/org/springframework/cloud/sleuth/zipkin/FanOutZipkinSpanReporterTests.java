@@ -0,0 +1,133 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+import zipkin.Span;
+import zipkin.reporter.AsyncReporter;
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoder;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+import static com.jayway.awaitility.Awaitility.await;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class FanOutZipkinSpanReporterTests {
+
+	CountDownLatch blockedSenderLatch = new CountDownLatch(1);
+	InMemorySender first = new InMemorySender();
+	InMemorySender second = new InMemorySender();
+	FanOutZipkinSpanReporter reporter;
+
+	@After
+	public void close() {
+		this.blockedSenderLatch.countDown();
+		if (this.reporter != null) {
+			this.reporter.close();
+		}
+	}
+
+	@Test
+	public void should_send_the_same_encoded_span_to_all_destinations() {
+		this.reporter = FanOutZipkinSpanReporter.builder(Encoding.JSON)
+				.destination(AsyncReporter.builder(this.first).messageTimeout(0, TimeUnit.SECONDS))
+				.destination(AsyncReporter.builder(this.second).messageTimeout(0, TimeUnit.SECONDS))
+				.build();
+
+		this.reporter.report(span(1L));
+		this.reporter.flush();
+
+		then(this.first.received).hasSize(1);
+		then(this.second.received).hasSize(1);
+		then(this.first.received.get(0)).isSameAs(this.second.received.get(0))
+				.isEqualTo(Encoder.JSON.encode(span(1L)));
+	}
+
+	@Test
+	public void should_not_block_destinations_on_a_slow_one() {
+		InMemorySender blocked = new InMemorySender() {
+			@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+				try {
+					FanOutZipkinSpanReporterTests.this.blockedSenderLatch.await();
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+				super.sendSpans(encodedSpans, callback);
+			}
+		};
+		this.reporter = FanOutZipkinSpanReporter.builder(Encoding.JSON)
+				.destination(AsyncReporter.builder(blocked).messageTimeout(10, TimeUnit.MILLISECONDS)
+						.queuedMaxSpans(1))
+				.destination(AsyncReporter.builder(this.first).messageTimeout(10, TimeUnit.MILLISECONDS))
+				.build();
+
+		for (long i = 1; i <= 10; i++) {
+			this.reporter.report(span(i));
+		}
+
+		await().until(() -> then(this.first.received).hasSize(10));
+		then(blocked.received).isEmpty();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void should_fail_when_encoding_of_destination_differs() {
+		this.reporter = FanOutZipkinSpanReporter.builder(Encoding.THRIFT)
+				.destination(AsyncReporter.builder(this.first))
+				.build();
+	}
+
+	static Span span(long traceId) {
+		return Span.builder().traceId(traceId).id(traceId).name("foo").build();
+	}
+
+	static class InMemorySender implements Sender {
+		final List<byte[]> received = new CopyOnWriteArrayList<>();
+
+		@Override public Encoding encoding() {
+			return Encoding.JSON;
+		}
+
+		@Override public int messageMaxBytes() {
+			return 1024 * 1024;
+		}
+
+		@Override public int messageSizeInBytes(List<byte[]> encodedSpans) {
+			return encoding().listSizeInBytes(encodedSpans);
+		}
+
+		@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+			this.received.addAll(encodedSpans);
+			callback.onComplete();
+		}
+
+		@Override public CheckResult check() {
+			return CheckResult.OK;
+		}
+
+		@Override public void close() {
+		}
+	}
+}
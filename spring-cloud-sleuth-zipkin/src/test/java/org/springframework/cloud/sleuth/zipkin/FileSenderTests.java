@@ -0,0 +1,165 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.cloud.sleuth.metric.CounterServiceBasedSpanMetricReporter;
+
+import zipkin.Codec;
+import zipkin.Span;
+import zipkin.reporter.Callback;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class FileSenderTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	ZipkinProperties.FileSink file = new ZipkinProperties.FileSink();
+	long now = 1_000_000L;
+	FileSender sender;
+
+	@After
+	public void close() throws Exception {
+		if (this.sender != null) {
+			this.sender.close();
+		}
+	}
+
+	@Test
+	public void should_append_spans_as_newline_delimited_json() throws Exception {
+		this.sender = sender();
+
+		send(asList(bytes("{\"a\":1}"), bytes("{\"b\":2}")));
+		send(singletonList(bytes("{\"c\":3}")));
+
+		then(lines("spans.ndjson")).containsExactly("{\"a\":1}", "{\"b\":2}", "{\"c\":3}");
+	}
+
+	@Test
+	public void should_count_a_new_line_per_span() {
+		this.sender = sender();
+
+		then(this.sender.messageSizeInBytes(asList(bytes("ab"), bytes("c")))).isEqualTo(5);
+	}
+
+	@Test
+	public void should_rotate_the_file_when_it_would_exceed_the_max_size() throws Exception {
+		this.file.setMaxFileSize(10);
+		this.sender = sender();
+
+		send(singletonList(bytes("span-1")));
+		send(singletonList(bytes("span-2")));
+
+		then(lines("spans.ndjson")).containsExactly("span-2");
+		then(lines("spans-" + this.now + ".ndjson")).containsExactly("span-1");
+	}
+
+	@Test
+	public void should_rotate_the_file_when_the_rotation_interval_elapsed() throws Exception {
+		this.file.setRotationInterval(60);
+		this.sender = sender();
+
+		send(singletonList(bytes("span-1")));
+		this.now += 59_000L;
+		send(singletonList(bytes("span-2")));
+		this.now += 1_000L;
+		send(singletonList(bytes("span-3")));
+
+		then(lines("spans.ndjson")).containsExactly("span-3");
+		then(lines("spans-" + this.now + ".ndjson")).containsExactly("span-1", "span-2");
+	}
+
+	@Test
+	public void should_remove_the_oldest_rotated_files() throws Exception {
+		this.file.setMaxFileSize(1);
+		this.file.setMaxRotatedFiles(2);
+		this.sender = sender();
+
+		for (int i = 1; i <= 5; i++) {
+			send(singletonList(bytes("span-" + i)));
+			this.now++;
+		}
+
+		then(this.folder.getRoot().list()).hasSize(3);
+		then(lines("spans-" + (this.now - 2) + ".ndjson")).containsExactly("span-3");
+		then(lines("spans-" + (this.now - 1) + ".ndjson")).containsExactly("span-4");
+		then(lines("spans.ndjson")).containsExactly("span-5");
+	}
+
+	@Test
+	public void should_write_spans_reported_to_the_file_reporter() throws Exception {
+		this.file.setEnabled(true);
+		this.file.setDirectory(this.folder.getRoot().getAbsolutePath());
+		ZipkinProperties zipkin = new ZipkinProperties();
+		zipkin.setFile(this.file);
+		zipkin.setFlushInterval(0);
+		FileZipkinSpanReporter reporter = new FileZipkinSpanReporter(zipkin,
+				new CounterServiceBasedSpanMetricReporter("accepted", "dropped",
+						new InMemorySpanCounter()));
+		Span span = Span.builder().traceId(1L).id(1L).name("foo").build();
+
+		reporter.report(span);
+		reporter.flush();
+		reporter.close();
+
+		List<String> lines = lines("spans.ndjson");
+		then(lines).hasSize(1);
+		then(Codec.JSON.readSpan(lines.get(0).getBytes(StandardCharsets.UTF_8))).isEqualTo(span);
+	}
+
+	private FileSender sender() {
+		this.file.setDirectory(this.folder.getRoot().getAbsolutePath());
+		return new FileSender(this.file, 1024) {
+			@Override long currentTimeMillis() {
+				return FileSenderTests.this.now;
+			}
+		};
+	}
+
+	private void send(List<byte[]> spans) {
+		AtomicReference<Throwable> error = new AtomicReference<>();
+		this.sender.sendSpans(spans, new Callback() {
+			@Override public void onComplete() {
+			}
+
+			@Override public void onError(Throwable t) {
+				error.set(t);
+			}
+		});
+		then(error.get()).isNull();
+	}
+
+	private List<String> lines(String name) throws Exception {
+		return Files.readAllLines(new File(this.folder.getRoot(), name).toPath());
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+}
@@ -5,6 +5,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.springframework.boot.autoconfigure.web.ServerProperties;
 import org.springframework.cloud.sleuth.DefaultSpanNamer;
 import org.springframework.cloud.sleuth.TraceKeys;
@@ -20,6 +21,7 @@ import org.springframework.web.client.RestTemplate;
 import zipkin.Span;
 import zipkin.junit.HttpFailure;
 import zipkin.junit.ZipkinRule;
+import zipkin.reporter.Encoder;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -28,6 +30,7 @@ import static org.assertj.core.api.BDDAssertions.then;
 public class HttpZipkinSpanReporterTest {
 
 	@Rule public final ZipkinRule zipkin = new ZipkinRule();
+	@Rule public final TemporaryFolder folder = new TemporaryFolder();
 	InMemorySpanCounter inMemorySpanCounter = new InMemorySpanCounter();
 	SpanMetricReporter spanMetricReporter = new CounterServiceBasedSpanMetricReporter("accepted", "dropped",
 			this.inMemorySpanCounter);
@@ -62,6 +65,62 @@ public class HttpZipkinSpanReporterTest {
 		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
 	}
 
+	@Test
+	public void dropsWhenConfiguredQueueIsFull() throws Exception {
+		ZipkinProperties zipkinProperties = zipkinProperties();
+		zipkinProperties.setQueuedMaxSpans(10);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, zipkinProperties,
+				this.spanMetricReporter);
+
+		for (int i = 0; i < 11; i++)
+			this.reporter.report(span(1L, "foo"));
+
+		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
+	}
+
+	@Test
+	public void dropsWhenQueuedBytesAreExceeded() throws Exception {
+		ZipkinProperties zipkinProperties = zipkinProperties();
+		zipkinProperties.setQueuedMaxBytes(Encoder.JSON.encode(span(1L, "foo")).length);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, zipkinProperties,
+				this.spanMetricReporter);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.report(span(1L, "foo"));
+
+		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
+	}
+
+	@Test
+	public void dropsSpansLargerThanMessageMaxBytes() throws Exception {
+		ZipkinProperties zipkinProperties = zipkinProperties();
+		zipkinProperties.setMessageMaxBytes(10);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, zipkinProperties,
+				this.spanMetricReporter);
+
+		this.reporter.report(span(1L, "foo"));
+
+		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(1);
+	}
+
+	@Test
+	public void postsSpansFromAllFlushThreads() throws Exception {
+		ZipkinProperties zipkinProperties = zipkinProperties();
+		zipkinProperties.setFlushThreads(2);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, zipkinProperties,
+				this.spanMetricReporter);
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.report(span(2L, "bar"));
+
+		this.reporter.flush(); // manually flush the spans
+
+		assertThat(this.zipkin.getTraces()).containsOnly(
+				asList(span(1L, "foo")),
+				asList(span(2L, "bar"))
+		);
+	}
+
 	@Test
 	public void postsSpans() throws Exception {
 		this.reporter.report(span(1L, "foo"));
@@ -123,6 +182,33 @@ public class HttpZipkinSpanReporterTest {
 		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isEqualTo(2);
 	}
 
+	@Test
+	public void spillsSpansWhenServerErrorsAndSendsThemOnceItRecovers() throws Exception {
+		ZipkinProperties zipkinProperties = zipkinProperties();
+		zipkinProperties.getSpill().setEnabled(true);
+		zipkinProperties.getSpill().setDirectory(this.folder.getRoot().getPath());
+		zipkinProperties.getSpill().setRetryInterval(0);
+		this.reporter = new HttpZipkinSpanReporter(this.restTemplate, zipkinProperties,
+				this.spanMetricReporter);
+		this.zipkin.enqueueFailure(HttpFailure.sendErrorResponse(500, "Ouch"));
+
+		this.reporter.report(span(1L, "foo"));
+		this.reporter.flush(); // fails and spills the span
+
+		assertThat(this.inMemorySpanCounter.getDroppedSpans()).isZero();
+		assertThat(this.zipkin.getTraces()).isEmpty();
+
+		this.reporter.report(span(2L, "bar"));
+		this.reporter.flush(); // replays the spilled span before sending the new one
+
+		assertThat(this.zipkin.getTraces()).containsExactly(
+				asList(span(1L, "foo")),
+				asList(span(2L, "bar"))
+		);
+		assertThat(this.folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg")))
+				.hasSize(1);
+	}
+
 	@Test
 	public void should_change_the_service_name_in_zipkin_to_the_manually_provided_one() {
 		AtomicReference<Span> receivedSpan = new AtomicReference<>();
@@ -153,6 +239,13 @@ public class HttpZipkinSpanReporterTest {
 				.contains("peer.service", "redisService");
 	}
 
+	private ZipkinProperties zipkinProperties() {
+		ZipkinProperties zipkinProperties = new ZipkinProperties();
+		zipkinProperties.setBaseUrl(this.zipkin.httpUrl());
+		zipkinProperties.setFlushInterval(0); // so that tests can drive flushing explicitly
+		return zipkinProperties;
+	}
+
 	static Span span(long traceId, String spanName) {
 		return Span.builder().traceId(traceId).id(traceId).name(spanName).build();
 	}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SpanSpillStoreTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void should_return_spans_in_the_order_they_were_appended() throws Exception {
+		SpanSpillStore store = new SpanSpillStore(this.folder.getRoot(), 64, 1024);
+
+		then(store.append(asList(bytes("first"), bytes("second")))).isTrue();
+		then(store.append(singletonList(bytes("third")))).isTrue();
+
+		then(strings(store.peek(1024))).containsExactly("first", "second", "third");
+	}
+
+	@Test
+	public void should_limit_the_number_of_peeked_bytes() throws Exception {
+		SpanSpillStore store = new SpanSpillStore(this.folder.getRoot(), 64, 1024);
+		store.append(asList(bytes("first"), bytes("second")));
+
+		then(strings(store.peek(6))).containsExactly("first");
+		then(strings(store.peek(1))).containsExactly("first");
+	}
+
+	@Test
+	public void should_rotate_segments_and_remove_consumed_ones() throws Exception {
+		SpanSpillStore store = new SpanSpillStore(this.folder.getRoot(), 32, 1024);
+
+		for (int i = 0; i < 10; i++) {
+			store.append(singletonList(bytes("span-" + i)));
+		}
+		then(segments()).hasSize(5);
+
+		store.remove(5);
+
+		then(strings(store.peek(7))).containsExactly("span-5");
+		then(segments()).hasSize(3);
+		store.remove(5);
+		then(store.isEmpty()).isTrue();
+		then(segments()).hasSize(1);
+	}
+
+	@Test
+	public void should_reject_spans_above_the_max_size() throws Exception {
+		SpanSpillStore store = new SpanSpillStore(this.folder.getRoot(), 32, 64);
+
+		then(store.append(asList(bytes("span-1"), bytes("span-2"),
+				bytes("span-3"), bytes("span-4")))).isTrue();
+		then(store.append(singletonList(bytes("span-5")))).isFalse();
+		then(strings(store.peek(1024))).containsExactly("span-1", "span-2", "span-3", "span-4");
+	}
+
+	@Test
+	public void should_recover_spans_left_by_previous_store() throws Exception {
+		File root = this.folder.getRoot();
+		SpanSpillStore store = new SpanSpillStore(root, 32, 1024);
+		store.append(asList(bytes("span-1"), bytes("span-2"), bytes("span-3")));
+		store.remove(1);
+		store.close();
+
+		SpanSpillStore recovered = new SpanSpillStore(root, 32, 1024);
+
+		then(strings(recovered.peek(1024))).containsExactly("span-2", "span-3");
+		recovered.append(singletonList(bytes("span-4")));
+		then(strings(recovered.peek(1024))).containsExactly("span-2", "span-3", "span-4");
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void should_not_share_the_directory_with_another_store() throws Exception {
+		new SpanSpillStore(this.folder.getRoot(), 32, 1024);
+
+		new SpanSpillStore(this.folder.getRoot(), 32, 1024);
+	}
+
+	@Test
+	public void should_release_the_directory_on_close() throws Exception {
+		new SpanSpillStore(this.folder.getRoot(), 32, 1024).close();
+
+		then(new SpanSpillStore(this.folder.getRoot(), 32, 1024).isEmpty()).isTrue();
+	}
+
+	private File[] segments() {
+		return this.folder.getRoot().listFiles((dir, name) -> name.endsWith(".seg"));
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes();
+	}
+
+	private static String[] strings(List<byte[]> values) {
+		return values.stream().map(String::new).toArray(String[]::new);
+	}
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright 2013-2016 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.springframework.cloud.sleuth.zipkin;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import zipkin.reporter.Callback;
+import zipkin.reporter.Encoding;
+import zipkin.reporter.Sender;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.BDDAssertions.then;
+
+public class SpillingSenderTests {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	RejectingSender delegate = new RejectingSender();
+	SpanSpillStore store;
+	SpillingSender sender;
+
+	@Before
+	public void setup() throws Exception {
+		this.store = new SpanSpillStore(this.folder.getRoot(), 1024, 64 * 1024);
+		this.sender = new SpillingSender(this.delegate, this.store, 0, TimeUnit.SECONDS, 2, 3);
+	}
+
+	@After
+	public void close() throws Exception {
+		this.sender.close();
+	}
+
+	@Test
+	public void should_drop_a_span_that_keeps_getting_rejected() {
+		this.delegate.rejected = "poison";
+		this.sender.sendSpans(singletonList(bytes("poison")), new NoOpCallback());
+		this.sender.sendSpans(singletonList(bytes("span-1")), new NoOpCallback());
+		this.sender.sendSpans(singletonList(bytes("span-2")), new NoOpCallback());
+
+		this.sender.sendSpans(singletonList(bytes("span-3")), new NoOpCallback());
+
+		then(this.store.isEmpty()).isTrue();
+		then(this.delegate.sent).containsExactly("span-1", "span-2", "span-3");
+	}
+
+	@Test
+	public void should_replay_a_bounded_number_of_messages_per_send() {
+		this.delegate.rejected = "";
+		for (int i = 0; i < 5; i++) {
+			this.sender.sendSpans(singletonList(bytes(longSpan(i))), new NoOpCallback());
+		}
+		this.delegate.rejected = null;
+
+		this.sender.sendSpans(singletonList(bytes("span")), new NoOpCallback());
+
+		then(this.delegate.messages).isEqualTo(2);
+		then(this.store.isEmpty()).isFalse();
+	}
+
+	private static String longSpan(int i) {
+		StringBuilder span = new StringBuilder("span-" + i);
+		while (span.length() < 600) {
+			span.append('x');
+		}
+		return span.toString();
+	}
+
+	private static byte[] bytes(String value) {
+		return value.getBytes();
+	}
+
+	/**
+	 * Rejects every message that has a span starting with the rejected prefix
+	 */
+	static class RejectingSender implements Sender {
+		final List<String> sent = new ArrayList<>();
+		String rejected;
+		int messages;
+
+		@Override public Encoding encoding() {
+			return Encoding.JSON;
+		}
+
+		@Override public int messageMaxBytes() {
+			return 1024;
+		}
+
+		@Override public int messageSizeInBytes(List<byte[]> encodedSpans) {
+			return encoding().listSizeInBytes(encodedSpans);
+		}
+
+		@Override public void sendSpans(List<byte[]> encodedSpans, Callback callback) {
+			for (byte[] encodedSpan : encodedSpans) {
+				if (this.rejected != null && new String(encodedSpan).startsWith(this.rejected)) {
+					callback.onError(new IllegalArgumentException("rejected"));
+					return;
+				}
+			}
+			this.messages++;
+			for (byte[] encodedSpan : encodedSpans) {
+				this.sent.add(new String(encodedSpan));
+			}
+			callback.onComplete();
+		}
+
+		@Override public CheckResult check() {
+			return CheckResult.OK;
+		}
+
+		@Override public void close() {
+		}
+	}
+
+	static class NoOpCallback implements Callback {
+		@Override public void onComplete() {
+		}
+
+		@Override public void onError(Throwable t) {
+		}
+	}
+}